@@ -27,8 +27,6 @@ public class Programacion2 {
         } catch (Exception e) {
             System.err.println("❌ Ocurrió un error inesperado al intentar conectar.");
             System.err.println("Detalles técnicos: " + e.getMessage());
-        } finally {
-            DatabaseConnection.closeConnection();
         }
     }
 }
\ No newline at end of file
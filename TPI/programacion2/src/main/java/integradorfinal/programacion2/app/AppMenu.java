@@ -1,16 +1,23 @@
 package integradorfinal.programacion2.app;
 
+import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.dao.CredencialResumen;
+import integradorfinal.programacion2.dao.Pagina;
+import integradorfinal.programacion2.dao.UsuarioResumen;
 import integradorfinal.programacion2.entities.Usuario;
 import integradorfinal.programacion2.entities.CredencialAcceso;
 import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.service.AuthService;
+import integradorfinal.programacion2.service.ResultadoLogin;
 import integradorfinal.programacion2.service.UsuarioService;
 import integradorfinal.programacion2.service.CredencialAccesoService;
+import integradorfinal.programacion2.service.impl.AuthServiceImpl;
 import integradorfinal.programacion2.service.impl.UsuarioServiceImpl;
 import integradorfinal.programacion2.service.impl.CredencialAccesoServiceImpl;
+import integradorfinal.programacion2.service.sesion.Sesion;
 
 import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
 
@@ -22,6 +29,9 @@ import java.util.Scanner;
  */
 public class AppMenu {
 
+    // Cantidad de usuarios (o credenciales) que muestro por página en los listados.
+    private static final int TAMANIO_PAGINA = 20;
+
     // Scanner que uso en toda la clase para leer las entradas por consola.
     private final Scanner sc = new Scanner(System.in);
 
@@ -31,6 +41,12 @@ public class AppMenu {
     // Servicio de Credencial: acá centralizo la lógica de las credenciales.
     private final CredencialAccesoService credService = new CredencialAccesoServiceImpl();
 
+    // Servicio de login: comparte los servicios de arriba (y sus caches).
+    private final AuthService authService = new AuthServiceImpl(usuarioService, credService);
+
+    // Token de la sesión abierta en esta consola (null si no hay login)
+    private String tokenSesion;
+
     // Punto de entrada de la aplicación. Arranco creando un AppMenu y llamando a run().
     public static void main(String[] args) {
         new AppMenu().run();
@@ -79,8 +95,13 @@ public class AppMenu {
                         loginUsuario();
                     case 15 ->
                         demoRollbackMenu();
-                    case 0 ->
+                    case 16 ->
+                        listarCredenciales();
+                    case 0 -> {
                         System.out.println("👋 Saliendo...");
+                        authService.close();                  // termino de registrar sesiones pendientes
+                        DatabaseConnection.closeConnection(); // cierro el pool al salir
+                    }
                     default ->
                         System.out.println("⚠️ Opción invalida.");
                 }
@@ -113,6 +134,7 @@ public class AppMenu {
         System.out.println("13) Actualizar contraseña (stored procedure)");
         System.out.println("14) Login de Usuario (validar contraseña)");
         System.out.println("15) PRUEBA DE ROLLBACK (Solo para desmotracion)");
+        System.out.println("16) Listar Credenciales");
         System.out.println(" 0) Salir");
     }
 
@@ -138,17 +160,30 @@ public class AppMenu {
     }
 
     /**
-     * Listo todos los usuarios que obtengo del service.
-     * Si la lista viene vacía, informo que no hay usuarios.
+     * Listo los usuarios de a páginas de TAMANIO_PAGINA.
+     * Después de cada página pregunto si quiero ver la siguiente.
+     * Si no hay ninguno, informo que no hay usuarios.
+     * Para el listado alcanza con id, username y estado: pido solo esas columnas.
      */
     private void listarUsuarios() throws SQLException {
-        List<Usuario> lista = usuarioService.findAll();
-        if (lista.isEmpty()) {
+        Pagina<UsuarioResumen> pagina = usuarioService.findResumenPage(null, TAMANIO_PAGINA);
+        if (pagina.isEmpty()) {
             System.out.println("(sin usuarios)");
             return;
         }
-        // Uso method reference para imprimir cada usuario con su toString().
-        lista.forEach(System.out::println);
+        while (true) {
+            for (UsuarioResumen u : pagina.getItems()) {
+                System.out.printf("%6d  %-30s %s%n", u.idUsuario(), u.username(), u.estado());
+            }
+            if (!pagina.haySiguiente()) {
+                return;
+            }
+            String seguir = leerStrOpc("Enter para ver más, N para terminar");
+            if (seguir.equalsIgnoreCase("N")) {
+                return;
+            }
+            pagina = usuarioService.findResumenPage(pagina.getSiguienteCursor(), TAMANIO_PAGINA);
+        }
     }
 
     /**
@@ -279,7 +314,7 @@ public class AppMenu {
         c.setEstado(Estado.ACTIVO);
         // En esta opción transaccional dejo el password tal cual lo ingresa el usuario
         // asumiendo que el hash se aplica en otra capa o es solo demostrativo.
-        c.setHashPassword(leerStr("Password (se guardara el hash SHA-256)"));
+        c.setHashPassword(leerStr("Password (se guardara solo el hash)"));
         c.setSalt("manual"); // acá setteo un salt fijo solo a modo de ejemplo
         c.setUltimoCambio(LocalDateTime.now());
         c.setRequiereReset(false);
@@ -295,18 +330,18 @@ public class AppMenu {
 
     /**
      * Creo una credencial para un usuario que ya existe.
-     * Acá sí genero un salt aleatorio y calculo el hash SHA-256 de la contraseña
-     * usando PasswordUtil, para que quede guardada de manera más segura.
+     * Acá sí genero un salt aleatorio y calculo el hash de la contraseña
+     * con el algoritmo configurado (PasswordHashing), para que quede guardada de manera más segura.
      */
     private void crearCredencialParaUsuario() throws SQLException {
         long usuarioId = leerLong("Usuario ID para asociar credencial");
-        String passwordPlano = leerStr("Password (se guardará el hash SHA-256)");
+        String passwordPlano = leerStr("Password (se guardará solo el hash)");
 
         // Genero un salt aleatorio de 16 bytes para esta credencial.
-        String salt = integradorfinal.programacion2.util.PasswordUtil.generateSalt(16);
+        String salt = integradorfinal.programacion2.util.ProveedorSalt.compartido().siguiente();
 
         // Calculo el hash mezclando la contraseña con el salt.
-        String hash = integradorfinal.programacion2.util.PasswordUtil.hashPassword(passwordPlano, salt);
+        String hash = integradorfinal.programacion2.util.HashingExecutor.compartido().hash(passwordPlano, salt);
 
         CredencialAcceso c = new CredencialAcceso();
         c.setEliminado(false);
@@ -341,13 +376,41 @@ public class AppMenu {
         System.out.println(c.map(Object::toString).orElse("(no encontrada)"));
     }
 
+    /**
+     * Listo las credenciales de a páginas, igual que los usuarios. El
+     * resumen no trae hash ni salt, que el listado no muestra.
+     */
+    private void listarCredenciales() throws SQLException {
+        Pagina<CredencialResumen> pagina = credService.findResumenPage(null, TAMANIO_PAGINA);
+        if (pagina.isEmpty()) {
+            System.out.println("(sin credenciales)");
+            return;
+        }
+        while (true) {
+            for (CredencialResumen c : pagina.getItems()) {
+                System.out.printf("%6d  usuario=%-6d %-8s ultimaSesion=%s%s%n",
+                        c.idCredencial(), c.usuarioId(), c.estado(),
+                        c.ultimaSesion() != null ? c.ultimaSesion() : "-",
+                        c.requiereReset() ? "  (requiere reset)" : "");
+            }
+            if (!pagina.haySiguiente()) {
+                return;
+            }
+            String seguir = leerStrOpc("Enter para ver más, N para terminar");
+            if (seguir.equalsIgnoreCase("N")) {
+                return;
+            }
+            pagina = credService.findResumenPage(pagina.getSiguienteCursor(), TAMANIO_PAGINA);
+        }
+    }
+
     /**
      * Actualizo la contraseña de un usuario usando un stored procedure en la base.
      * De esta forma centralizo la lógica de cambio de password del lado de la BD.
      */
     private void actualizarPasswordSeguro() throws SQLException {
         long usuarioId = leerLong("Usuario ID");
-        String nuevoPassword = leerStr("Nuevo password (se guardará hash SHA-256)");
+        String nuevoPassword = leerStr("Nuevo password (se guardará solo el hash)");
         // El tercer parámetro "IGNORAR" es un placeholder según la firma del SP.
         credService.updatePasswordSeguro(usuarioId, nuevoPassword, "IGNORAR");
         System.out.println("🔐 Password actualizada vía stored procedure.");
@@ -425,11 +488,9 @@ public class AppMenu {
     }
 
     /**
-     * Simulo el proceso de login:
-     * - Busco al usuario por username.
-     * - Busco su credencial asociada.
-     * - Valido la contraseña ingresada contra el hash almacenado usando salt.
-     * - Si todo está OK, actualizo la fecha de última sesión.
+     * Login de usuario. Toda la lógica está en AuthService (una consulta,
+     * validación del hash y registro de la última sesión en segundo plano);
+     * acá solo pido los datos y muestro el resultado.
      */
     private void loginUsuario() throws SQLException {
         System.out.println("=== LOGIN DE USUARIO ===");
@@ -437,38 +498,25 @@ public class AppMenu {
         String username = leerStr("Username");
         String passwordIngresada = leerStr("Password");
 
-        // 1. Buscar usuario por username
-        Optional<Usuario> optUser = usuarioService.findByUsername(username);
-        if (optUser.isEmpty()) {
-            System.out.println("❌ Usuario no encontrado.");
-            return;
-        }
-
-        Usuario u = optUser.get();
-
-        // 2. Buscar credencial asociada al usuario
-        Optional<CredencialAcceso> optCred = credService.findByUsuarioId(u.getIdUsuario());
-        if (optCred.isEmpty()) {
-            System.out.println("⚠️ No hay credencial asociada a este usuario.");
-            return;
-        }
-
-        CredencialAcceso cred = optCred.get();
-
-        // 3. Validar password ingresada contra hash y salt usando PasswordUtil.
-        boolean ok = integradorfinal.programacion2.util.PasswordUtil.validatePassword(
-                passwordIngresada,
-                cred.getSalt(),
-                cred.getHashPassword()
-        );
-
-        if (ok) {
-            System.out.println("✅ Login exitoso. Bienvenido, " + u.getNombre() + "!");
-            // Actualizo la última sesión del usuario.
-            cred.setUltimaSesion(LocalDateTime.now());
-            credService.update(cred); // persisto el cambio
-        } else {
-            System.out.println("❌ Contraseña incorrecta.");
+        ResultadoLogin r = authService.login(username, passwordIngresada);
+        switch (r.getTipo()) {
+            case OK -> {
+                // Si ya había una sesión abierta en esta consola, la cierro
+                if (tokenSesion != null) authService.logout(tokenSesion);
+                tokenSesion = r.getSesion().map(Sesion::getToken).orElse(null);
+                System.out.println("✅ Login exitoso. Bienvenido, " + r.getUsuario().get().getNombre() + "!");
+                r.getSesion().ifPresent(s -> System.out.println("🔑 " + s));
+            }
+            case USUARIO_DESCONOCIDO ->
+                System.out.println("❌ Usuario no encontrado.");
+            case PASSWORD_INCORRECTA ->
+                System.out.println("❌ Contraseña incorrecta.");
+            case REQUIERE_RESET ->
+                System.out.println("⚠️ Debe cambiar su contraseña antes de ingresar (opción 13).");
+            case INACTIVO ->
+                System.out.println("⚠️ El usuario o su credencial están inactivos.");
+            case DEMASIADOS_INTENTOS ->
+                System.out.println("⛔ Demasiados intentos. Espere un momento y vuelva a probar.");
         }
     }
 
@@ -11,6 +11,7 @@ Necesario para que UTF 8 funcione correctamente
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import integradorfinal.programacion2.Programacion2;
+import integradorfinal.programacion2.util.PasswordHashing;
 
 /**
  *
@@ -25,6 +26,9 @@ public class Main {
         //Testeo de la conexion
         Programacion2.testConnection(); // se ejecuta una sola vez
 
+        // Algoritmo de hash listo (y calibrado si hace falta) antes del primer login
+        PasswordHashing.inicializar();
+
         // Llamás al menú desde acá
         AppMenu menu = new AppMenu();
         menu.run();
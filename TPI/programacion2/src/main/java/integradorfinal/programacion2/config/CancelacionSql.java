@@ -0,0 +1,104 @@
+package integradorfinal.programacion2.config;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Permite cancelar desde otro hilo las consultas que está corriendo una
+ * operación (por timeout o porque quien la pidió ya no espera el resultado).
+ *
+ * Mientras la operación corre con {@link #ejecutarCon(CancelacionSql, Callable)},
+ * las conexiones que pide al pool anotan acá cada sentencia que entregan, y
+ * la sacan cuando la conexión se devuelve. {@link #cancelar()} llama a
+ * Statement.cancel() sobre las que siguen anotadas (el driver le pide al
+ * servidor que corte la consulta) y, desde ese momento, cualquier sentencia
+ * nueva de la operación falla en el acto. Tampoco se confirma nada: el
+ * commit (y el setAutoCommit(true), que confirma implícitamente) de una
+ * conexión de la operación cancelada hace rollback y falla.
+ *
+ * Lo que no puedo deshacer es un commit que ya estaba en curso cuando llegó
+ * la cancelación: en ese caso el timeout que ve quien esperaba no dice si la
+ * escritura quedó o no (el resultado es desconocido y hay que releer).
+ *
+ * Saco las sentencias al devolver la conexión para no cancelar nunca una
+ * sentencia que el pool ya le prestó a otro hilo.
+ */
+public final class CancelacionSql {
+
+    private static final ThreadLocal<CancelacionSql> ACTUAL = new ThreadLocal<>();
+
+    // Sentencias de conexiones todavía prestadas a la operación (sincronizado en this)
+    private final Set<Statement> activas = new HashSet<>();
+    private boolean cancelada;
+
+    /** Corro la operación con esta cancelación atada al hilo actual. */
+    public static <T> T ejecutarCon(CancelacionSql cancelacion, Callable<T> operacion) throws Exception {
+        CancelacionSql anterior = ACTUAL.get();
+        ACTUAL.set(cancelacion);
+        try {
+            return operacion.call();
+        } finally {
+            if (anterior != null) {
+                ACTUAL.set(anterior);
+            } else {
+                ACTUAL.remove();
+            }
+        }
+    }
+
+    /** La cancelación de la operación que corre en este hilo, o null. */
+    static CancelacionSql actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Anoto una sentencia recién entregada.
+     *
+     * @throws SQLException si la operación ya fue cancelada
+     */
+    synchronized void registrar(Statement st) throws SQLException {
+        verificar();
+        activas.add(st);
+    }
+
+    /** @throws SQLException si la operación ya fue cancelada */
+    synchronized void verificar() throws SQLException {
+        if (cancelada) {
+            throw new SQLException("La operación fue cancelada", "57014");
+        }
+    }
+
+    /** La conexión vuelve al pool: sus sentencias dejan de ser de esta operación. */
+    synchronized void liberar(Collection<Statement> sentencias) {
+        activas.removeAll(sentencias);
+    }
+
+    /**
+     * Cancelo las consultas en curso de la operación. Se puede llamar desde
+     * cualquier hilo y más de una vez.
+     *
+     * @return cuántas sentencias se cancelaron
+     */
+    public synchronized int cancelar() {
+        cancelada = true;
+        int n = 0;
+        for (Statement st : activas) {
+            try {
+                st.cancel();
+                n++;
+            } catch (SQLException ignore) {
+                // Ya cerrada o el driver no pudo: la operación termina igual
+            }
+        }
+        activas.clear();
+        return n;
+    }
+
+    public synchronized boolean isCancelada() {
+        return cancelada;
+    }
+}
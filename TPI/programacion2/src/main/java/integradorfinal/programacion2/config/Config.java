@@ -2,6 +2,8 @@ package integradorfinal.programacion2.config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -59,15 +61,153 @@ public final class Config {
      * Acá armo la URL completa de conexión usando los valores configurados.
      * También agrego los parámetros que necesito para UTF-8 y compatibilidad
      * con MySQL moderno (SSL, timezone, PK retrieval, etc.).
+     * useServerPrepStmts hace que el prepare lo resuelva el servidor una sola
+     * vez; combinado con la cache de sentencias del pool, no se repite.
+     * rewriteBatchedStatements manda cada lote de INSERT como un único
+     * INSERT multi-fila en lugar de una sentencia por fila.
+     * Si db.url está definida la uso tal cual (por ejemplo, la base embebida
+     * de los tests) y no armo nada.
      */
-    public static final String JDBC_URL = 
-        "jdbc:mysql://" + DB_HOST + ":" + DB_PORT + "/" + DB_NAME
-        + "?useUnicode=true&characterEncoding=utf8&useSSL=false"
-        + "&allowPublicKeyRetrieval=true&serverTimezone=America/Argentina/Buenos_Aires";
+    public static final String JDBC_URL = urlPrimario(props.getProperty("db.url", ""));
+
+    // -------------------- RÉPLICAS DE LECTURA --------------------
+    /**
+     * Réplicas para las lecturas, como "host:puerto" separados por coma
+     * (vacío = todo va al primario). Usan la misma base, usuario y parámetros
+     * que el primario. Cada réplica tiene su propio pool de hasta
+     * REPLICAS_POOL_MAX_SIZE conexiones; cada REPLICAS_CHEQUEO_MS reviso las
+     * que quedaron marcadas como caídas. Después de una escritura, las
+     * lecturas del mismo hilo van al primario durante REPLICAS_LECTURA_PROPIA_MS
+     * (para leer lo que se acaba de escribir aunque la réplica venga atrasada).
+     */
+    public static final List<String> REPLICA_URLS = replicaUrls(props.getProperty("db.replicas", ""));
+    public static final int  REPLICAS_POOL_MAX_SIZE     = intProp("replicas.poolMaxSize", 10);
+    public static final long REPLICAS_CHEQUEO_MS        = longProp("replicas.chequeoMs", 5_000L);
+    public static final long REPLICAS_LECTURA_PROPIA_MS = longProp("replicas.lecturaPropiaMs", 2_000L);
+
+    // -------------------- POOL DE CONEXIONES --------------------
+    /**
+     * Parámetros del pool que arma DatabaseConnection. Los tiempos van en
+     * milisegundos, salvo la validación que JDBC la pide en segundos.
+     */
+    public static final int  POOL_MIN_SIZE           = intProp("pool.minSize", 2);
+    public static final int  POOL_MAX_SIZE           = intProp("pool.maxSize", 10);
+    public static final long POOL_IDLE_TIMEOUT_MS    = longProp("pool.idleTimeoutMs", 300_000L);
+    public static final long POOL_MAX_LIFETIME_MS    = longProp("pool.maxLifetimeMs", 1_800_000L);
+    public static final long POOL_BORROW_TIMEOUT_MS  = longProp("pool.borrowTimeoutMs", 5_000L);
+    public static final int  POOL_VALIDATION_TIMEOUT = intProp("pool.validationTimeoutSec", 2);
+    public static final long POOL_HOUSEKEEPING_MS    = longProp("pool.housekeepingMs", 30_000L);
+    public static final int  POOL_STATEMENT_CACHE_SIZE = intProp("pool.statementCacheSize", 32);
+
+    // Cantidad de filas por executeBatch() en las altas masivas de los DAO
+    public static final int  DAO_BATCH_SIZE          = intProp("dao.batchSize", 500);
+
+    // Máximo de IDs por consulta IN (...) en las búsquedas por varios IDs
+    public static final int  DAO_IN_CHUNK_SIZE       = intProp("dao.inChunkSize", 512);
+
+    // Usuarios por transacción (commit) en el alta masiva con credencial
+    public static final int  ALTA_MASIVA_CHUNK_SIZE  = intProp("service.altaMasivaChunkSize", 1000);
+
+    // Cache de usuarios del servicio: tamaño máximo (0 = sin cache) y vida de cada entrada
+    public static final int  CACHE_USUARIOS_MAX_SIZE = intProp("cache.usuarios.maxSize", 10_000);
+    public static final long CACHE_USUARIOS_TTL_MS   = longProp("cache.usuarios.ttlMs", 60_000L);
+
+    // Cache de credenciales por usuarioId (login): tamaño máximo y vida de cada entrada
+    public static final int  CACHE_CREDENCIALES_MAX_SIZE = intProp("cache.credenciales.maxSize", 10_000);
+    public static final long CACHE_CREDENCIALES_TTL_MS   = longProp("cache.credenciales.ttlMs", 300_000L);
+
+    // Hash de contraseñas: algoritmo (pbkdf2-sha256 o sha256), iteraciones de
+    // PBKDF2 (0 = calibrar al arrancar) y latencia objetivo por hash para calibrar
+    public static final String HASH_ALGORITMO        = props.getProperty("hash.algoritmo", "pbkdf2-sha256").trim();
+    public static final int  HASH_PBKDF2_ITERACIONES = intProp("hash.pbkdf2.iteraciones", 0);
+    public static final long HASH_OBJETIVO_MS        = longProp("hash.objetivoMs", 100L);
+
+    // Executor dedicado al hashing: hilos (0 = la mitad de los núcleos), tareas
+    // en cola, política con la cola llena (RECHAZAR o ESPERAR) y espera máxima
+    public static final int  HASH_EXECUTOR_HILOS      = intProp("hash.executor.hilos", 0);
+    public static final int  HASH_EXECUTOR_COLA       = intProp("hash.executor.cola", 64);
+    public static final String HASH_EXECUTOR_POLITICA = props.getProperty("hash.executor.politica", "ESPERAR").trim();
+    public static final long HASH_EXECUTOR_TIMEOUT_MS = longProp("hash.executor.timeoutMs", 2_000L);
+
+    // Salts: bytes por salt y cuántos salts pre-generados guardo listos para usar
+    public static final int  SALT_BYTES           = intProp("salt.bytes", 16);
+    public static final int  SALT_POOL_CAPACIDAD  = intProp("salt.pool.capacidad", 4096);
+
+    // API asíncrona: hilos de plataforma si no hay hilos virtuales (0 = el doble del
+    // máximo del pool), tareas en espera como máximo y timeout por defecto de cada llamada
+    public static final int  ASYNC_HILOS      = intProp("async.hilos", 0);
+    public static final int  ASYNC_COLA       = intProp("async.cola", 10_000);
+    public static final long ASYNC_TIMEOUT_MS = longProp("async.timeoutMs", 5_000L);
+
+    // Escritura diferida de ultima_sesion: cada cuánto se escribe, cuántos usuarios pueden quedar
+    // pendientes y cuántos flushes fallidos se le dan a una fila antes de abandonarla
+    public static final long SESIONES_FLUSH_MS       = longProp("sesiones.flushMs", 5_000L);
+    public static final int  SESIONES_MAX_PENDIENTES = intProp("sesiones.maxPendientes", 10_000);
+    public static final int  SESIONES_MAX_INTENTOS   = intProp("sesiones.maxIntentos", 3);
+
+    // Sesiones (tokens) en memoria: duración, resolución y casilleros de la rueda de vencimientos
+    public static final long SESIONES_TTL_MS         = longProp("sesiones.ttlMs", 1_800_000L);
+    public static final long SESIONES_TICK_MS        = longProp("sesiones.tickMs", 1_000L);
+    public static final int  SESIONES_CASILLEROS     = intProp("sesiones.casilleros", 512);
+
+    // Límite de intentos de login: ráfaga e intentos por minuto, por username y
+    // por origen (porMinuto = 0 desactiva el de origen), tope de buckets (con el
+    // mapa lleno se rechazan las claves nuevas) y cada cuánto se limpian
+    public static final int  LOGIN_LIMITE_RAFAGA            = intProp("login.limite.rafaga", 5);
+    public static final int  LOGIN_LIMITE_POR_MINUTO        = intProp("login.limite.porMinuto", 10);
+    public static final int  LOGIN_LIMITE_ORIGEN_RAFAGA     = intProp("login.limite.origen.rafaga", 20);
+    public static final int  LOGIN_LIMITE_ORIGEN_POR_MINUTO = intProp("login.limite.origen.porMinuto", 60);
+    public static final int  LOGIN_LIMITE_MAX_CLAVES        = intProp("login.limite.maxClaves", 100_000);
+    public static final long LOGIN_LIMITE_LIMPIEZA_MS       = longProp("login.limite.limpiezaMs", 60_000L);
 
     // Constructor privado: no quiero que nadie instancie esta clase.
     private Config() {}
 
+    /** URL JDBC para un servidor, con los mismos parámetros para el primario y las réplicas. */
+    private static String jdbcUrl(String host, String port) {
+        return "jdbc:mysql://" + host + ":" + port + "/" + DB_NAME
+            + "?useUnicode=true&characterEncoding=utf8&useSSL=false"
+            + "&allowPublicKeyRetrieval=true&serverTimezone=America/Argentina/Buenos_Aires"
+            + "&useServerPrepStmts=true&rewriteBatchedStatements=true";
+    }
+
+    private static String urlPrimario(String urlExplicita) {
+        return urlExplicita.isBlank() ? jdbcUrl(DB_HOST, DB_PORT) : urlExplicita.trim();
+    }
+
+    private static List<String> replicaUrls(String lista) {
+        List<String> urls = new ArrayList<>();
+        for (String r : lista.split(",")) {
+            String hostPuerto = r.trim();
+            if (hostPuerto.isEmpty()) continue;
+            int dosPuntos = hostPuerto.lastIndexOf(':');
+            urls.add(dosPuntos > 0
+                    ? jdbcUrl(hostPuerto.substring(0, dosPuntos), hostPuerto.substring(dosPuntos + 1))
+                    : jdbcUrl(hostPuerto, DB_PORT));
+        }
+        return List.copyOf(urls);
+    }
+
+    /**
+     * Leo una propiedad numérica. Si no está o no es un número válido,
+     * me quedo con el valor por defecto en vez de romper el arranque.
+     */
+    private static int intProp(String key, int def) {
+        try {
+            return Integer.parseInt(props.getProperty(key, String.valueOf(def)).trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    private static long longProp(String key, long def) {
+        try {
+            return Long.parseLong(props.getProperty(key, String.valueOf(def)).trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
     /**
      * Método útil para debug o para mostrar en consola qué configuración
      * estoy usando realmente en un momento dado.
@@ -77,5 +217,7 @@ public final class Config {
         System.out.println("DB_USER  = " + DB_USER);
         System.out.println("DB_PASS  = " + DB_PASS);
         System.out.println("DB_DRIVER= " + DB_DRIVER);
+        System.out.println("POOL     = min " + POOL_MIN_SIZE + " / max " + POOL_MAX_SIZE);
+        System.out.println("REPLICAS = " + REPLICA_URLS.size());
     }
 }
@@ -0,0 +1,578 @@
+package integradorfinal.programacion2.config;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Pool de conexiones JDBC acotado, sin dependencias externas.
+ *
+ * La idea es no pagar el handshake TCP + autenticación de DriverManager en
+ * cada llamada a un DAO. Mantengo un conjunto de conexiones físicas abiertas
+ * y presto a cada llamador un "handle" (un proxy de Connection). Cuando el
+ * llamador hace close() sobre el handle, la conexión física vuelve al pool
+ * en lugar de cerrarse.
+ *
+ * Qué controla el pool:
+ * - Tamaño mínimo y máximo de conexiones físicas.
+ * - Timeout para obtener una conexión (si no hay libres, no espero para siempre).
+ * - Validación al prestar (isValid) si la conexión estuvo ociosa un rato.
+ * - Vida máxima: las conexiones viejas se rotan aunque funcionen.
+ * - Desalojo de conexiones ociosas por encima del mínimo.
+ * - Cache de PreparedStatement por conexión física (ver {@link StatementCache}).
+ *
+ * Uso desde varios hilos: el pool es seguro para llamarlo concurrentemente,
+ * pero cada conexión prestada es de UN solo hilo hasta que la cierra. Al
+ * devolverla dejo la conexión física como nueva (rollback de lo pendiente,
+ * autocommit y read-only restaurados, sentencias abiertas cerradas), así que
+ * lo que hizo un préstamo nunca se mezcla con el siguiente.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    // Si una conexión se usó hace menos que esto, no la vuelvo a validar al prestarla
+    private static final long VALIDACION_OMITIDA_NS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final String url;
+    private final String user;
+    private final String pass;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutNs;
+    private final long maxLifetimeNs;
+    private final long borrowTimeoutMs;
+    private final int validationTimeoutSec;
+    private final int statementCacheSize;
+
+    // Un permiso por conexión prestada: es lo que acota el pool a maxSize
+    private final Semaphore permisos;
+
+    // Conexiones libres. Presto desde la cabeza (la más recientemente usada)
+    private final LinkedBlockingDeque<PooledEntry> ociosas = new LinkedBlockingDeque<>();
+
+    // Cantidad de conexiones físicas abiertas (ociosas + prestadas)
+    private final AtomicInteger totalFisicas = new AtomicInteger();
+
+    // Métricas de la cache de sentencias (sumadas entre todas las conexiones)
+    private final AtomicLong cacheAciertos = new AtomicLong();
+    private final AtomicLong cacheFallos = new AtomicLong();
+    private final AtomicLong cacheDesalojos = new AtomicLong();
+
+    // Sentencias que los llamadores dejaron abiertas al devolver la conexión
+    private final AtomicLong sentenciasAbandonadas = new AtomicLong();
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean cerrado;
+    private volatile PrintWriter logWriter;
+
+    /**
+     * Armo el pool con los parámetros indicados y lo lleno hasta el mínimo.
+     * Si la base no responde en este momento no fallo: el pool se vuelve a
+     * llenar en la próxima limpieza y getConnection() informa el error real.
+     *
+     * Con statementCacheSize en 0 la cache de sentencias queda desactivada.
+     */
+    public ConnectionPool(String url, String user, String pass,
+                          int minSize, int maxSize,
+                          long idleTimeoutMs, long maxLifetimeMs,
+                          long borrowTimeoutMs, int validationTimeoutSec,
+                          long housekeepingMs, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("El tamaño máximo del pool debe ser al menos 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.maxSize = maxSize;
+        this.minSize = Math.max(0, Math.min(minSize, maxSize));
+        this.idleTimeoutNs = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        this.maxLifetimeNs = TimeUnit.MILLISECONDS.toNanos(maxLifetimeMs);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.permisos = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        rellenarMinimo();
+        housekeeper.scheduleWithFixedDelay(this::limpiar, housekeepingMs, housekeepingMs, TimeUnit.MILLISECONDS);
+    }
+
+    // ======================================================
+    // PRÉSTAMO Y DEVOLUCIÓN
+    // ======================================================
+
+    /**
+     * Presto una conexión del pool. Si no hay ninguna libre y ya llegué al
+     * máximo, espero como mucho borrowTimeoutMs antes de rendirme.
+     *
+     * @return un handle de Connection; su close() devuelve la conexión al pool
+     * @throws SQLTransientConnectionException si se agota el tiempo de espera
+     * @throws SQLException si el pool está cerrado o falla la conexión física
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(borrowTimeoutMs);
+    }
+
+    /**
+     * Como {@link #getConnection()}, pero esperando como mucho esperaMs (0 =
+     * solo si hay una libre ya). Lo usa el enrutador de lecturas: si una
+     * réplica está ocupada, prefiere otra o el primario antes que esperar.
+     */
+    Connection getConnection(long esperaMs) throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+        try {
+            if (!permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "No se obtuvo una conexión del pool en " + esperaMs
+                        + " ms (máximo " + maxSize + ", en uso " + getConexionesEnUso() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras esperaba una conexión del pool", e);
+        }
+
+        try {
+            PooledEntry entry = tomarOciosa();
+            if (entry == null) {
+                entry = crearFisica();
+            }
+            return entry.nuevoHandle();
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Saco la conexión ociosa más reciente que siga sana. Las vencidas o que
+     * no pasan la validación las cierro y sigo buscando.
+     */
+    private PooledEntry tomarOciosa() {
+        PooledEntry e;
+        while ((e = ociosas.pollFirst()) != null) {
+            if (e.vencida() || !e.esValida()) {
+                retirar(e);
+                continue;
+            }
+            return e;
+        }
+        return null;
+    }
+
+    /**
+     * Vuelve la conexión física al pool (lo llama el handle al cerrarse).
+     * Antes de devolverla, deshago lo que el llamador haya dejado a medias
+     * (sentencias abiertas, transacción abierta, autocommit o read-only cambiados).
+     */
+    private void devolver(PooledEntry e) {
+        try {
+            if (cerrado || totalFisicas.get() > maxSize || e.vencida() || !e.restaurarEstado()) {
+                retirar(e);
+            } else {
+                e.ultimoUso = System.nanoTime();
+                ociosas.offerFirst(e);
+            }
+        } finally {
+            permisos.release();
+        }
+    }
+
+    // ======================================================
+    // CICLO DE VIDA DE CONEXIONES FÍSICAS
+    // ======================================================
+
+    private PooledEntry crearFisica() throws SQLException {
+        Connection fisica = DriverManager.getConnection(url, user, pass);
+        totalFisicas.incrementAndGet();
+        return new PooledEntry(fisica);
+    }
+
+    private void retirar(PooledEntry e) {
+        totalFisicas.decrementAndGet();
+        try {
+            e.fisica.close();
+        } catch (SQLException ignore) {
+            // Si ya estaba rota no hay nada más que hacer
+        }
+    }
+
+    /**
+     * Tarea periódica: cierro las ociosas que superaron su vida máxima o que
+     * llevan demasiado tiempo sin usarse (respetando el mínimo) y después
+     * vuelvo a completar el mínimo.
+     */
+    private void limpiar() {
+        Iterator<PooledEntry> it = ociosas.descendingIterator();
+        while (it.hasNext()) {
+            PooledEntry e = it.next();
+            boolean inactiva = System.nanoTime() - e.ultimoUso > idleTimeoutNs
+                    && totalFisicas.get() > minSize;
+            if ((e.vencida() || inactiva) && ociosas.remove(e)) {
+                retirar(e);
+            }
+        }
+        rellenarMinimo();
+    }
+
+    private void rellenarMinimo() {
+        while (!cerrado && totalFisicas.get() < minSize) {
+            try {
+                ociosas.offerLast(crearFisica());
+            } catch (SQLException ex) {
+                System.err.println("⚠️ No se pudo completar el mínimo del pool de conexiones.");
+                System.err.println("Detalles técnicos: " + ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Cierro el pool: no presto más conexiones, cierro las ociosas y las que
+     * están prestadas se cierran a medida que las devuelvan.
+     */
+    public void close() {
+        cerrado = true;
+        housekeeper.shutdownNow();
+        PooledEntry e;
+        while ((e = ociosas.pollFirst()) != null) {
+            retirar(e);
+        }
+    }
+
+    public boolean isClosed() {
+        return cerrado;
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    /** Conexiones físicas abiertas (ociosas + prestadas). */
+    public int getTotalConexiones() {
+        return totalFisicas.get();
+    }
+
+    /** Conexiones físicas libres esperando ser prestadas. */
+    public int getConexionesOciosas() {
+        return ociosas.size();
+    }
+
+    /** Conexiones prestadas en este momento. */
+    public int getConexionesEnUso() {
+        return maxSize - permisos.availablePermits();
+    }
+
+    /** Hilos bloqueados esperando una conexión. */
+    public int getHilosEsperando() {
+        return permisos.getQueueLength();
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /** Veces que un prepareStatement se resolvió desde la cache. */
+    public long getCacheSentenciasAciertos() {
+        return cacheAciertos.get();
+    }
+
+    /** Veces que hubo que preparar la sentencia contra el driver. */
+    public long getCacheSentenciasFallos() {
+        return cacheFallos.get();
+    }
+
+    /** Sentencias cerradas por superar el tamaño de la cache (LRU). */
+    public long getCacheSentenciasDesalojos() {
+        return cacheDesalojos.get();
+    }
+
+    /** Sentencias que seguían abiertas cuando el llamador devolvió la conexión. */
+    public long getSentenciasAbandonadas() {
+        return sentenciasAbandonadas.get();
+    }
+
+    // ======================================================
+    // CONEXIÓN FÍSICA + HANDLE PRESTADO
+    // ======================================================
+
+    /**
+     * Una conexión física del pool con los tiempos que necesito para
+     * decidir cuándo validarla, rotarla o desalojarla.
+     */
+    private final class PooledEntry {
+
+        final Connection fisica;
+        final StatementCache sentencias;
+        final long creadaEn = System.nanoTime();
+        volatile long ultimoUso = creadaEn;
+
+        PooledEntry(Connection fisica) {
+            this.fisica = fisica;
+            this.sentencias = statementCacheSize > 0
+                    ? new StatementCache(statementCacheSize, cacheAciertos, cacheFallos, cacheDesalojos)
+                    : null;
+        }
+
+        boolean vencida() {
+            return System.nanoTime() - creadaEn > maxLifetimeNs;
+        }
+
+        /**
+         * Valido con isValid() solo si la conexión estuvo ociosa más que la
+         * ventana mínima; si se acaba de usar, el ping sería un round trip de más.
+         */
+        boolean esValida() {
+            if (System.nanoTime() - ultimoUso < VALIDACION_OMITIDA_NS) {
+                return true;
+            }
+            try {
+                return fisica.isValid(validationTimeoutSec);
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+
+        boolean restaurarEstado() {
+            try {
+                if (fisica.isClosed()) return false;
+                if (sentencias != null) {
+                    int abandonadas = sentencias.liberarPrestadas();
+                    if (abandonadas > 0) sentenciasAbandonadas.addAndGet(abandonadas);
+                }
+                if (!fisica.getAutoCommit()) {
+                    fisica.rollback();
+                    fisica.setAutoCommit(true);
+                }
+                if (fisica.isReadOnly()) fisica.setReadOnly(false);
+                fisica.clearWarnings();
+                return true;
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+
+        Connection nuevoHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Lo que recibe el llamador: delega todo en la conexión física salvo
+     * close(), que devuelve la conexión al pool (una sola vez), y
+     * prepareStatement(sql) / prepareStatement(sql, autoGeneratedKeys), que
+     * pasan por la cache de sentencias. Después de cerrado, el handle no se
+     * puede seguir usando.
+     *
+     * Las sentencias que no pasan por la cache (createStatement, prepareCall,
+     * prepareStatement con tipo de cursor) las anoto y, si al cerrar el handle
+     * siguen abiertas, las cierro antes de devolver la conexión.
+     *
+     * Ninguna sentencia entregada lleva a la conexión física: su
+     * getConnection() devuelve este handle, y unwrap() tampoco entrega el
+     * objeto del driver (ni del handle ni de las sentencias).
+     *
+     * Si la conexión se pidió dentro de una operación cancelable
+     * ({@link CancelacionSql}), cada sentencia entregada queda anotada ahí
+     * hasta que el handle se cierra, y una vez cancelada la operación no
+     * confirmo nada: commit() deshace y falla.
+     */
+    private final class Handle implements InvocationHandler {
+
+        private final PooledEntry entry;
+        private final AtomicBoolean devuelto = new AtomicBoolean();
+        private List<Statement> directas; // se crea recién con la primera
+
+        // Si la conexión se pidió dentro de una operación cancelable, le anoto las sentencias
+        private final CancelacionSql cancelacion = CancelacionSql.actual();
+        private List<Statement> anotadas;
+
+        Handle(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (devuelto.compareAndSet(false, true)) {
+                        if (anotadas != null) cancelacion.liberar(anotadas);
+                        cerrarDirectas();
+                        devolver(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    if (devuelto.get()) return true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.fisica + "]";
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                default:
+                    break;
+            }
+            if (devuelto.get()) {
+                throw new SQLException("La conexión ya fue devuelta al pool");
+            }
+            if (cancelacion != null) noConfirmarSiCancelada(method.getName(), args);
+            Connection conexion = (Connection) proxy;
+            if (method.getName().equals("unwrap")) {
+                Class<?> iface = (Class<?>) args[0];
+                if (iface.isInstance(proxy)) return proxy;
+                throw new SQLException("La conexión del pool no envuelve " + iface.getName());
+            }
+            if (entry.sentencias != null && method.getName().equals("prepareStatement")) {
+                if (args.length == 1) {
+                    return anotar(entry.sentencias.preparar(entry.fisica, conexion, (String) args[0],
+                            Statement.NO_GENERATED_KEYS));
+                }
+                if (args.length == 2 && args[1] instanceof Integer modo) {
+                    return anotar(entry.sentencias.preparar(entry.fisica, conexion, (String) args[0], modo));
+                }
+            }
+            Object r;
+            try {
+                r = method.invoke(entry.fisica, args);
+            } catch (InvocationTargetException ite) {
+                throw ite.getCause();
+            }
+            if (r instanceof Statement st) {
+                if (directas == null) directas = new ArrayList<>(2);
+                directas.add(st);
+                anotar(st);
+                return envolver(st, method.getReturnType(), conexion);
+            }
+            return r;
+        }
+
+        // Statement, PreparedStatement o CallableStatement, según lo que se pidió
+        private <T extends Statement> T envolver(Statement st, Class<?> tipo, Connection conexion) {
+            @SuppressWarnings("unchecked")
+            Class<T> interfaz = (Class<T>) tipo;
+            return SentenciaEnvuelta.envolver(interfaz.cast(st), interfaz, conexion);
+        }
+
+        /**
+         * Operación cancelada (por ejemplo, por timeout): el commit no llega a
+         * la base. setAutoCommit(true) confirmaría lo pendiente, así que antes
+         * lo deshago.
+         */
+        private void noConfirmarSiCancelada(String metodo, Object[] args) throws SQLException {
+            if (!cancelacion.isCancelada()) return;
+            if (metodo.equals("commit")) {
+                entry.fisica.rollback();
+                cancelacion.verificar();
+            } else if (metodo.equals("setAutoCommit") && Boolean.TRUE.equals(args[0])
+                    && !entry.fisica.getAutoCommit()) {
+                entry.fisica.rollback();
+            }
+        }
+
+        private Statement anotar(Statement st) throws SQLException {
+            if (cancelacion != null) {
+                if (anotadas == null) anotadas = new ArrayList<>(2);
+                anotadas.add(st);
+                cancelacion.registrar(st);
+            }
+            return st;
+        }
+
+        private void cerrarDirectas() {
+            if (directas == null) return;
+            for (Statement st : directas) {
+                try {
+                    if (!st.isClosed()) {
+                        sentenciasAbandonadas.incrementAndGet();
+                        st.close();
+                    }
+                } catch (SQLException ignore) {
+                    // La conexión física se valida igual al devolverla
+                }
+            }
+            directas = null;
+        }
+    }
+
+    // ======================================================
+    // RESTO DE DataSource
+    // ======================================================
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("El pool usa las credenciales de Config");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("El pool no usa java.util.logging");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("El pool no envuelve " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
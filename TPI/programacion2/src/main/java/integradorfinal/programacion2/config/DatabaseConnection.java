@@ -1,76 +1,258 @@
 package integradorfinal.programacion2.config;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Esta clase la uso como un punto central para manejar la conexión JDBC a mi base de datos.
- * La idea es simple: tener un único lugar donde se abre, se reutiliza y se cierra la conexión.
+ * La idea es simple: tener un único lugar donde se obtienen y se liberan las conexiones.
  * De esta forma evito código repetido en todos los DAO.
+ *
+ * Por detrás hay un {@link ConnectionPool}: cada llamada a getConnection() presta
+ * una conexión ya abierta y, cuando el DAO la cierra (try-with-resources), la
+ * conexión vuelve al pool en lugar de cerrarse. Así no pago el handshake
+ * contra MySQL en cada operación y cada hilo trabaja con su propia conexión.
+ *
+ * Varios hilos (por ejemplo, varios manejadores de pedidos en la misma JVM)
+ * pueden usar los DAO y servicios a la vez: cada unidad de trabajo pide su
+ * conexión, hace lo suyo (con o sin transacción) y la devuelve. Nadie
+ * comparte una conexión con otro hilo ni cambia el autocommit de otro.
+ *
+ * Lecturas y escrituras: si hay réplicas configuradas (db.replicas), las
+ * lecturas de los DAO piden {@link #getReadConnection()} y van a una réplica;
+ * las escrituras y todo lo que corre dentro de una transacción van al
+ * primario. Después de escribir, el mismo hilo sigue leyendo del primario un
+ * rato (Config.REPLICAS_LECTURA_PROPIA_MS) para ver lo que acaba de escribir.
+ *
+ * Esa ventana es por hilo: otro hilo puede leer de una réplica atrasada un
+ * dato que ya cambió. Por eso lo que no puede venir viejo va siempre al
+ * primario: las credenciales y los hashes ({@link #getPrimaryReadConnection()})
+ * y las lecturas que llenan una cache ({@link #leerDelPrimario(Lectura)}),
+ * que si no guardarían el dato viejo durante todo su TTL.
  */
 public class DatabaseConnection {
 
-    // Mantengo una única conexión (patrón Singleton a nivel conexión).
-    private static Connection connection = null;
+    // Pool compartido por toda la aplicación. Lo creo la primera vez que se pide.
+    private static volatile ConnectionPool pool = null;
+
+    // Réplicas de lectura (null si no hay ninguna configurada o todavía no se pidió una lectura)
+    private static volatile EnrutadorLecturas replicas = null;
+
+    // Momento (System.nanoTime) de la última conexión de escritura que pidió cada hilo
+    private static final ThreadLocal<long[]> ULTIMA_ESCRITURA = ThreadLocal.withInitial(() -> new long[]{Long.MIN_VALUE});
+
+    // Profundidad de leerDelPrimario() en cada hilo (mayor a 0 = las lecturas van al primario)
+    private static final ThreadLocal<int[]> SOLO_PRIMARIO = ThreadLocal.withInitial(() -> new int[1]);
+
+    /** Lectura a correr con {@link #leerDelPrimario(Lectura)}. */
+    @FunctionalInterface
+    public interface Lectura<T> {
+        T leer() throws SQLException;
+    }
 
     // Constructor privado: no quiero que esta clase se pueda instanciar.
     private DatabaseConnection() {}
 
     /**
-     * Acá obtengo la conexión a la base usando los valores de la clase Config.
+     * Acá obtengo una conexión del pool.
+     *
+     * Quien la pide es responsable de cerrarla (idealmente con try-with-resources):
+     * al cerrarla no se corta la conexión física, solo se devuelve al pool.
      *
-     * Si ya existe una conexión abierta, la reutilizo para no crear conexiones innecesarias.
-     * Si no existe (o está cerrada), creo una nueva usando DriverManager.
+     * Si este hilo está dentro de una unidad de trabajo de
+     * {@link TransactionManager}, devuelvo la conexión de esa unidad: cerrarla
+     * no hace nada y el commit lo hace quien abrió la transacción.
      *
      * @return una conexión activa, lista para ejecutar SQL
-     * @throws SQLException si algo falla al conectar
+     * @throws SQLException si algo falla al conectar o si el pool no tiene
+     *                      conexiones libres dentro del tiempo de espera
      */
     public static Connection getConnection() throws SQLException {
-        // Si nunca abrí la conexión, o si se cerró por algún motivo, la creo de nuevo.
-        if (connection == null || connection.isClosed()) {
-            try {
-                // Cargo el driver JDBC antes de usarlo.
-                Class.forName(Config.DB_DRIVER);
-
-                // Creo la conexión usando la URL, usuario y contraseña definidos en Config.
-                connection = DriverManager.getConnection(
-                    Config.JDBC_URL,
-                    Config.DB_USER,
-                    Config.DB_PASS
-                );
-
-                System.out.println("✅ Conexión establecida correctamente con la base de datos.");
-
-            } catch (ClassNotFoundException e) {
-                // Error claro si el driver no está en el classpath.
-                System.err.println("❌ No se encontró el driver JDBC. Verifique la configuración.");
-                System.err.println("Detalles técnicos: " + e.getMessage());
-            }
+        // Si el hilo está dentro de una unidad de trabajo (TransactionManager), me sumo a su conexión
+        Connection actual = TransactionManager.conexionActual();
+        if (actual != null) return actual;
+        marcarEscritura();
+        return getDataSource().getConnection();
+    }
+
+    /**
+     * Conexión para una lectura. Va a una réplica salvo que:
+     * - el hilo esté dentro de una unidad de trabajo (uso la de la unidad);
+     * - el hilo haya pedido una conexión de escritura hace menos de
+     *   Config.REPLICAS_LECTURA_PROPIA_MS (leo lo que acabo de escribir);
+     * - el hilo esté dentro de {@link #leerDelPrimario(Lectura)};
+     * - no haya réplicas configuradas o ninguna esté sana.
+     * En esos casos la lectura va al primario. Se cierra igual que la de
+     * {@link #getConnection()}.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        Connection actual = TransactionManager.conexionActual();
+        if (actual != null) return actual;
+
+        if (SOLO_PRIMARIO.get()[0] == 0 && !escribioHacePoco()) {
+            EnrutadorLecturas r = getReplicas();
+            Connection replica = r != null ? r.getConnection() : null;
+            if (replica != null) return replica;
         }
-        return connection;
+        return getDataSource().getConnection();
     }
 
     /**
-     * Cierro la conexión si existe y está abierta.
-     *
-     * Siempre envuelvo el cierre en un try/catch porque es común que falle si
-     * la conexión ya está cerrada o si hubo un timeout. En esos casos muestro
-     * un mensaje amable pero también registro el detalle técnico por consola.
+     * Conexión al primario para una lectura que no puede venir atrasada
+     * (credenciales, hashes). Usa la de la unidad de trabajo si hay una y,
+     * a diferencia de {@link #getConnection()}, no cuenta como escritura.
      */
-    public static void closeConnection() {
+    public static Connection getPrimaryReadConnection() throws SQLException {
+        Connection actual = TransactionManager.conexionActual();
+        if (actual != null) return actual;
+        return getDataSource().getConnection();
+    }
+
+    /**
+     * Corro la lectura con todas sus consultas contra el primario. Lo usan
+     * los servicios para las lecturas que llenan una cache: una fila vieja
+     * de una réplica quedaría guardada hasta que venza.
+     */
+    public static <T> T leerDelPrimario(Lectura<T> lectura) throws SQLException {
+        int[] profundidad = SOLO_PRIMARIO.get();
+        profundidad[0]++;
         try {
-            // Solo cierro si existe y realmente está abierta.
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("🔒 Conexión cerrada correctamente.");
+            return lectura.leer();
+        } finally {
+            profundidad[0]--;
+        }
+    }
+
+    /** Anoto que este hilo escribe (lo llama también TransactionManager al abrir y cerrar una unidad). */
+    static void marcarEscritura() {
+        ULTIMA_ESCRITURA.get()[0] = System.nanoTime();
+    }
+
+    private static boolean escribioHacePoco() {
+        long ultima = ULTIMA_ESCRITURA.get()[0];
+        return ultima != Long.MIN_VALUE
+                && System.nanoTime() - ultima < TimeUnit.MILLISECONDS.toNanos(Config.REPLICAS_LECTURA_PROPIA_MS);
+    }
+
+    /** Enrutador de las réplicas, o null si no hay ninguna configurada. */
+    private static EnrutadorLecturas getReplicas() throws SQLException {
+        EnrutadorLecturas r = replicas;
+        if (r == null && !Config.REPLICA_URLS.isEmpty()) {
+            synchronized (DatabaseConnection.class) {
+                r = replicas;
+                if (r == null) {
+                    cargarDriver();
+                    List<ConnectionPool> pools = new ArrayList<>();
+                    for (String url : Config.REPLICA_URLS) {
+                        pools.add(new ConnectionPool(
+                            url,
+                            Config.DB_USER,
+                            Config.DB_PASS,
+                            Math.min(Config.POOL_MIN_SIZE, Config.REPLICAS_POOL_MAX_SIZE),
+                            Config.REPLICAS_POOL_MAX_SIZE,
+                            Config.POOL_IDLE_TIMEOUT_MS,
+                            Config.POOL_MAX_LIFETIME_MS,
+                            Config.POOL_BORROW_TIMEOUT_MS,
+                            Config.POOL_VALIDATION_TIMEOUT,
+                            Config.POOL_HOUSEKEEPING_MS,
+                            Config.POOL_STATEMENT_CACHE_SIZE
+                        ));
+                    }
+                    r = new EnrutadorLecturas(pools, Config.REPLICAS_CHEQUEO_MS);
+                    replicas = r;
+                    System.out.println("✅ Réplicas de lectura inicializadas (" + pools.size() + ").");
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Reemplazo las réplicas por otras ya armadas (o null para volver a las
+     * de Config). Lo usan los tests para enrutar contra bases embebidas.
+     */
+    static void usarReplicas(EnrutadorLecturas r) {
+        synchronized (DatabaseConnection.class) {
+            replicas = r;
+        }
+    }
+
+    /**
+     * Devuelvo el pool (un DataSource) y lo inicializo si hace falta,
+     * usando los valores de la clase Config.
+     */
+    public static ConnectionPool getDataSource() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null || p.isClosed()) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null || p.isClosed()) {
+                    p = crearPool();
+                    pool = p;
+                }
             }
-        } catch (SQLException e) {
-            // Mensaje amable para el usuario.
-            System.err.println("⚠️ Hubo un problema al cerrar la conexión, pero no afecta sus datos.");
+        }
+        return p;
+    }
+
+    private static ConnectionPool crearPool() throws SQLException {
+        cargarDriver();
 
-            // Detalle técnico para debugging.
+        ConnectionPool p = new ConnectionPool(
+            Config.JDBC_URL,
+            Config.DB_USER,
+            Config.DB_PASS,
+            Config.POOL_MIN_SIZE,
+            Config.POOL_MAX_SIZE,
+            Config.POOL_IDLE_TIMEOUT_MS,
+            Config.POOL_MAX_LIFETIME_MS,
+            Config.POOL_BORROW_TIMEOUT_MS,
+            Config.POOL_VALIDATION_TIMEOUT,
+            Config.POOL_HOUSEKEEPING_MS,
+            Config.POOL_STATEMENT_CACHE_SIZE
+        );
+
+        System.out.println("✅ Pool de conexiones inicializado (" + p.getTotalConexiones()
+                + " abiertas, máximo " + p.getMaxSize() + ").");
+        return p;
+    }
+
+    private static void cargarDriver() throws SQLException {
+        try {
+            // Cargo el driver JDBC antes de usarlo.
+            Class.forName(Config.DB_DRIVER);
+        } catch (ClassNotFoundException e) {
+            // Error claro si el driver no está en el classpath.
+            System.err.println("❌ No se encontró el driver JDBC. Verifique la configuración.");
             System.err.println("Detalles técnicos: " + e.getMessage());
+            throw new SQLException("Driver JDBC no encontrado: " + Config.DB_DRIVER, e);
+        }
+    }
+
+    /**
+     * Cierro el pool completo: las conexiones ociosas se cierran ya y las que
+     * estén prestadas se cierran cuando las devuelvan. Lo uso al salir de la
+     * aplicación. Si después alguien vuelve a pedir una conexión, el pool se
+     * crea de nuevo.
+     *
+     * Para liberar una conexión puntual NO hay que llamar a este método:
+     * alcanza con hacer close() sobre la conexión obtenida. Con varios hilos
+     * trabajando, llamarlo solo al apagar la aplicación.
+     */
+    public static void closeConnection() {
+        synchronized (DatabaseConnection.class) {
+            if (pool != null && !pool.isClosed()) {
+                pool.close();
+                System.out.println("🔒 Pool de conexiones cerrado correctamente.");
+            }
+            pool = null;
+            if (replicas != null) {
+                replicas.close();
+                replicas = null;
+            }
         }
     }
 }
@@ -0,0 +1,144 @@
+package integradorfinal.programacion2.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reparte las lecturas entre las réplicas (round-robin), salteando las que
+ * están caídas.
+ *
+ * - Cada réplica tiene su propio {@link ConnectionPool}.
+ * - Si pedir una conexión a una réplica falla por un error de conexión
+ *   (SQLState 08 o SQLNonTransientConnectionException), la marco caída en el
+ *   acto y pruebo con la siguiente. Si no queda ninguna sana, devuelvo null y
+ *   la lectura va al primario.
+ * - Una réplica con el pool agotado está ocupada, no caída: no espero a que
+ *   se libere una conexión ni la saco del reparto, paso a la siguiente (o al
+ *   primario).
+ * - Un hilo revisa cada chequeoMs las réplicas caídas y las vuelve a marcar
+ *   sanas cuando responden.
+ *
+ * Las réplicas pueden venir un poco atrasadas respecto del primario; lo que
+ * necesita leer lo recién escrito lo resuelve {@link DatabaseConnection}
+ * (lecturas dentro de una transacción o justo después de escribir van al primario).
+ */
+final class EnrutadorLecturas implements AutoCloseable {
+
+    private final List<ConnectionPool> replicas;
+    private final AtomicIntegerArray sanas; // 1 = sana, 0 = caída
+    private final AtomicInteger siguiente = new AtomicInteger();
+    private final ScheduledExecutorService chequeo;
+
+    // Métricas
+    private final LongAdder lecturasReplica = new LongAdder();
+    private final LongAdder sinReplicaSana = new LongAdder();
+    private final LongAdder ocupadas = new LongAdder();
+    private final LongAdder caidas = new LongAdder();
+
+    EnrutadorLecturas(List<ConnectionPool> replicas, long chequeoMs) {
+        this.replicas = List.copyOf(replicas);
+        this.sanas = new AtomicIntegerArray(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) sanas.set(i, 1);
+
+        this.chequeo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replicas-chequeo");
+            t.setDaemon(true);
+            return t;
+        });
+        chequeo.scheduleWithFixedDelay(this::revisarCaidas, chequeoMs, chequeoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presto una conexión de la próxima réplica sana.
+     *
+     * @return la conexión, o null si no hay ninguna réplica disponible
+     */
+    Connection getConnection() {
+        int n = replicas.size();
+        int inicio = Math.floorMod(siguiente.getAndIncrement(), n);
+        for (int k = 0; k < n; k++) {
+            int i = (inicio + k) % n;
+            if (sanas.get(i) == 0) continue;
+            try {
+                // Sin esperar: si está ocupada, la lectura va a otra réplica o al primario
+                Connection conn = replicas.get(i).getConnection(0);
+                lecturasReplica.increment();
+                return conn;
+            } catch (SQLException e) {
+                if (esDeConexion(e)) {
+                    marcarCaida(i, e);
+                } else {
+                    ocupadas.increment();
+                }
+            }
+        }
+        sinReplicaSana.increment();
+        return null;
+    }
+
+    // El timeout del pool (SQLTransientConnectionException, sin SQLState) no cuenta
+    private static boolean esDeConexion(SQLException e) {
+        String estado = e.getSQLState();
+        return e instanceof SQLNonTransientConnectionException
+                || (estado != null && estado.startsWith("08"));
+    }
+
+    private void marcarCaida(int i, SQLException causa) {
+        if (sanas.compareAndSet(i, 1, 0)) {
+            caidas.increment();
+            System.err.println("⚠️ Réplica " + i + " fuera de servicio, las lecturas van a las demás.");
+            System.err.println("Detalles técnicos: " + causa.getMessage());
+        }
+    }
+
+    /** Pruebo las réplicas caídas con una conexión y isValid(). */
+    private void revisarCaidas() {
+        for (int i = 0; i < replicas.size(); i++) {
+            if (sanas.get(i) == 1) continue;
+            try (Connection conn = replicas.get(i).getConnection()) {
+                if (conn.isValid(Config.POOL_VALIDATION_TIMEOUT)) {
+                    sanas.set(i, 1);
+                    System.out.println("✅ Réplica " + i + " de nuevo en servicio.");
+                }
+            } catch (SQLException ignore) {
+                // Sigue caída; pruebo en el próximo chequeo
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        chequeo.shutdownNow();
+        replicas.forEach(ConnectionPool::close);
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    int getReplicas() { return replicas.size(); }
+
+    int getReplicasSanas() {
+        int n = 0;
+        for (int i = 0; i < sanas.length(); i++) n += sanas.get(i);
+        return n;
+    }
+
+    long getLecturasReplica() { return lecturasReplica.sum(); }
+
+    /** Lecturas que fueron al primario porque no había réplica sana. */
+    long getSinReplicaSana() { return sinReplicaSana.sum(); }
+
+    long getCaidas() { return caidas.sum(); }
+
+    /** Veces que se salteó una réplica sana porque no tenía conexiones libres. */
+    long getOcupadas() { return ocupadas.sum(); }
+}
@@ -0,0 +1,77 @@
+package integradorfinal.programacion2.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Proxy de las sentencias que el pool entrega sin pasar por la cache
+ * (createStatement, prepareCall, las preparadas aparte de la cache, ...).
+ *
+ * Delega todo en la sentencia real salvo lo que llevaría a la conexión
+ * física: getConnection() devuelve el handle del pool y unwrap() no entrega
+ * la sentencia del driver. Si alguien cerrara la conexión física, o la
+ * siguiera usando después de devolver el handle, rompería el préstamo de
+ * otro hilo.
+ */
+final class SentenciaEnvuelta implements InvocationHandler {
+
+    private final Statement real;
+    private final Connection conexion;
+
+    private SentenciaEnvuelta(Statement real, Connection conexion) {
+        this.real = real;
+        this.conexion = conexion;
+    }
+
+    /**
+     * Envuelvo la sentencia real con la interfaz que pidió el llamador.
+     *
+     * @param tipo     Statement, PreparedStatement o CallableStatement
+     * @param conexion el handle del pool que la creó
+     */
+    static <T extends Statement> T envolver(T real, Class<T> tipo, Connection conexion) {
+        return tipo.cast(Proxy.newProxyInstance(
+                tipo.getClassLoader(),
+                new Class<?>[]{tipo},
+                new SentenciaEnvuelta(real, conexion)));
+    }
+
+    /**
+     * unwrap() de los proxies de sentencias del pool (este y el de la cache):
+     * solo me entrego a mí mismo, nunca la sentencia del driver.
+     */
+    static Object desenvolver(Object proxy, Class<?> iface) throws SQLException {
+        if (!iface.isInstance(proxy)) {
+            throw new SQLException("La sentencia del pool no envuelve " + iface.getName());
+        }
+        return proxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "getConnection":
+                return conexion;
+            case "isWrapperFor":
+                return ((Class<?>) args[0]).isInstance(proxy);
+            case "unwrap":
+                return desenvolver(proxy, (Class<?>) args[0]);
+            default:
+                break;
+        }
+        try {
+            return method.invoke(real, args);
+        } catch (InvocationTargetException ite) {
+            throw ite.getCause();
+        }
+    }
+}
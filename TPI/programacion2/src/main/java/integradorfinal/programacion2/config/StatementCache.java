@@ -0,0 +1,307 @@
+package integradorfinal.programacion2.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU de PreparedStatement atada a UNA conexión física del pool.
+ *
+ * Los DAO preparan siempre los mismos SQL constantes y los cierran al
+ * terminar. Con esta cache, el close() del DAO no cierra la sentencia real:
+ * la deja lista para la próxima vez que se pida el mismo SQL sobre la misma
+ * conexión, y así me ahorro el parseo/prepare.
+ *
+ * La clave es el texto SQL + el modo de claves generadas. No necesita
+ * sincronización: la conexión (y con ella su cache) la usa un solo hilo a la vez.
+ *
+ * Cuando la conexión vuelve al pool, {@link #liberarPrestadas()} cierra lo que
+ * el llamador haya dejado abierto, para que una sentencia olvidada no quede
+ * apuntando a una conexión que ya se le prestó a otro hilo.
+ */
+final class StatementCache {
+
+    private final int maxSize;
+
+    // Contadores compartidos por todas las caches del pool
+    private final AtomicLong aciertos;
+    private final AtomicLong fallos;
+    private final AtomicLong desalojos;
+
+    // LinkedHashMap en orden de acceso: el primero es el menos usado recientemente
+    private final LinkedHashMap<Clave, Cacheada> sentencias;
+
+    // Sentencias preparadas aparte (uso anidado del mismo SQL) durante el préstamo actual
+    private final List<PreparedStatement> sueltas = new ArrayList<>();
+
+    StatementCache(int maxSize, AtomicLong aciertos, AtomicLong fallos, AtomicLong desalojos) {
+        this.maxSize = maxSize;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.desalojos = desalojos;
+        this.sentencias = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Cacheada> eldest) {
+                if (size() <= StatementCache.this.maxSize) return false;
+                eldest.getValue().desalojar();
+                StatementCache.this.desalojos.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Devuelvo una sentencia preparada para el SQL pedido. Si está en la
+     * cache y libre, la reutilizo; si no, la preparo y la guardo.
+     *
+     * Si la misma sentencia ya está prestada (dos usos anidados del mismo SQL
+     * sobre la misma conexión) preparo una aparte que no entra en la cache.
+     *
+     * @param conexion el handle del pool que la pide: es lo que devuelve su getConnection()
+     */
+    PreparedStatement preparar(Connection fisica, Connection conexion, String sql, int autoGeneratedKeys)
+            throws SQLException {
+        Clave clave = new Clave(sql, autoGeneratedKeys);
+        Cacheada c = sentencias.get(clave);
+        if (c != null && c.desalojada && !c.enUso) {
+            // Quedó retirada al cerrarla (ajuste que no se puede deshacer): la preparo de nuevo
+            sentencias.remove(clave);
+            c = null;
+        }
+        if (c != null && !c.enUso) {
+            aciertos.incrementAndGet();
+            c.prestar(conexion);
+            return c.handle;
+        }
+
+        fallos.incrementAndGet();
+        PreparedStatement ps = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                ? fisica.prepareStatement(sql)
+                : fisica.prepareStatement(sql, autoGeneratedKeys);
+        if (c != null) {
+            sueltas.add(ps);
+            return SentenciaEnvuelta.envolver(ps, PreparedStatement.class, conexion);
+        }
+
+        c = new Cacheada(ps);
+        c.prestar(conexion);
+        sentencias.put(clave, c);
+        return c.handle;
+    }
+
+    int size() {
+        return sentencias.size();
+    }
+
+    /**
+     * Fin de un préstamo: las sentencias de la cache que siguen en uso las
+     * saco y las cierro (el que se las olvidó recibe "ya fue cerrada" si las
+     * vuelve a tocar), y cierro las sueltas.
+     *
+     * @return cuántas sentencias había dejado abiertas el llamador
+     */
+    int liberarPrestadas() {
+        int abandonadas = 0;
+        Iterator<Cacheada> it = sentencias.values().iterator();
+        while (it.hasNext()) {
+            Cacheada c = it.next();
+            if (c.enUso) {
+                it.remove();
+                c.abandonar();
+                abandonadas++;
+            } else if (c.desalojada) {
+                it.remove(); // retirada al cerrarla, ya no sirve
+            }
+        }
+        for (PreparedStatement ps : sueltas) {
+            try {
+                if (!ps.isClosed()) {
+                    abandonadas++;
+                    ps.close();
+                }
+            } catch (SQLException ignore) {
+                // Se cierra igual con la conexión física
+            }
+        }
+        sueltas.clear();
+        return abandonadas;
+    }
+
+    // Clave de la cache: mismo SQL con distinto modo de claves generadas son sentencias distintas
+    private record Clave(String sql, int autoGeneratedKeys) {}
+
+    /**
+     * Sentencia real + el proxy que ve el DAO. El close() del proxy cierra el
+     * ResultSet que haya quedado abierto, limpia parámetros, vuelve los
+     * ajustes de la sentencia (fetchSize, maxRows, queryTimeout, dirección de
+     * fetch, maxFieldSize, poolable, escape processing) a como estaban al
+     * prepararla y la marca libre: el próximo préstamo no hereda nada de
+     * este. Lo que no se puede deshacer (closeOnCompletion, setCursorName)
+     * retira la sentencia de la cache al cerrarla. La sentencia real se
+     * cierra cuando la cache la desaloja o cuando se cierra la conexión física.
+     *
+     * enUso y desalojada son volatile porque CancelacionSql puede tocar el
+     * proxy desde el hilo del timeout.
+     *
+     * getConnection() devuelve el handle del préstamo actual y unwrap() no
+     * entrega la sentencia del driver: nadie llega a la conexión física.
+     */
+    private static final class Cacheada implements InvocationHandler {
+
+        final PreparedStatement real;
+        final PreparedStatement handle;
+        volatile boolean enUso;
+        volatile boolean desalojada;
+        private Connection conexion;
+
+        // Valores de fábrica, leídos antes del primer ajuste (null = nunca se ajustó)
+        private Ajustes iniciales;
+        private boolean ajustada;
+
+        Cacheada(PreparedStatement real) {
+            this.real = real;
+            this.handle = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+        }
+
+        void prestar(Connection conexion) {
+            this.conexion = conexion;
+            enUso = true;
+        }
+
+        void desalojar() {
+            desalojada = true;
+            if (!enUso) cerrarReal();
+        }
+
+        void abandonar() {
+            enUso = false;
+            conexion = null;
+            desalojada = true;
+            cerrarReal();
+        }
+
+        /** Fin del préstamo: dejo la sentencia como la recibió el primer llamador. */
+        private void limpiar() throws SQLException {
+            ResultSet rs = real.getResultSet();
+            if (rs != null) rs.close();
+            real.clearParameters();
+            real.clearBatch();
+            real.clearWarnings();
+            if (ajustada) {
+                iniciales.aplicar(real);
+                ajustada = false;
+            }
+        }
+
+        /** Antes de que el préstamo cambie un ajuste, anoto cómo estaba de fábrica. */
+        private void antesDeAjustar() throws SQLException {
+            if (iniciales == null) iniciales = Ajustes.de(real);
+            ajustada = true;
+        }
+
+        private void cerrarReal() {
+            try {
+                real.close();
+            } catch (SQLException ignore) {
+                // Si falla el cierre, la sentencia muere igual con la conexión
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (enUso) {
+                        enUso = false;
+                        conexion = null;
+                        if (!desalojada) {
+                            try {
+                                limpiar();
+                            } catch (SQLException | RuntimeException e) {
+                                desalojada = true; // no quedó limpia: no la vuelvo a prestar
+                            }
+                        }
+                        if (desalojada) cerrarReal();
+                    }
+                    return null;
+                case "isClosed":
+                    return !enUso || real.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (!enUso) {
+                throw new SQLException("La sentencia ya fue cerrada");
+            }
+            switch (method.getName()) {
+                case "getConnection":
+                    return conexion;
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "unwrap":
+                    return SentenciaEnvuelta.desenvolver(proxy, (Class<?>) args[0]);
+                case "setFetchSize":
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                case "setQueryTimeout":
+                case "setFetchDirection":
+                case "setMaxFieldSize":
+                case "setPoolable":
+                case "setEscapeProcessing":
+                    antesDeAjustar();
+                    break;
+                case "closeOnCompletion":
+                case "setCursorName":
+                    desalojada = true; // no hay cómo volver atrás: se retira al cerrarla
+                    break;
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(real, args);
+            } catch (InvocationTargetException ite) {
+                throw ite.getCause();
+            }
+        }
+    }
+
+    /** Ajustes de una sentencia que un préstamo puede cambiar y el close() repone. */
+    private record Ajustes(int maxRows, int fetchSize, int queryTimeout, int fetchDirection,
+                           int maxFieldSize, boolean poolable) {
+
+        static Ajustes de(Statement st) throws SQLException {
+            return new Ajustes(st.getMaxRows(), st.getFetchSize(), st.getQueryTimeout(),
+                    st.getFetchDirection(), st.getMaxFieldSize(), st.isPoolable());
+        }
+
+        void aplicar(Statement st) throws SQLException {
+            // maxRows antes que fetchSize: algunos drivers no aceptan un fetchSize mayor que maxRows
+            st.setMaxRows(maxRows); // también repone un setLargeMaxRows
+            st.setFetchSize(fetchSize);
+            st.setQueryTimeout(queryTimeout);
+            st.setFetchDirection(fetchDirection);
+            st.setMaxFieldSize(maxFieldSize);
+            st.setPoolable(poolable);
+            // No tiene getter; el valor por defecto de JDBC es true
+            st.setEscapeProcessing(true);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package integradorfinal.programacion2.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manejo de transacciones en un solo lugar, con la conexión atada a la
+ * unidad de trabajo actual.
+ *
+ * Antes cada método transaccional repetía lo mismo: pedir conexión,
+ * setAutoCommit(false), commit, rollback en el catch, restaurar autocommit y
+ * devolverla. Además, si dentro de esa transacción se llamaba a un DAO sin
+ * Connection, ese DAO pedía OTRA conexión y trabajaba fuera de la transacción.
+ *
+ * Con {@link #inTransaction(Trabajo)}:
+ * - Pido una conexión, la ato al hilo actual y corro el trabajo.
+ * - Mientras tanto, {@link DatabaseConnection#getConnection()} devuelve esa
+ *   misma conexión, así que los métodos de los DAO sin Connection se suman
+ *   solos a la transacción y las llamadas anidadas no piden una segunda.
+ * - Si el trabajo termina bien hago commit; si tira cualquier excepción, rollback.
+ *   Lo que se registró con {@link #alDeshacer(Runnable)} corre solo si hubo rollback.
+ * - Al final restauro el autocommit, devuelvo la conexión y desato el hilo.
+ *
+ * Lo que reciben el trabajo y los que se suman es una "vista" de la conexión:
+ * close(), commit() y setAutoCommit() no hacen nada (eso lo decide quien abrió
+ * la transacción) y rollback() la marca para deshacerse al final. Así el
+ * código que ya maneja su propia transacción (por ejemplo, createAll) se puede
+ * llamar adentro de otra sin cortarla por la mitad.
+ *
+ * La atadura es un ThreadLocal: es por hilo (y con hilos virtuales, por hilo
+ * virtual), y no pasa a otros hilos. Un trabajo mandado a un executor corre
+ * fuera de la transacción.
+ */
+public final class TransactionManager {
+
+    /** Qué hago si ya hay (o no hay) una unidad de trabajo abierta. */
+    public enum Propagacion {
+        /** Me sumo a la transacción actual o abro una nueva. */
+        REQUIRED,
+        /** Siempre abro una transacción nueva; la actual (si hay) queda suspendida. */
+        REQUIRES_NEW,
+        /** Me sumo si hay; si no, corro sin transacción (autocommit) con una sola conexión. */
+        SUPPORTS,
+        /** Tiene que haber una transacción abierta; si no, error. */
+        MANDATORY,
+        /** No puede haber una transacción abierta; corro sin transacción. */
+        NEVER
+    }
+
+    /** Trabajo a correr con la conexión de la unidad (si no tiene resultado, devuelve null). */
+    @FunctionalInterface
+    public interface Trabajo<T> {
+        T ejecutar(Connection conn) throws SQLException;
+    }
+
+    private static final ThreadLocal<Unidad> ACTUAL = new ThreadLocal<>();
+
+    private TransactionManager() {}
+
+    // ======================================================
+    // API
+    // ======================================================
+
+    /** Corro el trabajo en la transacción actual o en una nueva (REQUIRED). */
+    public static <T> T inTransaction(Trabajo<T> trabajo) throws SQLException {
+        return inTransaction(Propagacion.REQUIRED, trabajo);
+    }
+
+    /** Corro el trabajo según la propagación pedida. */
+    public static <T> T inTransaction(Propagacion propagacion, Trabajo<T> trabajo) throws SQLException {
+        Unidad actual = ACTUAL.get();
+        switch (propagacion) {
+            case REQUIRED:
+                if (actual != null && actual.transaccional) return trabajo.ejecutar(actual.vista);
+                return ejecutarNueva(actual, true, trabajo);
+            case REQUIRES_NEW:
+                return ejecutarNueva(actual, true, trabajo);
+            case SUPPORTS:
+                if (actual != null) return trabajo.ejecutar(actual.vista);
+                return ejecutarNueva(null, false, trabajo);
+            case MANDATORY:
+                if (actual == null || !actual.transaccional) {
+                    throw new IllegalStateException("Se requiere una transacción abierta");
+                }
+                return trabajo.ejecutar(actual.vista);
+            case NEVER:
+                if (actual != null && actual.transaccional) {
+                    throw new IllegalStateException("No se puede ejecutar dentro de una transacción");
+                }
+                if (actual != null) return trabajo.ejecutar(actual.vista);
+                return ejecutarNueva(null, false, trabajo);
+            default:
+                throw new IllegalArgumentException("Propagación no soportada: " + propagacion);
+        }
+    }
+
+    /** true si el hilo actual está dentro de una transacción. */
+    public static boolean hayTransaccion() {
+        Unidad u = ACTUAL.get();
+        return u != null && u.transaccional;
+    }
+
+    /**
+     * Marco la transacción actual para que termine en rollback aunque el
+     * trabajo no tire excepción.
+     */
+    public static void marcarRollback() {
+        Unidad u = ACTUAL.get();
+        if (u == null || !u.transaccional) {
+            throw new IllegalStateException("No hay una transacción abierta");
+        }
+        u.soloRollback = true;
+    }
+
+    /**
+     * Registro una acción para correr si la transacción actual termina en
+     * rollback (por ejemplo, que una entidad vuelva a tener pendientes los
+     * cambios que el DAO dio por escritos). Sin transacción no hago nada: en
+     * autocommit lo que se escribió ya quedó confirmado.
+     */
+    public static void alDeshacer(Runnable accion) {
+        Unidad u = ACTUAL.get();
+        if (u != null && u.transaccional) u.alDeshacer(accion);
+    }
+
+    /**
+     * La conexión de la unidad de trabajo actual (una vista que no se cierra),
+     * o null si no hay ninguna. La usa {@link DatabaseConnection}.
+     */
+    static Connection conexionActual() {
+        Unidad u = ACTUAL.get();
+        return u == null ? null : u.vista;
+    }
+
+    // ======================================================
+    // UNIDAD DE TRABAJO
+    // ======================================================
+
+    private static <T> T ejecutarNueva(Unidad anterior, boolean transaccional, Trabajo<T> trabajo)
+            throws SQLException {
+        // Pido la conexión al pool directo: getConnection() me devolvería la de la unidad suspendida.
+        // Una unidad de trabajo cuenta como escritura: las lecturas que siguen van al primario
+        DatabaseConnection.marcarEscritura();
+        Connection conn = DatabaseConnection.getDataSource().getConnection();
+        Unidad unidad = new Unidad(conn, transaccional);
+        boolean prevAutoCommit = true;
+        ACTUAL.set(unidad);
+        try {
+            prevAutoCommit = conn.getAutoCommit();
+            if (transaccional) conn.setAutoCommit(false); // --- INICIO TRANSACCIÓN ---
+
+            T resultado;
+            try {
+                resultado = trabajo.ejecutar(unidad.vista);
+            } catch (SQLException | RuntimeException | Error ex) {
+                if (transaccional) deshacer(unidad, ex);
+                throw ex;
+            }
+
+            if (transaccional) {
+                if (unidad.soloRollback) {
+                    SQLException ex = new SQLException("La transacción se marcó para rollback y no se confirmó");
+                    deshacer(unidad, ex);
+                    throw ex;
+                }
+                try {
+                    conn.commit();
+                } catch (SQLException ex) {
+                    // Si el commit falla, lo escrito no quedó: lo trato como un rollback
+                    deshacer(unidad, ex);
+                    throw ex;
+                }
+            }
+            return resultado;
+        } finally {
+            unidad.terminada = true;
+            DatabaseConnection.marcarEscritura(); // la ventana de lectura propia corre desde el commit
+            if (anterior != null) {
+                ACTUAL.set(anterior); // retomo la unidad suspendida (REQUIRES_NEW)
+            } else {
+                ACTUAL.remove();
+            }
+            try {
+                conn.setAutoCommit(prevAutoCommit);
+            } catch (SQLException ignore) {
+                // El pool la descarta si no puede dejarla limpia
+            }
+            conn.close(); // vuelve al pool
+        }
+    }
+
+    private static void deshacer(Unidad unidad, Throwable causa) {
+        try {
+            unidad.conn.rollback();
+        } catch (SQLException ex) {
+            causa.addSuppressed(ex);
+        }
+        unidad.correrAlDeshacer(causa);
+    }
+
+    /** Conexión atada al hilo + lo que necesito para terminarla. */
+    private static final class Unidad implements InvocationHandler {
+
+        final Connection conn;
+        final boolean transaccional;
+        final Connection vista;
+        volatile boolean soloRollback;
+        volatile boolean terminada;
+        private List<Runnable> alDeshacer;
+
+        Unidad(Connection conn, boolean transaccional) {
+            this.conn = conn;
+            this.transaccional = transaccional;
+            this.vista = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    this);
+        }
+
+        void alDeshacer(Runnable accion) {
+            if (alDeshacer == null) alDeshacer = new ArrayList<>();
+            alDeshacer.add(accion);
+        }
+
+        /** Corro las acciones de rollback, de la última a la primera. */
+        void correrAlDeshacer(Throwable causa) {
+            if (alDeshacer == null) return;
+            for (int i = alDeshacer.size() - 1; i >= 0; i--) {
+                try {
+                    alDeshacer.get(i).run();
+                } catch (RuntimeException ex) {
+                    causa.addSuppressed(ex);
+                }
+            }
+            alDeshacer = null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean sinArgs = args == null || args.length == 0;
+            switch (method.getName()) {
+                case "close":
+                    return null; // la cierra quien abrió la unidad
+                case "isClosed":
+                    if (terminada) return true;
+                    break;
+                case "commit":
+                    if (transaccional) return null;
+                    break;
+                case "setAutoCommit":
+                    if (transaccional) return null;
+                    break;
+                case "getAutoCommit":
+                    if (transaccional) return false;
+                    break;
+                case "rollback":
+                    if (transaccional && sinArgs) {
+                        soloRollback = true; // se deshace todo al final
+                        return null;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Transaccion[" + conn + "]";
+                case "unwrap":
+                    // Entregar la conexión de abajo permitiría cerrarla o confirmarla a mitad de la unidad
+                    if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                    break;
+                default:
+                    break;
+            }
+            if (terminada) {
+                throw new SQLException("La unidad de trabajo ya terminó");
+            }
+            try {
+                return method.invoke(conn, args);
+            } catch (InvocationTargetException ite) {
+                throw ite.getCause();
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package integradorfinal.programacion2.dao;
 
 import integradorfinal.programacion2.entities.CredencialAcceso;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -19,6 +23,52 @@ public interface CredencialAccesoDao extends GenericDao<CredencialAcceso, Long>
      */
     Optional<CredencialAcceso> findByUsuarioId(Long usuarioId) throws SQLException;
 
+    /**
+     * Busca las credenciales de varios usuarios a la vez, con consultas
+     * IN (...) por bloques.
+     *
+     * @param usuarioIds IDs de usuario
+     * @return mapa usuarioId → credencial (solo los que tienen credencial)
+     * @throws SQLException si ocurre un error SQL
+     */
+    Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds) throws SQLException;
+
+    /**
+     * Devuelve una página de credenciales no eliminadas con ID mayor a afterId,
+     * ordenadas por ID (paginación por clave, sin OFFSET).
+     *
+     * @param afterId cursor: último ID de la página anterior (null o 0 para empezar)
+     * @param limit   cantidad máxima de credenciales en la página (más de
+     *                {@link Pagina#MAX_TAMANIO} se recorta a ese tope)
+     * @return la página con el cursor para pedir la siguiente
+     * @throws IllegalArgumentException si limit es menor que 1
+     * @throws SQLException si ocurre un error SQL
+     */
+    Pagina<CredencialAcceso> findPage(Long afterId, int limit) throws SQLException;
+
+    Pagina<CredencialAcceso> findPage(Long afterId, int limit, Connection conn) throws SQLException;
+
+    /**
+     * Igual que {@link #findPage(Long, int)} pero sin hash ni salt, para
+     * listados.
+     *
+     * @param afterId cursor: último ID de la página anterior (null o 0 para empezar)
+     * @param limit   cantidad máxima de credenciales en la página
+     * @return la página de resúmenes con el cursor para pedir la siguiente
+     * @throws SQLException si ocurre un error SQL
+     */
+    Pagina<CredencialResumen> findResumenPage(Long afterId, int limit) throws SQLException;
+
+    /**
+     * Busca solo el hash y el salt de la credencial de un usuario, para
+     * verificar una contraseña.
+     *
+     * @param usuarioId identificador del usuario
+     * @return Optional con id, hash y salt si tiene credencial
+     * @throws SQLException si ocurre un error SQL
+     */
+    Optional<CredencialAuth> findAuthByUsuarioId(Long usuarioId) throws SQLException;
+
     /**
      * Actualiza de forma segura la contraseña y el salt del usuario.
      * Puede implementarse llamando al procedimiento almacenado
@@ -30,4 +80,28 @@ public interface CredencialAccesoDao extends GenericDao<CredencialAcceso, Long>
      * @throws SQLException si ocurre un error SQL
      */
     void updatePasswordSeguro(Long usuarioId, String nuevoHash, String nuevoSalt) throws SQLException;
+
+    /**
+     * Reemplaza el hash y el salt de la credencial de un usuario solo si el
+     * hash guardado sigue siendo el esperado (para regenerar un hash sin pisar
+     * un cambio de contraseña concurrente). No toca ultimo_cambio.
+     *
+     * @param usuarioId    ID del usuario
+     * @param hashAnterior hash que se validó
+     * @param nuevoHash    nuevo hash de contraseña
+     * @param nuevoSalt    nuevo valor salt
+     * @return true si se actualizó, false si el hash ya había cambiado
+     * @throws SQLException si ocurre un error SQL
+     */
+    boolean rehashPassword(Long usuarioId, String hashAnterior, String nuevoHash, String nuevoSalt) throws SQLException;
+
+    /**
+     * Actualiza la última sesión de varios usuarios en lote (executeBatch),
+     * en una sola transacción. Nunca retrocede una fecha ya guardada.
+     *
+     * @param ultimasSesiones usuarioId → fecha y hora del último login
+     * @return cantidad de filas actualizadas
+     * @throws SQLException si ocurre un error SQL
+     */
+    int updateUltimasSesiones(Map<Long, LocalDateTime> ultimasSesiones) throws SQLException;
 }
@@ -0,0 +1,18 @@
+package integradorfinal.programacion2.dao;
+
+/**
+ * Lo mínimo para verificar una contraseña: id, hash y salt de la credencial.
+ *
+ * @param idCredencial identificador de la credencial
+ * @param usuarioId    usuario dueño de la credencial
+ * @param hashPassword hash guardado (con el prefijo de su algoritmo)
+ * @param salt         salt usado para ese hash
+ */
+public record CredencialAuth(Long idCredencial, Long usuarioId, String hashPassword, String salt) {
+
+    /** Igual que en CredencialAcceso: no imprimo el hash ni el salt. */
+    @Override
+    public String toString() {
+        return "CredencialAuth{idCredencial=" + idCredencial + ", usuarioId=" + usuarioId + '}';
+    }
+}
@@ -0,0 +1,18 @@
+package integradorfinal.programacion2.dao;
+
+import integradorfinal.programacion2.entities.Estado;
+import java.time.LocalDateTime;
+
+/**
+ * Vista liviana de una credencial para los listados. No incluye el hash ni
+ * el salt: un listado no los necesita y así no viajan por la red.
+ *
+ * @param idCredencial  identificador de la credencial
+ * @param usuarioId     usuario dueño de la credencial
+ * @param estado        estado de la credencial
+ * @param ultimaSesion  fecha y hora del último login (puede ser null)
+ * @param requiereReset true si tiene que cambiar la contraseña
+ */
+public record CredencialResumen(Long idCredencial, Long usuarioId, Estado estado,
+                                LocalDateTime ultimaSesion, boolean requiereReset) {
+}
@@ -4,11 +4,18 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * DAO genérico con operaciones CRUD y soporte opcional para transacciones
  * (métodos sobrecargados que aceptan una Connection externa).
  *
+ * Las implementaciones no guardan estado entre llamadas, así que una misma
+ * instancia se puede usar desde varios hilos. Los métodos sin Connection
+ * piden y devuelven la suya al pool; los que reciben una Connection la usan
+ * sin cerrarla ni tocar su autocommit, y esa conexión es del hilo que la pidió.
+ *
  * @param <T>  Tipo de entidad (p.ej., Usuario, CredencialAcceso)
  * @param <ID> Tipo del identificador (p.ej., Long)
  */
@@ -17,10 +24,36 @@ public interface GenericDao<T, ID> {
     // --------- CRUD básico ---------
     ID create(T entity) throws SQLException;
 
+    /**
+     * Alta masiva: inserta todas las entidades en lotes JDBC (addBatch /
+     * executeBatch) dentro de una única transacción propia, y asigna a cada
+     * entidad el ID generado.
+     *
+     * @return los IDs generados, en el mismo orden que la lista recibida
+     */
+    List<ID> createAll(List<T> entities) throws SQLException;
+
     Optional<T> findById(ID id) throws SQLException;
 
     List<T> findAll() throws SQLException;
 
+    /**
+     * Igual que findAll() pero sin cargar todo en memoria: las filas se leen
+     * y se mapean de a una a medida que se consume el Stream.
+     * El Stream DEBE cerrarse (try-with-resources); al cerrarlo se liberan
+     * el ResultSet, la sentencia y la conexión.
+     */
+    Stream<T> stream() throws SQLException;
+
+    /**
+     * Recorre todas las entidades de a una, en memoria constante.
+     */
+    void forEach(Consumer<? super T> action) throws SQLException;
+
+    /**
+     * Actualiza la entidad. Las implementaciones pueden escribir solo los
+     * campos que cambiaron desde que se leyó, y nada si no cambió ninguno.
+     */
     void update(T entity) throws SQLException;
 
     /**
@@ -37,10 +70,22 @@ public interface GenericDao<T, ID> {
     // --------- Versión transaccional (misma Connection) ---------
     ID create(T entity, Connection conn) throws SQLException;
 
+    /**
+     * Alta masiva sobre una Connection externa. No hace commit: el manejo de
+     * la transacción queda en manos de quien llama.
+     */
+    List<ID> createAll(List<T> entities, Connection conn) throws SQLException;
+
     Optional<T> findById(ID id, Connection conn) throws SQLException;
 
     List<T> findAll(Connection conn) throws SQLException;
 
+    /**
+     * Versión en streaming sobre una Connection externa. Al cerrar el Stream
+     * se cierran el ResultSet y la sentencia, pero NO la conexión.
+     */
+    Stream<T> stream(Connection conn) throws SQLException;
+
     void update(T entity, Connection conn) throws SQLException;
 
     void softDeleteById(ID id, Connection conn) throws SQLException;
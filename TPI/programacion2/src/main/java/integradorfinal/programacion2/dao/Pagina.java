@@ -0,0 +1,55 @@
+package integradorfinal.programacion2.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Una página de resultados obtenida con paginación por clave (keyset).
+ *
+ * En lugar de un número de página uso un cursor: el último ID de la página.
+ * Para pedir la siguiente se pasa ese cursor como "afterId", así cada página
+ * cuesta lo mismo sin importar cuán adelante esté en la tabla.
+ *
+ * @param <T> tipo de entidad de la página
+ */
+public class Pagina<T> {
+
+    /** Tope de elementos por página; los DAO recortan los pedidos más grandes. */
+    public static final int MAX_TAMANIO = 1000;
+
+    private final List<T> items;
+    private final Long siguienteCursor;
+
+    /**
+     * @param items           elementos de esta página
+     * @param siguienteCursor ID a usar como afterId para la próxima página,
+     *                        o null si no hay más resultados
+     */
+    public Pagina(List<T> items, Long siguienteCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    /**
+     * Valido el tamaño pedido antes de ir a la base: menos de 1 es un error
+     * del llamador, y por encima del tope lo recorto (así el limit + 1 que
+     * piden los DAO nunca desborda).
+     *
+     * @return el tamaño a usar, entre 1 y {@link #MAX_TAMANIO}
+     * @throws IllegalArgumentException si limit es menor que 1
+     */
+    public static int limiteValido(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("El tamaño de página debe ser al menos 1");
+        }
+        return Math.min(limit, MAX_TAMANIO);
+    }
+
+    public List<T> getItems() { return items; }
+
+    public Long getSiguienteCursor() { return siguienteCursor; }
+
+    public boolean haySiguiente() { return siguienteCursor != null; }
+
+    public boolean isEmpty() { return items.isEmpty(); }
+}
@@ -1,7 +1,10 @@
 package integradorfinal.programacion2.dao;
 
 import integradorfinal.programacion2.entities.Usuario;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -27,4 +30,60 @@ public interface UsuarioDao extends GenericDao<Usuario, Long> {
      * @throws SQLException si ocurre un error SQL
      */
     Optional<Usuario> findByEmail(String email) throws SQLException;
+
+    /**
+     * Busca varios usuarios a la vez por ID, con consultas IN (...) por bloques.
+     * Los IDs que no existen (o están eliminados) simplemente no aparecen en el mapa.
+     *
+     * @param ids identificadores a buscar
+     * @return mapa ID → usuario
+     * @throws SQLException si ocurre un error SQL
+     */
+    Map<Long, Usuario> findByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Busca un usuario por username trayendo también su credencial en la
+     * misma consulta (JOIN), y la deja cargada en {@code Usuario.getCredencial()}.
+     * Si el usuario no tiene credencial activa, la credencial queda en null.
+     *
+     * @param username nombre de usuario
+     * @return Optional con el usuario (y su credencial) si existe
+     * @throws SQLException si ocurre un error SQL
+     */
+    Optional<Usuario> findByUsernameWithCredencial(String username) throws SQLException;
+
+    /**
+     * Igual que {@link #findByUsernameWithCredencial(String)} pero buscando por ID.
+     *
+     * @param id identificador del usuario
+     * @return Optional con el usuario (y su credencial) si existe
+     * @throws SQLException si ocurre un error SQL
+     */
+    Optional<Usuario> findByIdWithCredencial(Long id) throws SQLException;
+
+    /**
+     * Devuelve una página de usuarios no eliminados con ID mayor a afterId,
+     * ordenados por ID (paginación por clave, sin OFFSET).
+     *
+     * @param afterId cursor: último ID de la página anterior (null o 0 para empezar)
+     * @param limit   cantidad máxima de usuarios en la página (más de
+     *                {@link Pagina#MAX_TAMANIO} se recorta a ese tope)
+     * @return la página con el cursor para pedir la siguiente
+     * @throws IllegalArgumentException si limit es menor que 1
+     * @throws SQLException si ocurre un error SQL
+     */
+    Pagina<Usuario> findPage(Long afterId, int limit) throws SQLException;
+
+    Pagina<Usuario> findPage(Long afterId, int limit, Connection conn) throws SQLException;
+
+    /**
+     * Igual que {@link #findPage(Long, int)} pero trae solo id, username y
+     * estado, para listados que no necesitan el usuario completo.
+     *
+     * @param afterId cursor: último ID de la página anterior (null o 0 para empezar)
+     * @param limit   cantidad máxima de usuarios en la página
+     * @return la página de resúmenes con el cursor para pedir la siguiente
+     * @throws SQLException si ocurre un error SQL
+     */
+    Pagina<UsuarioResumen> findResumenPage(Long afterId, int limit) throws SQLException;
 }
@@ -0,0 +1,15 @@
+package integradorfinal.programacion2.dao;
+
+import integradorfinal.programacion2.entities.Estado;
+
+/**
+ * Vista liviana de un usuario para los listados: solo las columnas que se
+ * muestran (id_usuario, username, estado). Al no traer el resto de la fila,
+ * una recorrida larga manda y parsea mucho menos por cada usuario.
+ *
+ * @param idUsuario identificador del usuario
+ * @param username  nombre de usuario
+ * @param estado    estado del usuario
+ */
+public record UsuarioResumen(Long idUsuario, String username, Estado estado) {
+}
@@ -1,7 +1,12 @@
 package integradorfinal.programacion2.dao.impl;
 
+import integradorfinal.programacion2.config.Config;
 import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.config.TransactionManager;
 import integradorfinal.programacion2.dao.CredencialAccesoDao;
+import integradorfinal.programacion2.dao.CredencialAuth;
+import integradorfinal.programacion2.dao.CredencialResumen;
+import integradorfinal.programacion2.dao.Pagina;
 import integradorfinal.programacion2.entities.CredencialAcceso;
 import integradorfinal.programacion2.entities.Estado;
 import integradorfinal.programacion2.exceptions.DataAccessException;
@@ -9,8 +14,16 @@ import integradorfinal.programacion2.exceptions.DataAccessException;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementación JDBC del DAO de CredencialAcceso.
@@ -19,11 +32,102 @@ import java.util.Optional;
  * credencial_acceso: creación, lectura, actualización y borrado.
  * 
  * La estructura la separé en dos partes:
- * - Métodos CRUD que se manejan solos (piden su propia Connection).
+ * - Métodos CRUD que se manejan solos (piden su propia Connection, o usan la
+ *   de la transacción abierta en TransactionManager si la hay).
  * - Métodos CRUD que reciben una Connection externa (para trabajar en transacciones).
+ *
+ * Las lecturas con Connection propia piden DatabaseConnection.getReadConnection()
+ * (pueden ir a una réplica); las escrituras siempre van al primario. La
+ * credencial de un usuario y su hash (findByUsuarioId, findAuthByUsuarioId)
+ * se leen siempre del primario: un hash viejo de una réplica atrasada no
+ * puede validar un login ni quedar en CredencialCache.
  */
 public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
 
+    private static final String SQL_INSERT = """
+        INSERT INTO credencial_acceso
+          (eliminado, usuario_id, estado, ultima_sesion, hash_password, salt, ultimo_cambio, requiere_reset)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    // Columnas que lee mapRow, en vez de SELECT *. mapRow las lee por posición en este orden
+    private static final String[] COLS = {
+        "id_credencial", "eliminado", "usuario_id", "estado", "ultima_sesion",
+        "hash_password", "salt", "ultimo_cambio", "requiere_reset"
+    };
+    private static final String COLUMNAS = String.join(", ", COLS);
+
+    private static final String[] COLS_RESUMEN = {
+        "id_credencial", "usuario_id", "estado", "ultima_sesion", "requiere_reset"
+    };
+
+    private static final String[] COLS_AUTH = {"id_credencial", "usuario_id", "hash_password", "salt"};
+
+    private static final String SQL_FIND_ALL =
+        "SELECT " + COLUMNAS + " FROM credencial_acceso WHERE eliminado = FALSE ORDER BY id_credencial";
+
+    private static final String SQL_FIND_BY_ID =
+        "SELECT " + COLUMNAS + " FROM credencial_acceso WHERE id_credencial = ? AND eliminado = FALSE";
+
+    private static final String SQL_FIND_BY_USUARIO_ID =
+        "SELECT " + COLUMNAS + " FROM credencial_acceso WHERE usuario_id = ? AND eliminado = FALSE";
+
+    private static final String SQL_FIND_PAGE =
+        "SELECT " + COLUMNAS + " FROM credencial_acceso WHERE eliminado = FALSE AND id_credencial > ? ORDER BY id_credencial LIMIT ?";
+
+    private static final String SQL_FIND_BY_USUARIO_IDS =
+        "SELECT " + COLUMNAS + " FROM credencial_acceso WHERE eliminado = FALSE AND usuario_id IN (%s)";
+
+    // Listados: sin hash ni salt
+    private static final String SQL_FIND_RESUMEN_PAGE =
+        "SELECT " + String.join(", ", COLS_RESUMEN) + " FROM credencial_acceso" +
+        " WHERE eliminado = FALSE AND id_credencial > ? ORDER BY id_credencial LIMIT ?";
+
+    // Verificación de contraseña: solo hash y salt
+    private static final String SQL_FIND_AUTH_BY_USUARIO_ID =
+        "SELECT " + String.join(", ", COLS_AUTH) + " FROM credencial_acceso" +
+        " WHERE usuario_id = ? AND eliminado = FALSE";
+
+    private static final String SQL_REHASH =
+        "UPDATE credencial_acceso SET hash_password = ?, salt = ? WHERE usuario_id = ? AND hash_password = ?";
+
+    // Solo avanza la fecha: un flush atrasado no pisa un login más nuevo
+    private static final String SQL_UPDATE_ULTIMA_SESION_SI_MAYOR =
+        "UPDATE credencial_acceso SET ultima_sesion = ? WHERE usuario_id = ? AND eliminado = FALSE" +
+        " AND (ultima_sesion IS NULL OR ultima_sesion < ?)";
+
+    // Filas por executeBatch() en createAll
+    private final int batchSize;
+
+    // Máximo de IDs por consulta en findByUsuarioIds
+    private final int inChunkSize;
+
+    /**
+     * Constructor por defecto: tomo los tamaños de lote de Config.
+     */
+    public CredencialAccesoDaoImpl() {
+        this(Config.DAO_BATCH_SIZE, Config.DAO_IN_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor alternativo para elegir otro tamaño de lote en las altas masivas.
+     */
+    public CredencialAccesoDaoImpl(int batchSize) {
+        this(batchSize, Config.DAO_IN_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor completo: tamaño de lote de las altas masivas y máximo
+     * de IDs por consulta IN (...).
+     */
+    public CredencialAccesoDaoImpl(int batchSize, int inChunkSize) {
+        if (batchSize < 1 || inChunkSize < 1) {
+            throw new IllegalArgumentException("Los tamaños de lote deben ser al menos 1");
+        }
+        this.batchSize = batchSize;
+        this.inChunkSize = inChunkSize;
+    }
+
     // ======================================================
     // CRUD BÁSICO (maneja su propia Connection)
     // ======================================================
@@ -41,12 +145,26 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
         }
     }
 
+    /**
+     * Alta masiva de credenciales usando una Connection propia, en una sola
+     * transacción (o en la que ya esté abierta). Igual que en create, el error
+     * SQL lo envuelvo en DataAccessException.
+     */
+    @Override
+    public List<Long> createAll(List<CredencialAcceso> credenciales) {
+        try {
+            return TransactionManager.inTransaction(conn -> createAll(credenciales, conn));
+        } catch (SQLException e) {
+            throw new DataAccessException("Error en el alta masiva de " + credenciales.size() + " credenciales", e);
+        }
+    }
+
     /**
      * Busco una credencial por su ID usando una Connection propia.
      */
     @Override
     public Optional<CredencialAcceso> findById(Long id) throws SQLException {
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
             return findById(id, conn);
         }
     }
@@ -57,16 +175,38 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public List<CredencialAcceso> findAll() throws SQLException {
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
             return findAll(conn);
         }
     }
 
     /**
-     * Actualizo una credencial completa usando una Connection propia.
+     * Recorro las credenciales en streaming con una Connection propia.
+     * La conexión vuelve al pool cuando se cierra el Stream.
+     */
+    @Override
+    public Stream<CredencialAcceso> stream() throws SQLException {
+        Connection conn = DatabaseConnection.getReadConnection();
+        return ResultSetStream.abrir(conn, true, SQL_FIND_ALL, CredencialAccesoDaoImpl::mapRow);
+    }
+
+    /**
+     * Aplico la acción a cada credencial sin armar la lista completa en memoria.
+     */
+    @Override
+    public void forEach(Consumer<? super CredencialAcceso> action) throws SQLException {
+        try (Stream<CredencialAcceso> credenciales = stream()) {
+            credenciales.forEach(action);
+        }
+    }
+
+    /**
+     * Actualizo una credencial usando una Connection propia.
+     * Si no cambió nada, ni siquiera pido una conexión.
      */
     @Override
     public void update(CredencialAcceso c) throws SQLException {
+        if (!c.hayCambios()) return;
         try (Connection conn = DatabaseConnection.getConnection()) {
             update(c, conn);
         }
@@ -103,21 +243,8 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public Long create(CredencialAcceso c, Connection conn) throws SQLException {
-        final String sql = """
-            INSERT INTO credencial_acceso
-              (eliminado, usuario_id, estado, ultima_sesion, hash_password, salt, ultimo_cambio, requiere_reset)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setBoolean(1, c.isEliminado());
-            ps.setLong(2, c.getUsuarioId());
-            ps.setString(3, c.getEstado().name());
-            setNullableTimestamp(ps, 4, c.getUltimaSesion());
-            ps.setString(5, c.getHashPassword());
-            ps.setString(6, c.getSalt());
-            setNullableTimestamp(ps, 7, c.getUltimoCambio());
-            ps.setBoolean(8, c.isRequiereReset());
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(ps, c);
             ps.executeUpdate();
 
             // Recupero el ID autogenerado por la base y lo seteo en el objeto.
@@ -125,6 +252,9 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
                 if (rs.next()) {
                     long id = rs.getLong(1);
                     c.setIdCredencial(id);
+                    c.marcarLimpio();
+                    // Si la transacción se revierte, la fila no existe: vuelve a estar sin guardar
+                    TransactionManager.alDeshacer(() -> c.marcarPendientes(null));
                     return id;
                 }
             }
@@ -132,14 +262,54 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
         return null;
     }
 
+    /**
+     * Alta masiva de credenciales con una Connection externa.
+     *
+     * Agrupo las filas en lotes de batchSize (addBatch / executeBatch) y, al
+     * cerrar cada lote, asigno los IDs generados a las credenciales de ese
+     * lote en el mismo orden en que las agregué.
+     */
+    @Override
+    public List<Long> createAll(List<CredencialAcceso> credenciales, Connection conn) throws SQLException {
+        List<Long> ids = new ArrayList<>(credenciales.size());
+        if (credenciales.isEmpty()) return ids;
+
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            int inicioLote = 0;
+            for (int i = 0; i < credenciales.size(); i++) {
+                bindInsert(ps, credenciales.get(i));
+                ps.addBatch();
+
+                boolean finDeLote = (i + 1 - inicioLote) == batchSize || i == credenciales.size() - 1;
+                if (finDeLote) {
+                    ps.executeBatch();
+                    List<CredencialAcceso> lote = credenciales.subList(inicioLote, i + 1);
+                    TransactionManager.alDeshacer(() -> lote.forEach(c -> c.marcarPendientes(null)));
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        for (int j = inicioLote; j <= i; j++) {
+                            if (!rs.next()) {
+                                throw new SQLException("No se obtuvieron todas las claves generadas del lote de credenciales");
+                            }
+                            long id = rs.getLong(1);
+                            credenciales.get(j).setIdCredencial(id);
+                            credenciales.get(j).marcarLimpio();
+                            ids.add(id);
+                        }
+                    }
+                    inicioLote = i + 1;
+                }
+            }
+        }
+        return ids;
+    }
+
     /**
      * Busco una credencial por ID usando una Connection externa.
      * Solo traigo registros que no estén marcados como eliminados.
      */
     @Override
     public Optional<CredencialAcceso> findById(Long id, Connection conn) throws SQLException {
-        final String sql = "SELECT * FROM credencial_acceso WHERE id_credencial = ? AND eliminado = FALSE";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_ID)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return Optional.of(mapRow(rs));
@@ -154,9 +324,8 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public List<CredencialAcceso> findAll(Connection conn) throws SQLException {
-        final String sql = "SELECT * FROM credencial_acceso WHERE eliminado = FALSE ORDER BY id_credencial";
         List<CredencialAcceso> out = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_ALL);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) out.add(mapRow(rs));
         }
@@ -164,28 +333,58 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
     }
 
     /**
-     * Actualizo todos los campos de una credencial, usando una Connection externa.
+     * Versión en streaming con Connection externa (no la cierra).
+     */
+    @Override
+    public Stream<CredencialAcceso> stream(Connection conn) throws SQLException {
+        return ResultSetStream.abrir(conn, false, SQL_FIND_ALL, CredencialAccesoDaoImpl::mapRow);
+    }
+
+    /**
+     * Actualizo una credencial usando una Connection externa.
+     *
+     * Escribo solo los grupos de columnas que cambiaron desde que se leyó
+     * (CredencialAcceso.getCambios(), ver GRUPOS_UPDATE): si solo cambió el
+     * estado, no vuelvo a mandar hash_password ni salt. Sin cambios no mando
+     * ninguna sentencia. Una credencial armada a mano (no leída de la base)
+     * se escribe completa.
+     *
+     * Si la transacción termina en rollback, lo escrito vuelve a quedar pendiente.
      */
     @Override
     public void update(CredencialAcceso c, Connection conn) throws SQLException {
-        final String sql = """
-            UPDATE credencial_acceso
-               SET eliminado=?, usuario_id=?, estado=?, ultima_sesion=?, hash_password=?, salt=?, ultimo_cambio=?, requiere_reset=?
-             WHERE id_credencial=?
-            """;
+        Set<CredencialAcceso.Campo> columnas = columnasUpdate(c.getCambios());
+        if (columnas.isEmpty()) return;
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setBoolean(1, c.isEliminado());
-            ps.setLong(2, c.getUsuarioId());
-            ps.setString(3, c.getEstado().name());
-            setNullableTimestamp(ps, 4, c.getUltimaSesion());
-            ps.setString(5, c.getHashPassword());
-            ps.setString(6, c.getSalt());
-            setNullableTimestamp(ps, 7, c.getUltimoCambio());
-            ps.setBoolean(8, c.isRequiereReset());
-            ps.setLong(9, c.getIdCredencial());
+        StringBuilder sql = new StringBuilder("UPDATE credencial_acceso SET ");
+        for (CredencialAcceso.Campo campo : columnas) {
+            sql.append(columna(campo)).append("=?, ");
+        }
+        sql.setLength(sql.length() - 2);
+        sql.append(" WHERE id_credencial=?");
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            for (CredencialAcceso.Campo campo : columnas) {
+                bindCampo(ps, i++, c, campo);
+            }
+            ps.setLong(i, c.getIdCredencial());
             ps.executeUpdate();
         }
+        c.marcarLimpio();
+        TransactionManager.alDeshacer(() -> c.marcarPendientes(columnas));
+    }
+
+    /**
+     * Completo los cambios con el resto de su grupo: como mucho 7 formas de
+     * UPDATE (2^3 - 1) en vez de 255, que entran en la cache de sentencias.
+     */
+    private static Set<CredencialAcceso.Campo> columnasUpdate(Set<CredencialAcceso.Campo> cambios) {
+        Set<CredencialAcceso.Campo> columnas = EnumSet.noneOf(CredencialAcceso.Campo.class);
+        for (Set<CredencialAcceso.Campo> grupo : GRUPOS_UPDATE) {
+            if (!Collections.disjoint(grupo, cambios)) columnas.addAll(grupo);
+        }
+        return columnas;
     }
 
     /**
@@ -223,9 +422,8 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public Optional<CredencialAcceso> findByUsuarioId(Long usuarioId) throws SQLException {
-        final String sql = "SELECT * FROM credencial_acceso WHERE usuario_id = ? AND eliminado = FALSE";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getPrimaryReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_USUARIO_ID)) {
 
             ps.setLong(1, usuarioId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -235,6 +433,127 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
         return Optional.empty();
     }
 
+    /**
+     * Busco las credenciales de varios usuarios en bloques de como mucho
+     * inChunkSize IDs por consulta, reutilizando una única Connection.
+     */
+    @Override
+    public Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds) throws SQLException {
+        Map<Long, CredencialAcceso> out = new HashMap<>();
+        List<List<Long>> bloques = InClause.bloques(usuarioIds, inChunkSize);
+        if (bloques.isEmpty()) return out;
+
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            for (List<Long> bloque : bloques) {
+                int n = InClause.parametros(bloque.size(), inChunkSize);
+                String sql = String.format(SQL_FIND_BY_USUARIO_IDS, InClause.marcadores(n));
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < n; i++) {
+                        // Relleno los lugares que sobran repitiendo el último ID
+                        ps.setLong(i + 1, bloque.get(Math.min(i, bloque.size() - 1)));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            CredencialAcceso c = mapRow(rs);
+                            out.put(c.getUsuarioId(), c);
+                        }
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Página de credenciales con Connection propia.
+     */
+    @Override
+    public Pagina<CredencialAcceso> findPage(Long afterId, int limit) throws SQLException {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return findPage(afterId, limit, conn);
+        }
+    }
+
+    /**
+     * Página de credenciales con Connection externa.
+     * Pido limit + 1 filas para saber si existe una página siguiente.
+     */
+    @Override
+    public Pagina<CredencialAcceso> findPage(Long afterId, int limit, Connection conn) throws SQLException {
+        limit = Pagina.limiteValido(limit);
+        List<CredencialAcceso> out = new ArrayList<>(limit);
+        boolean hayMas = false;
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_PAGE)) {
+            ps.setLong(1, afterId != null ? afterId : 0L);
+            ps.setInt(2, limit + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (out.size() == limit) {
+                        hayMas = true;
+                        break;
+                    }
+                    out.add(mapRow(rs));
+                }
+            }
+        }
+        Long cursor = hayMas ? out.get(out.size() - 1).getIdCredencial() : null;
+        return new Pagina<>(out, cursor);
+    }
+
+    /**
+     * Página de resúmenes de credenciales para los listados: misma
+     * paginación que findPage, pero sin traer hash ni salt.
+     */
+    @Override
+    public Pagina<CredencialResumen> findResumenPage(Long afterId, int limit) throws SQLException {
+        limit = Pagina.limiteValido(limit);
+        List<CredencialResumen> out = new ArrayList<>(limit);
+        boolean hayMas = false;
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_RESUMEN_PAGE)) {
+            ps.setLong(1, afterId != null ? afterId : 0L);
+            ps.setInt(2, limit + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (out.size() == limit) {
+                        hayMas = true;
+                        break;
+                    }
+                    out.add(new CredencialResumen(
+                            rs.getLong(1),
+                            rs.getLong(2),
+                            Estado.from(rs.getString(3)),
+                            rs.getObject(4, LocalDateTime.class),
+                            rs.getBoolean(5)));
+                }
+            }
+        }
+        Long cursor = hayMas ? out.get(out.size() - 1).idCredencial() : null;
+        return new Pagina<>(out, cursor);
+    }
+
+    /**
+     * Traigo solo lo necesario para verificar la contraseña de un usuario
+     * (id, hash y salt), sin el resto de la credencial.
+     */
+    @Override
+    public Optional<CredencialAuth> findAuthByUsuarioId(Long usuarioId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getPrimaryReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_AUTH_BY_USUARIO_ID)) {
+            ps.setLong(1, usuarioId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new CredencialAuth(
+                            rs.getLong(1),
+                            rs.getLong(2),
+                            rs.getString(3),
+                            rs.getString(4)));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
     /**
      * Actualizo el password de forma "segura" llamando a un stored procedure:
      * sp_actualizar_password_seguro.
@@ -262,33 +581,148 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
         }
     }
 
+    /**
+     * Regenero el hash con el algoritmo/costo actual después de un login.
+     * El WHERE por hash anterior hace que, si justo cambiaron la contraseña,
+     * no la pise.
+     */
+    @Override
+    public boolean rehashPassword(Long usuarioId, String hashAnterior, String nuevoHash, String nuevoSalt) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return rehashPassword(usuarioId, hashAnterior, nuevoHash, nuevoSalt, conn);
+        }
+    }
+
+    public boolean rehashPassword(Long usuarioId, String hashAnterior, String nuevoHash, String nuevoSalt, Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_REHASH)) {
+            ps.setString(1, nuevoHash);
+            ps.setString(2, nuevoSalt);
+            ps.setLong(3, usuarioId);
+            ps.setString(4, hashAnterior);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Actualizo muchas últimas sesiones juntas: un executeBatch cada
+     * batchSize filas y un único commit al final.
+     */
+    @Override
+    public int updateUltimasSesiones(Map<Long, LocalDateTime> ultimasSesiones) throws SQLException {
+        if (ultimasSesiones.isEmpty()) return 0;
+        return TransactionManager.inTransaction(conn -> updateUltimasSesiones(ultimasSesiones, conn));
+    }
+
+    public int updateUltimasSesiones(Map<Long, LocalDateTime> ultimasSesiones, Connection conn) throws SQLException {
+        int filas = 0;
+        try (PreparedStatement ps = conn.prepareStatement(SQL_UPDATE_ULTIMA_SESION_SI_MAYOR)) {
+            int enLote = 0;
+            for (Map.Entry<Long, LocalDateTime> e : ultimasSesiones.entrySet()) {
+                Timestamp ts = Timestamp.valueOf(e.getValue());
+                ps.setTimestamp(1, ts);
+                ps.setLong(2, e.getKey());
+                ps.setTimestamp(3, ts);
+                ps.addBatch();
+                if (++enLote == batchSize) {
+                    filas += contarFilas(ps.executeBatch());
+                    enLote = 0;
+                }
+            }
+            if (enLote > 0) filas += contarFilas(ps.executeBatch());
+        }
+        return filas;
+    }
+
     // ======================================================
     // MÉTODOS AUXILIARES
     // ======================================================
 
+    /**
+     * Sumo las filas afectadas de un executeBatch. Con rewriteBatchedStatements
+     * el driver puede devolver SUCCESS_NO_INFO; esas no las cuento.
+     */
+    private static int contarFilas(int[] resultados) {
+        int total = 0;
+        for (int r : resultados) {
+            if (r > 0) total += r;
+        }
+        return total;
+    }
+
     /**
      * Convierto una fila del ResultSet en un objeto CredencialAcceso.
      * 
-     * Acá mapeo cada columna de la tabla a su campo correspondiente en la entidad.
+     * Acá mapeo cada columna de la tabla a su campo correspondiente en la entidad,
+     * leyendo por posición (en el orden de COLS) y las fechas directo
+     * como LocalDateTime.
      */
-    private CredencialAcceso mapRow(ResultSet rs) throws SQLException {
+    private static CredencialAcceso mapRow(ResultSet rs) throws SQLException {
         CredencialAcceso c = new CredencialAcceso();
-        c.setIdCredencial(rs.getLong("id_credencial"));
-        c.setEliminado(rs.getBoolean("eliminado"));
-        c.setUsuarioId(rs.getLong("usuario_id"));
-        c.setEstado(Estado.from(rs.getString("estado")));
+        c.setIdCredencial(rs.getLong(1));
+        c.setEliminado(rs.getBoolean(2));
+        c.setUsuarioId(rs.getLong(3));
+        c.setEstado(Estado.from(rs.getString(4)));
+        c.setUltimaSesion(rs.getObject(5, LocalDateTime.class));
+        c.setHashPassword(rs.getString(6));
+        c.setSalt(rs.getString(7));
+        c.setUltimoCambio(rs.getObject(8, LocalDateTime.class));
+        c.setRequiereReset(rs.getBoolean(9));
+        c.marcarLimpio(); // recién leída: coincide con la fila
+        return c;
+    }
 
-        Timestamp tsUlt = rs.getTimestamp("ultima_sesion");
-        if (tsUlt != null) c.setUltimaSesion(tsUlt.toLocalDateTime());
 
-        c.setHashPassword(rs.getString("hash_password"));
-        c.setSalt(rs.getString("salt"));
+    // Grupos de columnas que se escriben juntas en un UPDATE: la contraseña (hash,
+    // salt, cuándo cambió y si hay que resetearla), el estado y la última sesión
+    private static final List<Set<CredencialAcceso.Campo>> GRUPOS_UPDATE = List.of(
+            EnumSet.of(CredencialAcceso.Campo.HASH_PASSWORD, CredencialAcceso.Campo.SALT,
+                    CredencialAcceso.Campo.ULTIMO_CAMBIO, CredencialAcceso.Campo.REQUIERE_RESET),
+            EnumSet.of(CredencialAcceso.Campo.ELIMINADO, CredencialAcceso.Campo.USUARIO_ID,
+                    CredencialAcceso.Campo.ESTADO),
+            EnumSet.of(CredencialAcceso.Campo.ULTIMA_SESION));
+
+    /** Columna de credencial_acceso para cada campo actualizable. */
+    private static String columna(CredencialAcceso.Campo campo) {
+        switch (campo) {
+            case ELIMINADO:      return "eliminado";
+            case USUARIO_ID:     return "usuario_id";
+            case ESTADO:         return "estado";
+            case ULTIMA_SESION:  return "ultima_sesion";
+            case HASH_PASSWORD:  return "hash_password";
+            case SALT:           return "salt";
+            case ULTIMO_CAMBIO:  return "ultimo_cambio";
+            case REQUIERE_RESET: return "requiere_reset";
+            default: throw new IllegalArgumentException("Campo no soportado: " + campo);
+        }
+    }
 
-        Timestamp tsCambio = rs.getTimestamp("ultimo_cambio");
-        if (tsCambio != null) c.setUltimoCambio(tsCambio.toLocalDateTime());
+    private void bindCampo(PreparedStatement ps, int i, CredencialAcceso c, CredencialAcceso.Campo campo)
+            throws SQLException {
+        switch (campo) {
+            case ELIMINADO:      ps.setBoolean(i, c.isEliminado()); break;
+            case USUARIO_ID:     ps.setLong(i, c.getUsuarioId()); break;
+            case ESTADO:         ps.setString(i, c.getEstado().name()); break;
+            case ULTIMA_SESION:  setNullableTimestamp(ps, i, c.getUltimaSesion()); break;
+            case HASH_PASSWORD:  ps.setString(i, c.getHashPassword()); break;
+            case SALT:           ps.setString(i, c.getSalt()); break;
+            case ULTIMO_CAMBIO:  setNullableTimestamp(ps, i, c.getUltimoCambio()); break;
+            case REQUIERE_RESET: ps.setBoolean(i, c.isRequiereReset()); break;
+            default: throw new IllegalArgumentException("Campo no soportado: " + campo);
+        }
+    }
 
-        c.setRequiereReset(rs.getBoolean("requiere_reset"));
-        return c;
+    /**
+     * Cargo los parámetros del INSERT (los comparten create y createAll).
+     */
+    private void bindInsert(PreparedStatement ps, CredencialAcceso c) throws SQLException {
+        ps.setBoolean(1, c.isEliminado());
+        ps.setLong(2, c.getUsuarioId());
+        ps.setString(3, c.getEstado().name());
+        setNullableTimestamp(ps, 4, c.getUltimaSesion());
+        ps.setString(5, c.getHashPassword());
+        ps.setString(6, c.getSalt());
+        setNullableTimestamp(ps, 7, c.getUltimoCambio());
+        ps.setBoolean(8, c.isRequiereReset());
     }
 
     /**
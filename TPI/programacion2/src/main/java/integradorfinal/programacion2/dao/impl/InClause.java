@@ -0,0 +1,53 @@
+package integradorfinal.programacion2.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Helper para armar consultas {@code WHERE col IN (?, ?, ...)} por bloques.
+ *
+ * Para no generar un SQL distinto por cada cantidad de IDs (y así
+ * aprovechar la cache de sentencias del pool), redondeo cada bloque a la
+ * siguiente potencia de 2 y relleno los lugares sobrantes repitiendo el
+ * último ID. Con un tope de 512, por ejemplo, hay como mucho 10 formas de SQL.
+ */
+final class InClause {
+
+    private InClause() {}
+
+    /**
+     * Saco nulos y repetidos y parto los IDs en bloques de como mucho maxBloque.
+     */
+    static List<List<Long>> bloques(Collection<Long> ids, int maxBloque) {
+        List<Long> unicos = new ArrayList<>(new LinkedHashSet<>(ids));
+        unicos.removeIf(id -> id == null);
+
+        List<List<Long>> out = new ArrayList<>();
+        for (int desde = 0; desde < unicos.size(); desde += maxBloque) {
+            out.add(unicos.subList(desde, Math.min(desde + maxBloque, unicos.size())));
+        }
+        return out;
+    }
+
+    /**
+     * Cantidad de parámetros que uso para un bloque de n IDs: la siguiente
+     * potencia de 2, sin pasarme del máximo.
+     */
+    static int parametros(int n, int maxBloque) {
+        int p = Integer.highestOneBit(n);
+        if (p < n) p <<= 1;
+        return Math.min(p, maxBloque);
+    }
+
+    /** Arma "?, ?, ..., ?" con la cantidad de marcadores pedida. */
+    static String marcadores(int cantidad) {
+        StringBuilder sb = new StringBuilder(cantidad * 3);
+        for (int i = 0; i < cantidad; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package integradorfinal.programacion2.dao.impl;
+
+import integradorfinal.programacion2.exceptions.DataAccessException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Helper para leer una consulta como Stream sin cargar todas las filas en memoria.
+ *
+ * Uso el modo streaming del driver de MySQL (sentencia TYPE_FORWARD_ONLY /
+ * CONCUR_READ_ONLY con fetchSize = Integer.MIN_VALUE): el servidor manda las
+ * filas de a una y yo las mapeo a medida que el Stream las consume. Con
+ * otros drivers (H2 en los tests) ese valor es inválido, así que ahí pido
+ * las filas de a FILAS_POR_LECTURA.
+ *
+ * Importante:
+ * - El Stream hay que cerrarlo (try-with-resources). Al cerrarlo cierro el
+ *   ResultSet, la sentencia y, si corresponde, la conexión. Igual los libero
+ *   apenas se terminan las filas o el mapper falla, sin esperar al close.
+ * - Mientras el Stream está abierto, la conexión no se puede usar para otra consulta.
+ * - Mientras está abierto también ocupa una conexión del pool: si el que lo
+ *   consume llama a otros DAO, cada llamada pide una conexión más. Con muchos
+ *   hilos haciendo eso a la vez el pool se puede agotar.
+ */
+final class ResultSetStream {
+
+    // Filas por viaje cuando el driver no es MySQL
+    private static final int FILAS_POR_LECTURA = 500;
+
+    private ResultSetStream() {}
+
+    /**
+     * Ejecuto la consulta y devuelvo sus filas como un Stream perezoso.
+     *
+     * @param conn           conexión sobre la que corre la consulta
+     * @param cerrarConexion true si al cerrar el Stream también hay que cerrar la conexión
+     * @param sql            consulta sin parámetros
+     * @param mapper         cómo convertir cada fila en entidad
+     */
+    static <T> Stream<T> abrir(Connection conn, boolean cerrarConexion, String sql,
+                               RowMapper<T> mapper) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(esMySql(conn) ? Integer.MIN_VALUE : FILAS_POR_LECTURA);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            cerrar(rs, ps, cerrarConexion ? conn : null);
+            throw e;
+        }
+
+        final ResultSet filas = rs;
+        // Puede correr dos veces (al agotarse o fallar, y después en el close del Stream)
+        final PreparedStatement sentencia = ps;
+        final AtomicBoolean cerrado = new AtomicBoolean();
+        final Runnable cierre = () -> {
+            if (cerrado.compareAndSet(false, true)) {
+                cerrar(filas, sentencia, cerrarConexion ? conn : null);
+            }
+        };
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (cerrado.get()) return false;
+                T fila;
+                try {
+                    if (!filas.next()) {
+                        cierre.run();
+                        return false;
+                    }
+                    fila = mapper.map(filas);
+                } catch (SQLException e) {
+                    cierre.run();
+                    throw new DataAccessException("Error leyendo filas en streaming", e);
+                } catch (RuntimeException e) {
+                    cierre.run();
+                    throw e;
+                }
+                action.accept(fila);
+                return true;
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false)
+                .onClose(cierre);
+    }
+
+    private static boolean esMySql(Connection conn) throws SQLException {
+        return "MySQL".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName());
+    }
+
+    private static void cerrar(ResultSet rs, PreparedStatement ps, Connection conn) {
+        try {
+            if (rs != null) rs.close();
+        } catch (SQLException ignore) {
+        }
+        try {
+            if (ps != null) ps.close();
+        } catch (SQLException ignore) {
+        }
+        try {
+            if (conn != null) conn.close();
+        } catch (SQLException ignore) {
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package integradorfinal.programacion2.dao.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Convierte la fila actual de un ResultSet en una entidad.
+ * Lo usan los DAO para pasarle su mapRow a los helpers de lectura.
+ *
+ * @param <T> tipo de entidad que se arma con la fila
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+
+    T map(ResultSet rs) throws SQLException;
+}
@@ -1,7 +1,12 @@
 package integradorfinal.programacion2.dao.impl;
 
+import integradorfinal.programacion2.config.Config;
 import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.config.TransactionManager;
+import integradorfinal.programacion2.dao.Pagina;
 import integradorfinal.programacion2.dao.UsuarioDao;
+import integradorfinal.programacion2.dao.UsuarioResumen;
+import integradorfinal.programacion2.entities.CredencialAcceso;
 import integradorfinal.programacion2.entities.Estado;
 import integradorfinal.programacion2.entities.Usuario;
 import integradorfinal.programacion2.exceptions.DataAccessException;
@@ -9,8 +14,16 @@ import integradorfinal.programacion2.exceptions.DataAccessException;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementación JDBC del DAO de Usuario.
@@ -20,11 +33,107 @@ import java.util.Optional;
  * algunas búsquedas específicas por username y por email.
  *
  * También separo claramente:
- * - Métodos que se manejan solos (crean/cierra su propia Connection).
+ * - Métodos que se manejan solos (crean/cierra su propia Connection). Si se
+ *   llaman dentro de TransactionManager.inTransaction, usan la conexión de
+ *   esa transacción en vez de pedir otra.
  * - Métodos que reciben una Connection externa para usarse dentro de transacciones.
+ *
+ * Las lecturas con Connection propia piden DatabaseConnection.getReadConnection()
+ * (pueden ir a una réplica); las escrituras siempre van al primario. Las que
+ * traen la credencial (hash incluido) van siempre al primario.
  */
 public class UsuarioDaoImpl implements UsuarioDao {
 
+    private static final String SQL_INSERT = """
+        INSERT INTO usuario (eliminado, username, nombre, apellido, email,
+                             fecha_registro, activo, estado)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    // Columnas que lee mapRow, en vez de SELECT *: si la tabla suma columnas, no viajan de más.
+    // mapRow las lee por posición en este orden (1 = id_usuario, ..., 9 = estado); todas las
+    // consultas las listan así, y el JOIN con la credencial agrega las suyas desde la 10
+    private static final String[] COLS = {
+        "id_usuario", "eliminado", "username", "nombre", "apellido", "email", "fecha_registro", "activo", "estado"
+    };
+    static final String COLUMNAS = String.join(", ", COLS);
+
+    private static final String[] COLS_RESUMEN = {"id_usuario", "username", "estado"};
+
+    private static final String SQL_FIND_ALL =
+        "SELECT " + COLUMNAS + " FROM usuario WHERE eliminado = FALSE ORDER BY id_usuario";
+
+    private static final String SQL_FIND_BY_ID =
+        "SELECT " + COLUMNAS + " FROM usuario WHERE id_usuario = ? AND eliminado = FALSE";
+
+    private static final String SQL_FIND_BY_USERNAME =
+        "SELECT " + COLUMNAS + " FROM usuario WHERE username = ? AND eliminado = FALSE";
+
+    private static final String SQL_FIND_BY_EMAIL =
+        "SELECT " + COLUMNAS + " FROM usuario WHERE email = ? AND eliminado = FALSE";
+
+    // Usuario + credencial en una sola consulta. Las columnas de la credencial
+    // que chocan de nombre con las de usuario (eliminado, estado) van con alias.
+    private static final String SQL_SELECT_CON_CREDENCIAL = """
+        SELECT u.id_usuario, u.eliminado, u.username, u.nombre, u.apellido, u.email,
+               u.fecha_registro, u.activo, u.estado,
+               c.id_credencial, c.eliminado AS cred_eliminado, c.usuario_id,
+               c.estado AS cred_estado, c.ultima_sesion, c.hash_password, c.salt,
+               c.ultimo_cambio, c.requiere_reset
+          FROM usuario u
+          LEFT JOIN credencial_acceso c
+            ON c.usuario_id = u.id_usuario AND c.eliminado = FALSE
+        """;
+
+    private static final String SQL_FIND_BY_USERNAME_CON_CREDENCIAL =
+        SQL_SELECT_CON_CREDENCIAL + " WHERE u.username = ? AND u.eliminado = FALSE";
+
+    private static final String SQL_FIND_BY_ID_CON_CREDENCIAL =
+        SQL_SELECT_CON_CREDENCIAL + " WHERE u.id_usuario = ? AND u.eliminado = FALSE";
+
+    private static final String SQL_FIND_PAGE =
+        "SELECT " + COLUMNAS + " FROM usuario WHERE eliminado = FALSE AND id_usuario > ? ORDER BY id_usuario LIMIT ?";
+
+    // Listados: solo lo que se muestra
+    private static final String SQL_FIND_RESUMEN_PAGE =
+        "SELECT " + String.join(", ", COLS_RESUMEN) + " FROM usuario" +
+        " WHERE eliminado = FALSE AND id_usuario > ? ORDER BY id_usuario LIMIT ?";
+
+    private static final String SQL_FIND_BY_IDS =
+        "SELECT " + COLUMNAS + " FROM usuario WHERE eliminado = FALSE AND id_usuario IN (%s)";
+
+    // Filas por executeBatch() en createAll
+    private final int batchSize;
+
+    // Máximo de IDs por consulta en findByIds
+    private final int inChunkSize;
+
+    /**
+     * Constructor por defecto: tomo los tamaños de lote de Config.
+     */
+    public UsuarioDaoImpl() {
+        this(Config.DAO_BATCH_SIZE, Config.DAO_IN_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor alternativo para elegir otro tamaño de lote en las altas masivas.
+     */
+    public UsuarioDaoImpl(int batchSize) {
+        this(batchSize, Config.DAO_IN_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor completo: tamaño de lote de las altas masivas y máximo
+     * de IDs por consulta IN (...).
+     */
+    public UsuarioDaoImpl(int batchSize, int inChunkSize) {
+        if (batchSize < 1 || inChunkSize < 1) {
+            throw new IllegalArgumentException("Los tamaños de lote deben ser al menos 1");
+        }
+        this.batchSize = batchSize;
+        this.inChunkSize = inChunkSize;
+    }
+
     // ================================
     // Métodos CRUD básicos
     // ================================
@@ -47,25 +156,8 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public Long create(Usuario usuario, Connection conn) throws SQLException {
-        String sql = """
-            INSERT INTO usuario (eliminado, username, nombre, apellido, email,
-                                 fecha_registro, activo, estado)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setBoolean(1, usuario.isEliminado());
-            ps.setString(2, usuario.getUsername());
-            ps.setString(3, usuario.getNombre());
-            ps.setString(4, usuario.getApellido());
-            ps.setString(5, usuario.getEmail());
-            // Si por alguna razón no viene fecha de registro, uso la fecha/hora actual.
-            ps.setTimestamp(6, Timestamp.valueOf(
-                    usuario.getFechaRegistro() != null ? usuario.getFechaRegistro() : LocalDateTime.now()
-            ));
-            ps.setBoolean(7, usuario.isActivo());
-            // Acá uso el valor que corresponde a cómo lo guardo en la BD (dbValue).
-            ps.setString(8, usuario.getEstado().dbValue());
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(ps, usuario);
             ps.executeUpdate();
 
             // Recupero la clave primaria autogenerada y la guardo en el objeto.
@@ -73,6 +165,9 @@ public class UsuarioDaoImpl implements UsuarioDao {
                 if (rs.next()) {
                     long id = rs.getLong(1);
                     usuario.setIdUsuario(id);
+                    usuario.marcarLimpio();
+                    // Si la transacción se revierte, la fila no existe: vuelve a estar sin guardar
+                    TransactionManager.alDeshacer(() -> usuario.marcarPendientes(null));
                     return id;
                 } else {
                     throw new SQLException("No se obtuvo la clave generada para usuario");
@@ -81,13 +176,64 @@ public class UsuarioDaoImpl implements UsuarioDao {
         }
     }
 
+    /**
+     * Alta masiva de usuarios con una Connection propia.
+     * Todo el alta va en una sola transacción: o entran todos o no entra ninguno.
+     * Si ya hay una transacción abierta, me sumo a ella.
+     */
+    @Override
+    public List<Long> createAll(List<Usuario> usuarios) throws SQLException {
+        return TransactionManager.inTransaction(conn -> createAll(usuarios, conn));
+    }
+
+    /**
+     * Alta masiva recibiendo la Connection desde afuera.
+     *
+     * Voy acumulando filas con addBatch() y cada batchSize filas hago un
+     * executeBatch(). Después de cada lote leo las claves generadas y se las
+     * asigno a los usuarios de ese lote, en el mismo orden en que los agregué.
+     */
+    @Override
+    public List<Long> createAll(List<Usuario> usuarios, Connection conn) throws SQLException {
+        List<Long> ids = new ArrayList<>(usuarios.size());
+        if (usuarios.isEmpty()) return ids;
+
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            int inicioLote = 0;
+            for (int i = 0; i < usuarios.size(); i++) {
+                bindInsert(ps, usuarios.get(i));
+                ps.addBatch();
+
+                boolean finDeLote = (i + 1 - inicioLote) == batchSize || i == usuarios.size() - 1;
+                if (finDeLote) {
+                    ps.executeBatch();
+                    List<Usuario> lote = usuarios.subList(inicioLote, i + 1);
+                    TransactionManager.alDeshacer(() -> lote.forEach(u -> u.marcarPendientes(null)));
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        for (int j = inicioLote; j <= i; j++) {
+                            if (!rs.next()) {
+                                throw new SQLException("No se obtuvieron todas las claves generadas del lote de usuarios");
+                            }
+                            long id = rs.getLong(1);
+                            usuarios.get(j).setIdUsuario(id);
+                            usuarios.get(j).marcarLimpio();
+                            ids.add(id);
+                        }
+                    }
+                    inicioLote = i + 1;
+                }
+            }
+        }
+        return ids;
+    }
+
     /**
      * Busco un usuario por ID usando una Connection propia.
      * Si algo falla, lo envuelvo en un DataAccessException para tener un error más de "capa DAO".
      */
     @Override
     public Optional<Usuario> findById(Long id) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
             return findById(id, conn);
         } catch (SQLException e) {
             throw new DataAccessException("Error al buscar usuario por id=" + id, e);
@@ -100,8 +246,7 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public Optional<Usuario> findById(Long id, Connection conn) throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE id_usuario = ? AND eliminado = FALSE";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_ID)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return Optional.of(mapRow(rs));
@@ -115,7 +260,7 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public List<Usuario> findAll() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
             return findAll(conn);
         } catch (SQLException e) {
             throw new DataAccessException("Error al listar usuarios", e);
@@ -128,8 +273,7 @@ public class UsuarioDaoImpl implements UsuarioDao {
     @Override
     public List<Usuario> findAll(Connection conn) throws SQLException {
         List<Usuario> lista = new ArrayList<>();
-        String sql = "SELECT * FROM usuario WHERE eliminado = FALSE ORDER BY id_usuario";
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_ALL);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) lista.add(mapRow(rs));
         }
@@ -137,37 +281,92 @@ public class UsuarioDaoImpl implements UsuarioDao {
     }
 
     /**
-     * Actualizo un usuario completo usando Connection propia.
+     * Recorro los usuarios en streaming con una Connection propia.
+     * La conexión vuelve al pool cuando se cierra el Stream.
+     */
+    @Override
+    public Stream<Usuario> stream() throws SQLException {
+        Connection conn = DatabaseConnection.getReadConnection();
+        return ResultSetStream.abrir(conn, true, SQL_FIND_ALL, UsuarioDaoImpl::mapRow);
+    }
+
+    /**
+     * Versión en streaming que recibe Connection (no la cierra).
+     */
+    @Override
+    public Stream<Usuario> stream(Connection conn) throws SQLException {
+        return ResultSetStream.abrir(conn, false, SQL_FIND_ALL, UsuarioDaoImpl::mapRow);
+    }
+
+    /**
+     * Aplico la acción a cada usuario sin armar la lista completa en memoria.
+     */
+    @Override
+    public void forEach(Consumer<? super Usuario> action) throws SQLException {
+        try (Stream<Usuario> usuarios = stream()) {
+            usuarios.forEach(action);
+        }
+    }
+
+    /**
+     * Actualizo un usuario usando Connection propia.
      * Delego en la versión con Connection para reutilizar la lógica.
+     * Si no cambió nada, ni siquiera pido una conexión.
      */
     @Override
     public void update(Usuario usuario) throws SQLException {
+        if (!usuario.hayCambios()) return;
         try (Connection conn = DatabaseConnection.getConnection()) {
             update(usuario, conn);
         }
     }
 
     /**
-     * Versión que recibe Connection para actualizar todos los datos del usuario.
+     * Versión que recibe Connection para actualizar el usuario.
+     *
+     * Escribo solo los grupos de columnas que cambiaron desde que se leyó
+     * (Usuario.getCambios(), ver GRUPOS_UPDATE): si solo cambió activo, no
+     * toco username ni email y sus índices únicos quedan como estaban. Si no
+     * cambió nada, no mando ninguna sentencia. Un usuario armado a mano (no
+     * leído de la base) se escribe completo.
+     *
+     * Si la transacción termina en rollback, lo escrito vuelve a quedar pendiente.
      */
     @Override
     public void update(Usuario usuario, Connection conn) throws SQLException {
-        String sql = """
-            UPDATE usuario
-            SET username=?, nombre=?, apellido=?, email=?, activo=?, estado=?, eliminado=?
-            WHERE id_usuario=?
-            """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, usuario.getUsername());
-            ps.setString(2, usuario.getNombre());
-            ps.setString(3, usuario.getApellido());
-            ps.setString(4, usuario.getEmail());
-            ps.setBoolean(5, usuario.isActivo());
-            ps.setString(6, usuario.getEstado().dbValue());
-            ps.setBoolean(7, usuario.isEliminado());
-            ps.setLong(8, usuario.getIdUsuario());
+        Set<Usuario.Campo> columnas = columnasUpdate(usuario.getCambios());
+        if (columnas.isEmpty()) return;
+
+        StringBuilder sql = new StringBuilder("UPDATE usuario SET ");
+        for (Usuario.Campo campo : columnas) {
+            sql.append(columna(campo)).append("=?, ");
+        }
+        sql.setLength(sql.length() - 2);
+        sql.append(" WHERE id_usuario=?");
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            for (Usuario.Campo campo : columnas) {
+                bindCampo(ps, i++, usuario, campo);
+            }
+            ps.setLong(i, usuario.getIdUsuario());
             ps.executeUpdate();
         }
+        usuario.marcarLimpio();
+        TransactionManager.alDeshacer(() -> usuario.marcarPendientes(columnas));
+    }
+
+    /**
+     * Completo los cambios con el resto de su grupo. Así el UPDATE tiene
+     * como mucho 7 formas distintas (2^3 - 1) en vez de 127, y todas entran
+     * en la cache de sentencias de cada conexión.
+     */
+    private static Set<Usuario.Campo> columnasUpdate(Set<Usuario.Campo> cambios) {
+        Set<Usuario.Campo> columnas = EnumSet.noneOf(Usuario.Campo.class);
+        for (Set<Usuario.Campo> grupo : GRUPOS_UPDATE) {
+            if (!Collections.disjoint(grupo, cambios)) columnas.addAll(grupo);
+        }
+        return columnas;
     }
 
     /**
@@ -228,9 +427,8 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public Optional<Usuario> findByUsername(String username) throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE username = ? AND eliminado = FALSE";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_USERNAME)) {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return Optional.of(mapRow(rs));
@@ -245,9 +443,8 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public Optional<Usuario> findByEmail(String email) throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE email = ? AND eliminado = FALSE";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_EMAIL)) {
             ps.setString(1, email);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return Optional.of(mapRow(rs));
@@ -256,28 +453,241 @@ public class UsuarioDaoImpl implements UsuarioDao {
         return Optional.empty();
     }
 
+    /**
+     * Busco varios usuarios por ID en bloques de como mucho inChunkSize IDs,
+     * todos sobre la misma Connection.
+     */
+    @Override
+    public Map<Long, Usuario> findByIds(Collection<Long> ids) throws SQLException {
+        Map<Long, Usuario> out = new HashMap<>();
+        List<List<Long>> bloques = InClause.bloques(ids, inChunkSize);
+        if (bloques.isEmpty()) return out;
+
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            for (List<Long> bloque : bloques) {
+                int n = InClause.parametros(bloque.size(), inChunkSize);
+                String sql = String.format(SQL_FIND_BY_IDS, InClause.marcadores(n));
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < n; i++) {
+                        // Relleno los lugares que sobran repitiendo el último ID
+                        ps.setLong(i + 1, bloque.get(Math.min(i, bloque.size() - 1)));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Usuario u = mapRow(rs);
+                            out.put(u.getIdUsuario(), u);
+                        }
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Busco un usuario por username junto con su credencial, en un único
+     * round trip a la base (LEFT JOIN con credencial_acceso).
+     */
+    @Override
+    public Optional<Usuario> findByUsernameWithCredencial(String username) throws SQLException {
+        try (Connection conn = DatabaseConnection.getPrimaryReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_USERNAME_CON_CREDENCIAL)) {
+            ps.setString(1, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapRowConCredencial(rs));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Busco un usuario por ID junto con su credencial, en una sola consulta.
+     */
+    @Override
+    public Optional<Usuario> findByIdWithCredencial(Long id) throws SQLException {
+        try (Connection conn = DatabaseConnection.getPrimaryReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_ID_CON_CREDENCIAL)) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapRowConCredencial(rs));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Página de usuarios con Connection propia.
+     */
+    @Override
+    public Pagina<Usuario> findPage(Long afterId, int limit) throws SQLException {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return findPage(afterId, limit, conn);
+        }
+    }
+
+    /**
+     * Página de usuarios con Connection externa.
+     *
+     * Pido una fila de más (limit + 1): si viene, sé que hay otra página
+     * sin tener que hacer un COUNT aparte.
+     */
+    @Override
+    public Pagina<Usuario> findPage(Long afterId, int limit, Connection conn) throws SQLException {
+        limit = Pagina.limiteValido(limit);
+        List<Usuario> lista = new ArrayList<>(limit);
+        boolean hayMas = false;
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_PAGE)) {
+            ps.setLong(1, afterId != null ? afterId : 0L);
+            ps.setInt(2, limit + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (lista.size() == limit) {
+                        hayMas = true;
+                        break;
+                    }
+                    lista.add(mapRow(rs));
+                }
+            }
+        }
+        Long cursor = hayMas ? lista.get(lista.size() - 1).getIdUsuario() : null;
+        return new Pagina<>(lista, cursor);
+    }
+
+    /**
+     * Página de resúmenes (id, username, estado) para los listados, con la
+     * misma paginación por clave que findPage.
+     */
+    @Override
+    public Pagina<UsuarioResumen> findResumenPage(Long afterId, int limit) throws SQLException {
+        limit = Pagina.limiteValido(limit);
+        List<UsuarioResumen> lista = new ArrayList<>(limit);
+        boolean hayMas = false;
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_RESUMEN_PAGE)) {
+            ps.setLong(1, afterId != null ? afterId : 0L);
+            ps.setInt(2, limit + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (lista.size() == limit) {
+                        hayMas = true;
+                        break;
+                    }
+                    lista.add(new UsuarioResumen(
+                            rs.getLong(1),
+                            rs.getString(2),
+                            Estado.from(rs.getString(3))));
+                }
+            }
+        }
+        Long cursor = hayMas ? lista.get(lista.size() - 1).idUsuario() : null;
+        return new Pagina<>(lista, cursor);
+    }
+
     // ================================
-    // Helper: mapea un ResultSet a Usuario
+    // Helpers
     // ================================
 
+    /**
+     * Cargo los parámetros del INSERT (los comparten create y createAll).
+     */
+    private void bindInsert(PreparedStatement ps, Usuario usuario) throws SQLException {
+        ps.setBoolean(1, usuario.isEliminado());
+        ps.setString(2, usuario.getUsername());
+        ps.setString(3, usuario.getNombre());
+        ps.setString(4, usuario.getApellido());
+        ps.setString(5, usuario.getEmail());
+        // Si por alguna razón no viene fecha de registro, uso la fecha/hora actual.
+        ps.setTimestamp(6, Timestamp.valueOf(
+                usuario.getFechaRegistro() != null ? usuario.getFechaRegistro() : LocalDateTime.now()
+        ));
+        ps.setBoolean(7, usuario.isActivo());
+        // Acá uso el valor que corresponde a cómo lo guardo en la BD (dbValue).
+        ps.setString(8, usuario.getEstado().dbValue());
+    }
+
+    // Grupos de columnas que se escriben juntas en un UPDATE: identidad (con índice
+    // único), datos personales y estado
+    private static final List<Set<Usuario.Campo>> GRUPOS_UPDATE = List.of(
+            EnumSet.of(Usuario.Campo.USERNAME, Usuario.Campo.EMAIL),
+            EnumSet.of(Usuario.Campo.NOMBRE, Usuario.Campo.APELLIDO),
+            EnumSet.of(Usuario.Campo.ACTIVO, Usuario.Campo.ESTADO, Usuario.Campo.ELIMINADO));
+
+    /** Columna de la tabla usuario para cada campo actualizable. */
+    private static String columna(Usuario.Campo campo) {
+        switch (campo) {
+            case USERNAME:  return "username";
+            case NOMBRE:    return "nombre";
+            case APELLIDO:  return "apellido";
+            case EMAIL:     return "email";
+            case ACTIVO:    return "activo";
+            case ESTADO:    return "estado";
+            case ELIMINADO: return "eliminado";
+            default: throw new IllegalArgumentException("Campo no soportado: " + campo);
+        }
+    }
+
+    private static void bindCampo(PreparedStatement ps, int i, Usuario u, Usuario.Campo campo) throws SQLException {
+        switch (campo) {
+            case USERNAME:  ps.setString(i, u.getUsername()); break;
+            case NOMBRE:    ps.setString(i, u.getNombre()); break;
+            case APELLIDO:  ps.setString(i, u.getApellido()); break;
+            case EMAIL:     ps.setString(i, u.getEmail()); break;
+            case ACTIVO:    ps.setBoolean(i, u.isActivo()); break;
+            case ESTADO:    ps.setString(i, u.getEstado().dbValue()); break;
+            case ELIMINADO: ps.setBoolean(i, u.isEliminado()); break;
+            default: throw new IllegalArgumentException("Campo no soportado: " + campo);
+        }
+    }
+
     /**
      * Convierto una fila del ResultSet en un objeto Usuario.
-     * Acá hago el mapeo campo a campo de las columnas de la tabla a mi entidad.
+     * Leo por posición (en el orden de COLS) en vez de por nombre, y las
+     * fechas directo como LocalDateTime, sin pasar por Timestamp.
+     * (Visible en el paquete para el benchmark de mapeo de los tests.)
      */
-    private Usuario mapRow(ResultSet rs) throws SQLException {
+    static Usuario mapRow(ResultSet rs) throws SQLException {
         Usuario u = new Usuario();
-        u.setIdUsuario(rs.getLong("id_usuario"));
-        u.setEliminado(rs.getBoolean("eliminado"));
-        u.setUsername(rs.getString("username"));
-        u.setNombre(rs.getString("nombre"));
-        u.setApellido(rs.getString("apellido"));
-        u.setEmail(rs.getString("email"));
-
-        Timestamp ts = rs.getTimestamp("fecha_registro");
-        if (ts != null) u.setFechaRegistro(ts.toLocalDateTime());
-
-        u.setActivo(rs.getBoolean("activo"));
-        u.setEstado(Estado.from(rs.getString("estado")));
+        u.setIdUsuario(rs.getLong(1));
+        u.setEliminado(rs.getBoolean(2));
+        u.setUsername(rs.getString(3));
+        u.setNombre(rs.getString(4));
+        u.setApellido(rs.getString(5));
+        u.setEmail(rs.getString(6));
+        u.setFechaRegistro(rs.getObject(7, LocalDateTime.class));
+        u.setActivo(rs.getBoolean(8));
+        u.setEstado(Estado.from(rs.getString(9)));
+        u.marcarLimpio(); // recién leído: coincide con la fila
         return u;
     }
+
+    /**
+     * Convierto una fila del JOIN usuario + credencial_acceso en un Usuario
+     * con su credencial cargada. Si el LEFT JOIN no encontró credencial,
+     * id_credencial viene NULL y dejo la credencial en null.
+     */
+    private static Usuario mapRowConCredencial(ResultSet rs) throws SQLException {
+        Usuario u = mapRow(rs);
+
+        long idCredencial = rs.getLong(10);
+        if (rs.wasNull()) return u;
+
+        CredencialAcceso c = new CredencialAcceso();
+        c.setIdCredencial(idCredencial);
+        c.setEliminado(rs.getBoolean(11));
+        c.setUsuarioId(rs.getLong(12));
+        c.setEstado(Estado.from(rs.getString(13)));
+        c.setUltimaSesion(rs.getObject(14, LocalDateTime.class));
+        c.setHashPassword(rs.getString(15));
+        c.setSalt(rs.getString(16));
+        c.setUltimoCambio(rs.getObject(17, LocalDateTime.class));
+        c.setRequiereReset(rs.getBoolean(18));
+        c.marcarLimpio();
+        u.setCredencial(c);
+        return u;
+    }
+
 }
@@ -1,18 +1,30 @@
 package integradorfinal.programacion2.entities;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Esta clase representa exactamente una fila de la tabla `credencial_acceso`.
  * 
  * La uso como un simple “contenedor de datos” (POJO/JavaBean). No tiene lógica,
  * solo almacena los valores que leo de la base o que voy a guardar.
+ * Además recuerdo qué campos cambiaron desde que se leyó o se guardó (ver
+ * {@link #getCambios()}), así el UPDATE no reescribe el hash ni el salt si
+ * no se tocaron.
  * 
  * Cada credencial está ligada a un usuario mediante una relación 1:1.
  * El campo `usuarioId` es la FK contra usuario.id_usuario.
  */
 public class CredencialAcceso {
 
+    /** Campos que se pueden actualizar (cada uno es una columna del UPDATE). */
+    public enum Campo {
+        ELIMINADO, USUARIO_ID, ESTADO, ULTIMA_SESION, HASH_PASSWORD, SALT, ULTIMO_CAMBIO, REQUIERE_RESET
+    }
+
     // Identificador único de la credencial (PK)
     private Long idCredencial;
 
@@ -40,6 +52,9 @@ public class CredencialAcceso {
     // Indica si el usuario debe cambiar la contraseña en el próximo login
     private boolean requiereReset;
 
+    // Campos cambiados desde que se leyó o se guardó. null = no viene de la base
+    // (lo armé a mano), así que no sé qué cambió y el UPDATE escribe todo.
+    private Set<Campo> cambios;
 
     // --- Constructores ---
 
@@ -70,29 +85,94 @@ public class CredencialAcceso {
     public void setIdCredencial(Long idCredencial) { this.idCredencial = idCredencial; }
 
     public boolean isEliminado() { return eliminado; }
-    public void setEliminado(boolean eliminado) { this.eliminado = eliminado; }
+    public void setEliminado(boolean eliminado) {
+        if (this.eliminado != eliminado) marcar(Campo.ELIMINADO);
+        this.eliminado = eliminado;
+    }
 
     public Long getUsuarioId() { return usuarioId; }
-    public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+    public void setUsuarioId(Long usuarioId) {
+        if (!Objects.equals(this.usuarioId, usuarioId)) marcar(Campo.USUARIO_ID);
+        this.usuarioId = usuarioId;
+    }
 
     public Estado getEstado() { return estado; }
-    public void setEstado(Estado estado) { this.estado = estado; }
+    public void setEstado(Estado estado) {
+        if (this.estado != estado) marcar(Campo.ESTADO);
+        this.estado = estado;
+    }
 
     public LocalDateTime getUltimaSesion() { return ultimaSesion; }
-    public void setUltimaSesion(LocalDateTime ultimaSesion) { this.ultimaSesion = ultimaSesion; }
+    public void setUltimaSesion(LocalDateTime ultimaSesion) {
+        if (!Objects.equals(this.ultimaSesion, ultimaSesion)) marcar(Campo.ULTIMA_SESION);
+        this.ultimaSesion = ultimaSesion;
+    }
 
     public String getHashPassword() { return hashPassword; }
-    public void setHashPassword(String hashPassword) { this.hashPassword = hashPassword; }
+    public void setHashPassword(String hashPassword) {
+        if (!Objects.equals(this.hashPassword, hashPassword)) marcar(Campo.HASH_PASSWORD);
+        this.hashPassword = hashPassword;
+    }
 
     public String getSalt() { return salt; }
-    public void setSalt(String salt) { this.salt = salt; }
+    public void setSalt(String salt) {
+        if (!Objects.equals(this.salt, salt)) marcar(Campo.SALT);
+        this.salt = salt;
+    }
 
     public LocalDateTime getUltimoCambio() { return ultimoCambio; }
-    public void setUltimoCambio(LocalDateTime ultimoCambio) { this.ultimoCambio = ultimoCambio; }
+    public void setUltimoCambio(LocalDateTime ultimoCambio) {
+        if (!Objects.equals(this.ultimoCambio, ultimoCambio)) marcar(Campo.ULTIMO_CAMBIO);
+        this.ultimoCambio = ultimoCambio;
+    }
 
     public boolean isRequiereReset() { return requiereReset; }
-    public void setRequiereReset(boolean requiereReset) { this.requiereReset = requiereReset; }
+    public void setRequiereReset(boolean requiereReset) {
+        if (this.requiereReset != requiereReset) marcar(Campo.REQUIERE_RESET);
+        this.requiereReset = requiereReset;
+    }
+
+
+    // --- Cambios pendientes ---
+
+    /**
+     * Campos modificados desde la última vez que la credencial coincidió con su fila
+     * (al leerlo o guardarlo). Si no viene de la base, devuelvo todos.
+     */
+    public Set<Campo> getCambios() {
+        return cambios == null ? EnumSet.allOf(Campo.class) : Collections.unmodifiableSet(cambios);
+    }
+
+    /** true si hay algo para escribir en un UPDATE. */
+    public boolean hayCambios() {
+        return cambios == null || !cambios.isEmpty();
+    }
+
+    /** Lo llama el DAO cuando la credencial coincide con su fila (recién leído o guardado). */
+    public void marcarLimpio() {
+        if (cambios == null) {
+            cambios = EnumSet.noneOf(Campo.class);
+        } else {
+            cambios.clear();
+        }
+    }
+
+    /**
+     * Deshago un marcarLimpio() cuya escritura terminó en rollback: los
+     * campos vuelven a quedar pendientes. Con null (se había insertado)
+     * vuelve a escribirse completo, como si no viniera de la base.
+     */
+    public void marcarPendientes(Set<Campo> campos) {
+        if (campos == null) {
+            cambios = null;
+        } else if (cambios != null) {
+            cambios.addAll(campos);
+        }
+    }
 
+    private void marcar(Campo campo) {
+        if (cambios != null) cambios.add(campo);
+    }
 
     // --- toString ---
     /**
@@ -8,12 +8,25 @@ public enum Estado {
     ACTIVO,
     INACTIVO;
 
+    // Copia única de values() (cada llamada a values() arma un array nuevo)
+    private static final Estado[] VALORES = values();
+
     /**
      * Convierte un texto a enum, devolviendo ACTIVO si es nulo.
+     *
+     * Se llama una vez por fila leída, así que no armo strings: comparo
+     * contra los nombres tal como los guarda la base y, si no coincide,
+     * sin distinguir mayúsculas.
      */
-        public static Estado from(String valor) {
+    public static Estado from(String valor) {
         if (valor == null) return ACTIVO;
-        return Estado.valueOf(valor.toUpperCase());
+        for (Estado e : VALORES) {
+            if (e.name().equals(valor)) return e;
+        }
+        for (Estado e : VALORES) {
+            if (e.name().equalsIgnoreCase(valor)) return e;
+        }
+        throw new IllegalArgumentException("Estado desconocido: " + valor);
     }
 
     /**
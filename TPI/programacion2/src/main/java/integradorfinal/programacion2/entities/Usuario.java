@@ -1,18 +1,31 @@
 package integradorfinal.programacion2.entities;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Esta clase representa una fila de la tabla `usuario`.
  * 
  * La uso como contenedor de datos (POJO), sin lógica, para poder mover valores
  * entre la base de datos, los servicios y el menú.
+ *
+ * Lo único extra es que recuerdo qué campos cambiaron desde que el usuario se
+ * leyó o se guardó (ver {@link #getCambios()}), para que el UPDATE escriba
+ * solo esas columnas.
  * 
  * Además, cada Usuario puede tener asociada una CredencialAcceso en una
  * relación 1:1, lo cual reflejo con el atributo `credencial`.
  */
 public class Usuario {
 
+    /** Campos que se pueden actualizar (cada uno es una columna del UPDATE). */
+    public enum Campo {
+        USERNAME, NOMBRE, APELLIDO, EMAIL, ACTIVO, ESTADO, ELIMINADO
+    }
+
     // Identificador del usuario (PK de la tabla)
     private Long idUsuario;
 
@@ -41,6 +54,9 @@ public class Usuario {
     // Relación 1:1 → cada usuario puede tener exactamente una credencial
     private CredencialAcceso credencial;
 
+    // Campos cambiados desde que se leyó o se guardó. null = no viene de la base
+    // (lo armé a mano), así que no sé qué cambió y el UPDATE escribe todo.
+    private Set<Campo> cambios;
 
     // --- Constructores ---
 
@@ -72,32 +88,94 @@ public class Usuario {
     public void setIdUsuario(Long idUsuario) { this.idUsuario = idUsuario; }
 
     public boolean isEliminado() { return eliminado; }
-    public void setEliminado(boolean eliminado) { this.eliminado = eliminado; }
+    public void setEliminado(boolean eliminado) {
+        if (this.eliminado != eliminado) marcar(Campo.ELIMINADO);
+        this.eliminado = eliminado;
+    }
 
     public String getUsername() { return username; }
-    public void setUsername(String username) { this.username = username; }
+    public void setUsername(String username) {
+        if (!Objects.equals(this.username, username)) marcar(Campo.USERNAME);
+        this.username = username;
+    }
 
     public String getNombre() { return nombre; }
-    public void setNombre(String nombre) { this.nombre = nombre; }
+    public void setNombre(String nombre) {
+        if (!Objects.equals(this.nombre, nombre)) marcar(Campo.NOMBRE);
+        this.nombre = nombre;
+    }
 
     public String getApellido() { return apellido; }
-    public void setApellido(String apellido) { this.apellido = apellido; }
+    public void setApellido(String apellido) {
+        if (!Objects.equals(this.apellido, apellido)) marcar(Campo.APELLIDO);
+        this.apellido = apellido;
+    }
 
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) {
+        if (!Objects.equals(this.email, email)) marcar(Campo.EMAIL);
+        this.email = email;
+    }
 
     public LocalDateTime getFechaRegistro() { return fechaRegistro; }
     public void setFechaRegistro(LocalDateTime fechaRegistro) { this.fechaRegistro = fechaRegistro; }
 
     public boolean isActivo() { return activo; }
-    public void setActivo(boolean activo) { this.activo = activo; }
+    public void setActivo(boolean activo) {
+        if (this.activo != activo) marcar(Campo.ACTIVO);
+        this.activo = activo;
+    }
 
     public Estado getEstado() { return estado; }
-    public void setEstado(Estado estado) { this.estado = estado; }
+    public void setEstado(Estado estado) {
+        if (this.estado != estado) marcar(Campo.ESTADO);
+        this.estado = estado;
+    }
 
     public CredencialAcceso getCredencial() { return credencial; }
     public void setCredencial(CredencialAcceso credencial) { this.credencial = credencial; }
 
+    // --- Cambios pendientes ---
+
+    /**
+     * Campos modificados desde la última vez que el usuario coincidió con su fila
+     * (al leerlo o guardarlo). Si no viene de la base, devuelvo todos.
+     */
+    public Set<Campo> getCambios() {
+        return cambios == null ? EnumSet.allOf(Campo.class) : Collections.unmodifiableSet(cambios);
+    }
+
+    /** true si hay algo para escribir en un UPDATE. */
+    public boolean hayCambios() {
+        return cambios == null || !cambios.isEmpty();
+    }
+
+    /** Lo llama el DAO cuando el usuario coincide con su fila (recién leído o guardado). */
+    public void marcarLimpio() {
+        if (cambios == null) {
+            cambios = EnumSet.noneOf(Campo.class);
+        } else {
+            cambios.clear();
+        }
+    }
+
+    /**
+     * Deshago un marcarLimpio() cuya escritura terminó en rollback: los
+     * campos vuelven a quedar pendientes. Con null (se había insertado)
+     * vuelve a escribirse completo, como si no viniera de la base.
+     */
+    public void marcarPendientes(Set<Campo> campos) {
+        if (campos == null) {
+            cambios = null;
+        } else if (cambios != null) {
+            cambios.addAll(campos);
+        }
+    }
+
+    private void marcar(Campo campo) {
+        if (cambios != null) cambios.add(campo);
+    }
+
     // --- toString ---
 
     /**
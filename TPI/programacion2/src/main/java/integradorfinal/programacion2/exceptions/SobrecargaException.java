@@ -0,0 +1,18 @@
+package integradorfinal.programacion2.exceptions;
+
+/**
+ * Excepción unchecked para cuando rechazo trabajo por sobrecarga
+ * (cola llena, tiempo de espera agotado, demasiados intentos).
+ * La idea es que la capa superior pueda distinguirla de un error real
+ * y responder "probá más tarde" en vez de "falló".
+ */
+public class SobrecargaException extends RuntimeException {
+
+    public SobrecargaException(String message) {
+        super(message);
+    }
+
+    public SobrecargaException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,75 @@
+package integradorfinal.programacion2.service;
+
+import integradorfinal.programacion2.dao.Pagina;
+import integradorfinal.programacion2.entities.Usuario;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona del servicio de Usuario: cada método devuelve enseguida
+ * un CompletableFuture y la consulta corre en otro hilo.
+ *
+ * Los futures se completan con el resultado, con la excepción del servicio
+ * (SQLException, IllegalArgumentException...), con TimeoutException si se
+ * vence el timeout, o con CancellationException si se cancelan. Cancelar (o
+ * vencer) una llamada corta también la consulta que esté corriendo en la base.
+ * Ojo: cancelar un future derivado (thenApply, thenCombine...) no cancela el
+ * original.
+ */
+public interface AsyncUsuarioService {
+
+    /** Operación cualquiera del servicio sincrónico, para correrla con su propio timeout. */
+    @FunctionalInterface
+    interface Operacion<T> {
+        T ejecutar(UsuarioService servicio) throws Exception;
+    }
+
+    /**
+     * Resultado de {@link #verificarDisponibilidad(String, String)}.
+     *
+     * @param usernameLibre true si nadie usa el username
+     * @param emailLibre    true si nadie usa el email
+     */
+    record Disponibilidad(boolean usernameLibre, boolean emailLibre) {
+
+        public boolean isLibre() {
+            return usernameLibre && emailLibre;
+        }
+    }
+
+    CompletableFuture<Optional<Usuario>> findById(Long id);
+
+    CompletableFuture<Optional<Usuario>> findByUsername(String username);
+
+    CompletableFuture<Optional<Usuario>> findByEmail(String email);
+
+    CompletableFuture<Map<Long, Usuario>> findByIds(Collection<Long> ids);
+
+    CompletableFuture<Optional<Usuario>> findByUsernameWithCredencial(String username);
+
+    CompletableFuture<Pagina<Usuario>> findPage(Long afterId, int limit);
+
+    CompletableFuture<Long> createUsuarioConCredencial(Usuario usuario);
+
+    CompletableFuture<Void> update(Usuario usuario);
+
+    CompletableFuture<Void> softDeleteById(Long id);
+
+    /**
+     * Verifico username y email a la vez (dos consultas en paralelo) antes de
+     * un alta.
+     */
+    CompletableFuture<Disponibilidad> verificarDisponibilidad(String username, String email);
+
+    /**
+     * Corro cualquier operación del servicio con un timeout propio.
+     *
+     * @param operacion qué hacer con el servicio sincrónico
+     * @param timeout   tiempo máximo de la llamada
+     */
+    <T> CompletableFuture<T> ejecutar(Operacion<T> operacion, Duration timeout);
+}
@@ -0,0 +1,69 @@
+package integradorfinal.programacion2.service;
+
+import integradorfinal.programacion2.service.sesion.Sesion;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Servicio de autenticación.
+ *
+ * Saca el login del menú de consola para que lo pueda usar cualquier front.
+ */
+public interface AuthService extends AutoCloseable {
+
+    /**
+     * Valida username y contraseña.
+     *
+     * Si el login es correcto, la fecha de última sesión se escribe en forma
+     * diferida y en lote (no demora la respuesta) y el resultado trae una
+     * sesión con su token.
+     *
+     * @param username nombre de usuario
+     * @param password contraseña en texto plano
+     * @return resultado tipado del intento
+     * @throws SQLException error de base de datos al buscar el usuario
+     */
+    ResultadoLogin login(String username, String password) throws SQLException;
+
+    /**
+     * Igual que {@link #login(String, String)}, indicando además el origen
+     * del intento (IP, terminal...) para limitar intentos también por origen.
+     *
+     * @param origen origen del intento (puede ser null)
+     */
+    ResultadoLogin login(String username, String password, String origen) throws SQLException;
+
+    /**
+     * Valida un token de sesión en memoria: sin consultas ni hash.
+     *
+     * @return la sesión si sigue vigente
+     */
+    Optional<Sesion> validarSesion(String token);
+
+    /**
+     * Cierra la sesión del token.
+     *
+     * @return true si la sesión existía
+     */
+    boolean logout(String token);
+
+    /**
+     * Vuelve a pedir la contraseña del usuario de una sesión abierta (antes
+     * de una operación sensible). Solo lee hash y salt de la credencial y
+     * respeta el mismo límite de intentos que el login.
+     *
+     * @param token    token de la sesión
+     * @param password contraseña en texto plano
+     * @return true si la sesión sigue vigente y la contraseña es correcta
+     * @throws SQLException error de base de datos al leer la credencial
+     */
+    boolean confirmarPassword(String token, String password) throws SQLException;
+
+    /**
+     * Escribe las últimas sesiones pendientes, espera el trabajo en segundo
+     * plano y libera los hilos del servicio.
+     */
+    @Override
+    void close();
+}
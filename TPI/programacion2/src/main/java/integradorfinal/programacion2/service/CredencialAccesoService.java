@@ -1,8 +1,13 @@
 package integradorfinal.programacion2.service;
 
+import integradorfinal.programacion2.dao.CredencialAuth;
+import integradorfinal.programacion2.dao.CredencialResumen;
+import integradorfinal.programacion2.dao.Pagina;
 import integradorfinal.programacion2.entities.CredencialAcceso;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -20,6 +25,45 @@ public interface CredencialAccesoService extends GenericService<CredencialAcceso
      */
     Optional<CredencialAcceso> findByUsuarioId(Long usuarioId) throws SQLException;
 
+    /**
+     * Obtiene las credenciales de varios usuarios de una sola vez.
+     *
+     * @param usuarioIds IDs de usuario
+     * @return mapa usuarioId → credencial
+     * @throws SQLException error de base de datos
+     */
+    Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds) throws SQLException;
+
+    /**
+     * Lista credenciales de a páginas usando el ID como cursor.
+     *
+     * @param afterId último ID de la página anterior (null para la primera)
+     * @param limit   tamaño de página
+     * @return la página y el cursor de la siguiente
+     * @throws SQLException error de base de datos
+     */
+    Pagina<CredencialAcceso> findPage(Long afterId, int limit) throws SQLException;
+
+    /**
+     * Lista credenciales de a páginas sin traer hash ni salt (para listados).
+     *
+     * @param afterId último ID de la página anterior (null para la primera)
+     * @param limit   tamaño de página
+     * @return la página de resúmenes y el cursor de la siguiente
+     * @throws SQLException error de base de datos
+     */
+    Pagina<CredencialResumen> findResumenPage(Long afterId, int limit) throws SQLException;
+
+    /**
+     * Obtiene solo id, hash y salt de la credencial de un usuario, para
+     * verificar una contraseña. No pasa por la cache de credenciales.
+     *
+     * @param usuarioId ID del usuario
+     * @return Optional con hash y salt si tiene credencial
+     * @throws SQLException error de base de datos
+     */
+    Optional<CredencialAuth> findAuthByUsuarioId(Long usuarioId) throws SQLException;
+
     /**
      * Actualiza de forma segura el hash y el salt de la contraseña,
      * idealmente llamando al procedimiento almacenado
@@ -31,4 +75,15 @@ public interface CredencialAccesoService extends GenericService<CredencialAcceso
      * @throws SQLException error de base de datos
      */
     void updatePasswordSeguro(Long usuarioId, String nuevoHash, String nuevoSalt) throws SQLException;
+
+    /**
+     * Después de un login exitoso, regenera el hash de la contraseña si fue
+     * generado con otro algoritmo o con otro costo que el configurado hoy.
+     *
+     * @param cred          credencial que se acaba de validar
+     * @param passwordPlano contraseña ingresada (ya validada)
+     * @return true si se regeneró el hash
+     * @throws SQLException error de base de datos
+     */
+    boolean rehashSiHaceFalta(CredencialAcceso cred, String passwordPlano) throws SQLException;
 }
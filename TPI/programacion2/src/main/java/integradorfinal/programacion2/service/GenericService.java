@@ -3,12 +3,19 @@ package integradorfinal.programacion2.service;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Interfaz genérica para la capa de servicio.
  * Envuelve las operaciones CRUD de los DAO
  * y permite aplicar reglas de negocio adicionales.
  *
+ * Las implementaciones son seguras para usar desde varios hilos: cada
+ * operación (y cada transacción) corre sobre su propia conexión del pool, y
+ * las caches devuelven copias, no las entidades compartidas. Las entidades
+ * que se pasan o se reciben no son thread-safe: son de quien las usa.
+ *
  * @param <T>  tipo de entidad (p.ej., Usuario)
  * @param <ID> tipo del identificador (p.ej., Long)
  */
@@ -20,6 +27,16 @@ public interface GenericService<T, ID> {
 
     List<T> findAll() throws SQLException;
 
+    /**
+     * Lectura en streaming (memoria constante). El Stream debe cerrarse.
+     */
+    Stream<T> stream() throws SQLException;
+
+    /**
+     * Recorre todas las entidades de a una, sin cargarlas todas en memoria.
+     */
+    void forEach(Consumer<? super T> action) throws SQLException;
+
     void update(T entity) throws SQLException;
 
     void softDeleteById(ID id) throws SQLException;
@@ -0,0 +1,73 @@
+package integradorfinal.programacion2.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de un alta masiva de usuarios con credencial.
+ *
+ * Guardo un ítem por cada usuario recibido, en el mismo orden de la lista
+ * original, indicando si se creó (con su ID) o por qué falló.
+ */
+public class ResultadoAltaMasiva {
+
+    /**
+     * Resultado de un usuario puntual dentro del alta masiva.
+     *
+     * @param indice    posición del usuario en la lista recibida
+     * @param username  username del usuario (para identificarlo en el reporte)
+     * @param idUsuario ID generado si se creó, null si falló
+     * @param error     motivo del fallo, null si se creó
+     */
+    public record Item(int indice, String username, Long idUsuario, String error) {
+
+        public boolean isOk() {
+            return error == null;
+        }
+    }
+
+    private final List<Item> items;
+
+    public ResultadoAltaMasiva(int total) {
+        this.items = new ArrayList<>(Collections.nCopies(total, null));
+    }
+
+    public void registrarExito(int indice, String username, Long idUsuario) {
+        items.set(indice, new Item(indice, username, idUsuario, null));
+    }
+
+    public void registrarFallo(int indice, String username, String error) {
+        items.set(indice, new Item(indice, username, null, error));
+    }
+
+    /** Todos los ítems, en el orden de la lista original. */
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    public List<Item> getFallos() {
+        return items.stream().filter(i -> i != null && !i.isOk()).toList();
+    }
+
+    public int getTotal() {
+        return items.size();
+    }
+
+    public int getExitosos() {
+        return (int) items.stream().filter(i -> i != null && i.isOk()).count();
+    }
+
+    public int getFallidos() {
+        return getTotal() - getExitosos();
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoAltaMasiva{" +
+                "total=" + getTotal() +
+                ", exitosos=" + getExitosos() +
+                ", fallidos=" + getFallidos() +
+                '}';
+    }
+}
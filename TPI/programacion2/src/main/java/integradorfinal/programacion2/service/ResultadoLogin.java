@@ -0,0 +1,94 @@
+package integradorfinal.programacion2.service;
+
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.sesion.Sesion;
+
+import java.util.Optional;
+
+/**
+ * Resultado de un intento de login.
+ *
+ * En vez de imprimir mensajes (como hacía el menú), devuelvo un tipo que
+ * cualquier front (consola, web, etc.) puede interpretar a su manera.
+ * El usuario solo viene cuando la contraseña fue validada, y la sesión
+ * (con su token) solo cuando el login fue OK.
+ *
+ * El usuario que entrego es una copia SIN la credencial: el login la lee
+ * para validar, pero hash y salt no tienen por qué llegar al front.
+ */
+public final class ResultadoLogin {
+
+    public enum Tipo {
+        /** Credenciales válidas, usuario y credencial activos. */
+        OK,
+        /** No existe el usuario (o no tiene credencial). */
+        USUARIO_DESCONOCIDO,
+        /** La contraseña no coincide. */
+        PASSWORD_INCORRECTA,
+        /** Contraseña válida, pero la credencial exige cambiarla antes de entrar. */
+        REQUIERE_RESET,
+        /** Contraseña válida, pero el usuario o la credencial están inactivos. */
+        INACTIVO,
+        /** Rechazado por el limitador de intentos, sin consultar la base. */
+        DEMASIADOS_INTENTOS
+    }
+
+    private final Tipo tipo;
+    private final Usuario usuario;
+    private final Sesion sesion;
+
+    private ResultadoLogin(Tipo tipo, Usuario usuario, Sesion sesion) {
+        this.tipo = tipo;
+        this.usuario = usuario == null ? null : sinCredencial(usuario);
+        this.sesion = sesion;
+    }
+
+    public static ResultadoLogin ok(Usuario usuario, Sesion sesion) {
+        return new ResultadoLogin(Tipo.OK, usuario, sesion);
+    }
+
+    public static ResultadoLogin de(Tipo tipo) {
+        return new ResultadoLogin(tipo, null, null);
+    }
+
+    public static ResultadoLogin de(Tipo tipo, Usuario usuario) {
+        return new ResultadoLogin(tipo, usuario, null);
+    }
+
+    // Copia con los mismos datos y cambios pendientes, pero sin la credencial
+    private static Usuario sinCredencial(Usuario u) {
+        Usuario copia = new Usuario(u.getIdUsuario(), u.isEliminado(), u.getUsername(),
+                u.getNombre(), u.getApellido(), u.getEmail(),
+                u.getFechaRegistro(), u.isActivo(), u.getEstado());
+        copia.marcarLimpio();
+        copia.marcarPendientes(u.getCambios());
+        return copia;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public boolean isOk() {
+        return tipo == Tipo.OK;
+    }
+
+    /** Usuario autenticado, sin su credencial (solo si la contraseña fue correcta). */
+    public Optional<Usuario> getUsuario() {
+        return Optional.ofNullable(usuario);
+    }
+
+    /** Sesión emitida (solo si el login fue OK). */
+    public Optional<Sesion> getSesion() {
+        return Optional.ofNullable(sesion);
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoLogin{" +
+                "tipo=" + tipo +
+                ", usuario=" + (usuario != null ? usuario.getUsername() : null) +
+                ", sesion=" + sesion +
+                '}';
+    }
+}
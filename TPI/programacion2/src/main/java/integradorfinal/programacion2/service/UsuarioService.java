@@ -1,8 +1,13 @@
 package integradorfinal.programacion2.service;
 
+import integradorfinal.programacion2.dao.Pagina;
+import integradorfinal.programacion2.dao.UsuarioResumen;
 import integradorfinal.programacion2.entities.Usuario;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -29,6 +34,55 @@ public interface UsuarioService extends GenericService<Usuario, Long> {
      */
     Optional<Usuario> findByEmail(String email) throws SQLException;
 
+    /**
+     * Busca varios usuarios por ID de una sola vez.
+     *
+     * @param ids IDs a buscar
+     * @return mapa ID → usuario (los que no existen no aparecen)
+     * @throws SQLException si ocurre un error de base de datos
+     */
+    Map<Long, Usuario> findByIds(Collection<Long> ids) throws SQLException;
+
+    /**
+     * Busca un usuario por username con su credencial ya cargada,
+     * usando una única consulta a la base.
+     *
+     * @param username nombre de usuario
+     * @return Optional con el usuario y su credencial (si tiene)
+     * @throws SQLException si ocurre un error de base de datos
+     */
+    Optional<Usuario> findByUsernameWithCredencial(String username) throws SQLException;
+
+    /**
+     * Busca un usuario por ID con su credencial ya cargada,
+     * usando una única consulta a la base.
+     *
+     * @param id ID del usuario
+     * @return Optional con el usuario y su credencial (si tiene)
+     * @throws SQLException si ocurre un error de base de datos
+     */
+    Optional<Usuario> findByIdWithCredencial(Long id) throws SQLException;
+
+    /**
+     * Lista usuarios de a páginas usando el ID como cursor.
+     *
+     * @param afterId último ID de la página anterior (null para la primera)
+     * @param limit   tamaño de página
+     * @return la página y el cursor de la siguiente
+     * @throws SQLException si ocurre un error de base de datos
+     */
+    Pagina<Usuario> findPage(Long afterId, int limit) throws SQLException;
+
+    /**
+     * Lista usuarios de a páginas trayendo solo id, username y estado.
+     *
+     * @param afterId último ID de la página anterior (null para la primera)
+     * @param limit   tamaño de página
+     * @return la página de resúmenes y el cursor de la siguiente
+     * @throws SQLException si ocurre un error de base de datos
+     */
+    Pagina<UsuarioResumen> findResumenPage(Long afterId, int limit) throws SQLException;
+
     /**
      * Caso de uso típico del integrador:
      * crear un Usuario y su Credencial en una única transacción.
@@ -40,6 +94,27 @@ public interface UsuarioService extends GenericService<Usuario, Long> {
      * @throws SQLException si ocurre un error de base de datos
      */
     Long createUsuarioConCredencial(Usuario usuario) throws SQLException;
+
+    /**
+     * Alta masiva de usuarios con su credencial.
+     * Valida y hashea todo el lote primero y después inserta por bloques
+     * (usuarios y credenciales con inserts en lote), haciendo un commit por bloque.
+     * Usa el tamaño de bloque configurado en Config.
+     *
+     * @param usuarios usuarios a crear, cada uno con su credencial (password en texto plano)
+     * @return reporte con el resultado de cada usuario
+     */
+    ResultadoAltaMasiva createUsuariosConCredencial(List<Usuario> usuarios);
+
+    /**
+     * Igual que {@link #createUsuariosConCredencial(List)} pero eligiendo
+     * cuántos usuarios van en cada transacción.
+     *
+     * @param usuarios  usuarios a crear, cada uno con su credencial
+     * @param chunkSize cantidad de usuarios por commit
+     * @return reporte con el resultado de cada usuario
+     */
+    ResultadoAltaMasiva createUsuariosConCredencial(List<Usuario> usuarios, int chunkSize);
     
     /**
      * Demo de rollback: crea un usuario de prueba y fuerza un error
@@ -0,0 +1,244 @@
+package integradorfinal.programacion2.service.cache;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.entities.CredencialAcceso;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de credenciales indexada por usuarioId, pensada para el login:
+ * con la credencial en cache, validar el hash/salt no necesita ir a la base.
+ *
+ * Es acotada (por tamaño, en orden de carga, + vida máxima por entrada) y
+ * segura para varios hilos sin un lock global: igual que {@link UsuarioCache},
+ * todo cambio de una entrada pasa por un compute sobre su usuarioId. Además
+ * del índice principal guardo id_credencial → usuarioId, porque las bajas del
+ * servicio de credenciales llegan por el ID de la credencial.
+ *
+ * Lo más importante: nunca devolver un hash viejo después de un cambio de
+ * contraseña. Cada invalidación anota su generación para ese usuario y
+ * guardar() descarta cualquier lectura de ese usuario que haya empezado
+ * antes (ver {@link Generaciones}).
+ */
+public final class CredencialCache {
+
+    private static volatile CredencialCache compartida;
+
+    private final int maxSize;
+    private final long ttlNs;
+
+    private final ConcurrentHashMap<Long, Entrada> porUsuarioId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> usuarioPorCredencial = new ConcurrentHashMap<>();
+
+    // Entradas en orden de carga, para el desalojo por tamaño (ver UsuarioCache)
+    private final ConcurrentLinkedQueue<Entrada> orden = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger enOrden = new AtomicInteger();
+
+    private final Generaciones generaciones;
+
+    // Métricas
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    /**
+     * @param maxSize cantidad máxima de credenciales en cache (0 la desactiva)
+     * @param ttlMs   tiempo de vida de cada entrada en milisegundos
+     */
+    public CredencialCache(int maxSize, long ttlMs) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNs = ttlMs * 1_000_000L;
+        this.generaciones = new Generaciones(this.maxSize);
+    }
+
+    /**
+     * Cache compartida por los servicios de usuario y de credencial, así las
+     * invalidaciones que hace uno (por ejemplo, un cambio de estado del
+     * usuario) las ve el otro.
+     */
+    public static CredencialCache compartida() {
+        CredencialCache c = compartida;
+        if (c == null) {
+            synchronized (CredencialCache.class) {
+                c = compartida;
+                if (c == null) {
+                    c = new CredencialCache(Config.CACHE_CREDENCIALES_MAX_SIZE, Config.CACHE_CREDENCIALES_TTL_MS);
+                    compartida = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    // ======================================================
+    // LECTURA
+    // ======================================================
+
+    public Optional<CredencialAcceso> porUsuarioId(Long usuarioId) {
+        Entrada e = usuarioId == null ? null : porUsuarioId.get(usuarioId);
+        if (e == null) {
+            fallos.increment();
+            return Optional.empty();
+        }
+        if (System.nanoTime() - e.cargadaEn > ttlNs) {
+            if (quitarSiEs(e)) desalojos.increment();
+            fallos.increment();
+            return Optional.empty();
+        }
+        aciertos.increment();
+        return Optional.of(copiar(e.credencial));
+    }
+
+    // ======================================================
+    // ESCRITURA
+    // ======================================================
+
+    /** Generación actual; leerla ANTES de ir a la base y pasarla a guardar(). */
+    public long generacion() {
+        return generaciones.actual();
+    }
+
+    /**
+     * Guardo la credencial leída de la base, salvo que la de ese usuario se
+     * haya invalidado desde que se leyó la generación.
+     */
+    public void guardar(CredencialAcceso c, long generacionLeida) {
+        if (maxSize == 0 || c == null || c.getUsuarioId() == null) {
+            return;
+        }
+        CredencialAcceso copia = copiar(c);
+        Entrada nueva = new Entrada(copia, System.nanoTime());
+        Entrada guardada = porUsuarioId.compute(copia.getUsuarioId(), (usuarioId, actual) -> {
+            if (generaciones.invalidadaDespues(usuarioId, generacionLeida)) return actual;
+            if (actual != null) quitarIndice(actual.credencial);
+            if (copia.getIdCredencial() != null) usuarioPorCredencial.put(copia.getIdCredencial(), usuarioId);
+            return nueva;
+        });
+        if (guardada == nueva) {
+            orden.offer(nueva);
+            enOrden.incrementAndGet();
+            desalojar();
+        }
+    }
+
+    /**
+     * Actualizo la última sesión de la credencial cacheada (si está), sin
+     * invalidarla: es un dato informativo y no cambia nada de la validación
+     * del login, así no pierdo la entrada en cada login. Reemplazo la entrada
+     * por una copia en vez de tocar la que pueden estar copiando otros hilos.
+     */
+    public void actualizarUltimaSesion(Long usuarioId, LocalDateTime ultimaSesion) {
+        if (usuarioId == null) return;
+        porUsuarioId.computeIfPresent(usuarioId, (k, actual) -> {
+            CredencialAcceso copia = copiar(actual.credencial);
+            copia.setUltimaSesion(ultimaSesion);
+            copia.marcarLimpio();
+            return new Entrada(copia, actual.cargadaEn);
+        });
+    }
+
+    /** Saco de la cache la credencial de un usuario. */
+    public void invalidarUsuario(Long usuarioId) {
+        invalidaciones.increment();
+        if (usuarioId == null) return;
+        porUsuarioId.compute(usuarioId, (k, actual) -> {
+            generaciones.invalidar(k);
+            if (actual != null) quitarIndice(actual.credencial);
+            return null;
+        });
+        generaciones.podarSiHaceFalta();
+    }
+
+    /**
+     * Saco de la cache una credencial a partir de su propio ID. Si no está en
+     * cache no sé de qué usuario es, así que descarto todas las cargas en
+     * curso (puede haber una de esa credencial).
+     */
+    public void invalidarCredencial(Long idCredencial) {
+        Long usuarioId = idCredencial == null ? null : usuarioPorCredencial.get(idCredencial);
+        if (usuarioId != null) {
+            invalidarUsuario(usuarioId);
+            return;
+        }
+        invalidaciones.increment();
+        generaciones.invalidarTodo();
+    }
+
+    /** Vacío la cache completa. */
+    public void limpiar() {
+        invalidaciones.increment();
+        generaciones.invalidarTodo();
+        porUsuarioId.clear();
+        usuarioPorCredencial.clear();
+    }
+
+    private void desalojar() {
+        while (porUsuarioId.size() > maxSize || enOrden.get() > 2 * maxSize) {
+            Entrada vieja = orden.poll();
+            if (vieja == null) return;
+            enOrden.decrementAndGet();
+            if (quitarSiEs(vieja)) desalojos.increment();
+        }
+    }
+
+    /**
+     * Saco la entrada solo si sigue siendo la misma carga. Comparo por
+     * cargadaEn y no por identidad porque actualizarUltimaSesion la reemplaza.
+     */
+    private boolean quitarSiEs(Entrada e) {
+        boolean[] quitada = new boolean[1];
+        porUsuarioId.computeIfPresent(e.credencial.getUsuarioId(), (usuarioId, actual) -> {
+            if (actual.cargadaEn != e.cargadaEn) return actual;
+            quitarIndice(actual.credencial);
+            quitada[0] = true;
+            return null;
+        });
+        return quitada[0];
+    }
+
+    private void quitarIndice(CredencialAcceso c) {
+        if (c.getIdCredencial() != null) usuarioPorCredencial.remove(c.getIdCredencial(), c.getUsuarioId());
+    }
+
+    // La cache guarda lo que se leyó de la base: la copia sale sin cambios pendientes
+    private static CredencialAcceso copiar(CredencialAcceso c) {
+        CredencialAcceso copia = new CredencialAcceso(c.getIdCredencial(), c.isEliminado(), c.getUsuarioId(),
+                c.getEstado(), c.getUltimaSesion(), c.getHashPassword(), c.getSalt(),
+                c.getUltimoCambio(), c.isRequiereReset());
+        copia.marcarLimpio();
+        return copia;
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    public int size() { return porUsuarioId.size(); }
+
+    public long getAciertos() { return aciertos.sum(); }
+
+    public long getFallos() { return fallos.sum(); }
+
+    public long getDesalojos() { return desalojos.sum(); }
+
+    public long getInvalidaciones() { return invalidaciones.sum(); }
+
+    @Override
+    public String toString() {
+        return "CredencialCache{" +
+                "size=" + size() +
+                ", aciertos=" + getAciertos() +
+                ", fallos=" + getFallos() +
+                ", desalojos=" + getDesalojos() +
+                ", invalidaciones=" + getInvalidaciones() +
+                '}';
+    }
+
+    private record Entrada(CredencialAcceso credencial, long cargadaEn) {}
+}
@@ -0,0 +1,63 @@
+package integradorfinal.programacion2.service.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reloj de generaciones de una cache, con la generación de la última
+ * invalidación de cada clave.
+ *
+ * Una lectura toma la generación actual antes de ir a la base; al guardar,
+ * la cache descarta el valor solo si ESA clave se invalidó después. Así una
+ * invalidación no tira las cargas en curso de las otras claves.
+ *
+ * Las marcas por clave no pueden crecer sin límite: cuando pasan el tope
+ * borro las que ya son viejas y subo "descartarHasta", que descarta las
+ * cargas que empezaron antes de la poda (lo mismo que hacía antes cada
+ * invalidación, pero una vez cada {@code tope} invalidaciones).
+ */
+final class Generaciones {
+
+    private final AtomicLong reloj = new AtomicLong();
+    private final AtomicLong descartarHasta = new AtomicLong();
+    private final ConcurrentHashMap<Long, Long> invalidadaEn = new ConcurrentHashMap<>();
+    private final int tope;
+
+    Generaciones(int maxSize) {
+        this.tope = Math.max(1024, maxSize);
+    }
+
+    long actual() {
+        return reloj.get();
+    }
+
+    /** Anoto la invalidación de la clave; llamarlo dentro del compute de esa clave. */
+    void invalidar(Long clave) {
+        invalidadaEn.put(clave, reloj.incrementAndGet());
+    }
+
+    /** Descarto toda carga que haya empezado antes de ahora (cualquier clave). */
+    void invalidarTodo() {
+        long ahora = reloj.incrementAndGet();
+        descartarHasta.accumulateAndGet(ahora, Math::max);
+    }
+
+    /**
+     * ¿La clave se invalidó después de que empezó la lectura? Miro la marca
+     * de la clave ANTES que descartarHasta: si la poda ya la borró,
+     * descartarHasta ya está subido.
+     */
+    boolean invalidadaDespues(Long clave, long generacionLeida) {
+        Long marca = invalidadaEn.get(clave);
+        return (marca != null && marca > generacionLeida) || generacionLeida < descartarHasta.get();
+    }
+
+    /** Borro las marcas viejas si pasaron el tope (una vez cada muchas invalidaciones). */
+    void podarSiHaceFalta() {
+        if (invalidadaEn.size() <= tope) return;
+        long corte = reloj.get();
+        descartarHasta.accumulateAndGet(corte, Math::max);
+        // Solo las que quedaron cubiertas por el corte: una invalidación posterior sigue contando
+        invalidadaEn.values().removeIf(marca -> marca <= corte);
+    }
+}
@@ -0,0 +1,245 @@
+package integradorfinal.programacion2.service.cache;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.entities.Usuario;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de lectura (read-through) de usuarios para la capa de servicio.
+ *
+ * Cada usuario se guarda una sola vez, indexado por ID, y además tengo dos
+ * índices secundarios (username y email) que apuntan a ese mismo ID. Así
+ * una búsqueda por cualquiera de las tres claves encuentra la misma entrada
+ * y una invalidación por ID limpia las tres.
+ *
+ * No hay un lock global: los mapas son ConcurrentHashMap y todo cambio de una
+ * entrada (alta, invalidación, vencimiento, desalojo) pasa por un compute
+ * sobre su ID, así que dos hilos solo se esperan si tocan el mismo usuario.
+ *
+ * Desalojo:
+ * - Por tamaño: sale la entrada cargada hace más tiempo (orden de carga, que
+ *   con el TTL se parece bastante a LRU y no necesita reordenar en cada lectura).
+ * - Por tiempo: cada entrada vence ttlMs después de cargada.
+ *
+ * Guardo y devuelvo COPIAS de los usuarios: si alguien modifica el objeto que
+ * recibió, no ensucia la cache.
+ *
+ * Para no guardar un dato viejo cuando una lectura compite con una
+ * escritura, uso un reloj de generaciones: el servicio toma la generación
+ * antes de ir a la base, cada invalidación anota en qué generación se
+ * invalidó ESE ID, y guardar() descarta el valor solo si su ID se invalidó
+ * después de que empezó la lectura. Invalidar un usuario no tira las cargas
+ * en curso de los demás.
+ */
+public final class UsuarioCache {
+
+    private static volatile UsuarioCache compartida;
+
+    private final int maxSize;
+    private final long ttlNs;
+
+    private final ConcurrentHashMap<Long, Entrada> porId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> porUsername = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> porEmail = new ConcurrentHashMap<>();
+
+    // Entradas en orden de carga, para el desalojo por tamaño. Puede tener
+    // entradas que ya no están (reemplazadas o invalidadas); se descartan al sacarlas.
+    private final ConcurrentLinkedQueue<Entrada> orden = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger enOrden = new AtomicInteger();
+
+    private final Generaciones generaciones;
+
+    // Métricas
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    /**
+     * @param maxSize cantidad máxima de usuarios en cache (0 la desactiva)
+     * @param ttlMs   tiempo de vida de cada entrada en milisegundos
+     */
+    public UsuarioCache(int maxSize, long ttlMs) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNs = ttlMs * 1_000_000L;
+        this.generaciones = new Generaciones(this.maxSize);
+    }
+
+    /**
+     * Cache compartida por todos los servicios de usuario, configurada desde
+     * Config. Tiene que ser una sola para que una invalidación hecha por un
+     * servicio la vean todos.
+     */
+    public static UsuarioCache compartida() {
+        UsuarioCache c = compartida;
+        if (c == null) {
+            synchronized (UsuarioCache.class) {
+                c = compartida;
+                if (c == null) {
+                    c = new UsuarioCache(Config.CACHE_USUARIOS_MAX_SIZE, Config.CACHE_USUARIOS_TTL_MS);
+                    compartida = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    // ======================================================
+    // LECTURA
+    // ======================================================
+
+    public Optional<Usuario> porId(Long id) {
+        return buscar(id, null, null);
+    }
+
+    public Optional<Usuario> porUsername(String username) {
+        return buscar(username == null ? null : porUsername.get(username), username, null);
+    }
+
+    public Optional<Usuario> porEmail(String email) {
+        return buscar(email == null ? null : porEmail.get(email), null, email);
+    }
+
+    private Optional<Usuario> buscar(Long id, String username, String email) {
+        Entrada e = id == null ? null : porId.get(id);
+        // El índice secundario puede quedar un instante atrasado respecto de la entrada
+        if (e == null
+                || (username != null && !username.equals(e.usuario.getUsername()))
+                || (email != null && !email.equals(e.usuario.getEmail()))) {
+            fallos.increment();
+            return Optional.empty();
+        }
+        if (System.nanoTime() - e.cargadaEn > ttlNs) {
+            if (quitarSiEs(e)) desalojos.increment();
+            fallos.increment();
+            return Optional.empty();
+        }
+        aciertos.increment();
+        return Optional.of(copiar(e.usuario));
+    }
+
+    // ======================================================
+    // ESCRITURA
+    // ======================================================
+
+    /** Generación actual; leerla ANTES de ir a la base y pasarla a guardar(). */
+    public long generacion() {
+        return generaciones.actual();
+    }
+
+    /**
+     * Guardo el usuario leído de la base, salvo que su ID se haya invalidado
+     * desde que se leyó la generación (el dato podría estar viejo).
+     */
+    public void guardar(Usuario u, long generacionLeida) {
+        if (maxSize == 0 || u == null || u.getIdUsuario() == null) {
+            return;
+        }
+        Usuario copia = copiar(u);
+        Entrada nueva = new Entrada(copia, System.nanoTime());
+        Entrada guardada = porId.compute(copia.getIdUsuario(), (id, actual) -> {
+            if (generaciones.invalidadaDespues(id, generacionLeida)) return actual;
+            if (actual != null) quitarIndices(actual.usuario);
+            if (copia.getUsername() != null) porUsername.put(copia.getUsername(), id);
+            if (copia.getEmail() != null) porEmail.put(copia.getEmail(), id);
+            return nueva;
+        });
+        if (guardada == nueva) {
+            orden.offer(nueva);
+            enOrden.incrementAndGet();
+            desalojar();
+        }
+    }
+
+    /** Saco un usuario de la cache (por ID, limpia también username y email). */
+    public void invalidar(Long id) {
+        invalidaciones.increment();
+        if (id == null) return;
+        porId.compute(id, (k, actual) -> {
+            generaciones.invalidar(k);
+            if (actual != null) quitarIndices(actual.usuario);
+            return null;
+        });
+        generaciones.podarSiHaceFalta();
+    }
+
+    /** Vacío la cache completa. */
+    public void limpiar() {
+        invalidaciones.increment();
+        generaciones.invalidarTodo();
+        porId.clear();
+        porUsername.clear();
+        porEmail.clear();
+    }
+
+    /**
+     * Saco las entradas más viejas hasta volver al tope. Si la cola de orden
+     * se llenó de entradas que ya no están, también la recorto.
+     */
+    private void desalojar() {
+        while (porId.size() > maxSize || enOrden.get() > 2 * maxSize) {
+            Entrada vieja = orden.poll();
+            if (vieja == null) return;
+            enOrden.decrementAndGet();
+            if (quitarSiEs(vieja)) desalojos.increment();
+        }
+    }
+
+    /** Saco la entrada solo si sigue siendo la misma (no una recargada después). */
+    private boolean quitarSiEs(Entrada e) {
+        boolean[] quitada = new boolean[1];
+        porId.computeIfPresent(e.usuario.getIdUsuario(), (id, actual) -> {
+            if (actual != e) return actual;
+            quitarIndices(actual.usuario);
+            quitada[0] = true;
+            return null;
+        });
+        return quitada[0];
+    }
+
+    private void quitarIndices(Usuario u) {
+        if (u.getUsername() != null) porUsername.remove(u.getUsername(), u.getIdUsuario());
+        if (u.getEmail() != null) porEmail.remove(u.getEmail(), u.getIdUsuario());
+    }
+
+    // La cache guarda lo que se leyó de la base: la copia sale sin cambios pendientes
+    private static Usuario copiar(Usuario u) {
+        Usuario copia = new Usuario(u.getIdUsuario(), u.isEliminado(), u.getUsername(),
+                u.getNombre(), u.getApellido(), u.getEmail(),
+                u.getFechaRegistro(), u.isActivo(), u.getEstado());
+        copia.marcarLimpio();
+        return copia;
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    public int size() { return porId.size(); }
+
+    public long getAciertos() { return aciertos.sum(); }
+
+    public long getFallos() { return fallos.sum(); }
+
+    public long getDesalojos() { return desalojos.sum(); }
+
+    public long getInvalidaciones() { return invalidaciones.sum(); }
+
+    @Override
+    public String toString() {
+        return "UsuarioCache{" +
+                "size=" + size() +
+                ", aciertos=" + getAciertos() +
+                ", fallos=" + getFallos() +
+                ", desalojos=" + getDesalojos() +
+                ", invalidaciones=" + getInvalidaciones() +
+                '}';
+    }
+
+    private record Entrada(Usuario usuario, long cargadaEn) {}
+}
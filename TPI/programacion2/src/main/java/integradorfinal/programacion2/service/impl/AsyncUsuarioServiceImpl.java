@@ -0,0 +1,116 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.dao.Pagina;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.AsyncUsuarioService;
+import integradorfinal.programacion2.service.UsuarioService;
+import integradorfinal.programacion2.util.EjecutorSql;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implementación asíncrona sobre el servicio sincrónico: cada método manda la
+ * llamada bloqueante a {@link EjecutorSql} (hilos virtuales si la JVM los
+ * tiene), con el timeout por defecto de Config.
+ *
+ * Las reglas de negocio, las caches y las transacciones son las mismas del
+ * servicio sincrónico; acá solo cambia en qué hilo corren.
+ */
+public class AsyncUsuarioServiceImpl implements AsyncUsuarioService {
+
+    private final UsuarioService usuarioService;
+    private final EjecutorSql ejecutor;
+
+    public AsyncUsuarioServiceImpl() {
+        this(new UsuarioServiceImpl());
+    }
+
+    public AsyncUsuarioServiceImpl(UsuarioService usuarioService) {
+        this(usuarioService, EjecutorSql.compartido());
+    }
+
+    public AsyncUsuarioServiceImpl(UsuarioService usuarioService, EjecutorSql ejecutor) {
+        this.usuarioService = usuarioService;
+        this.ejecutor = ejecutor;
+    }
+
+    @Override
+    public CompletableFuture<Optional<Usuario>> findById(Long id) {
+        return ejecutor.ejecutar(() -> usuarioService.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Usuario>> findByUsername(String username) {
+        return ejecutor.ejecutar(() -> usuarioService.findByUsername(username));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Usuario>> findByEmail(String email) {
+        return ejecutor.ejecutar(() -> usuarioService.findByEmail(email));
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, Usuario>> findByIds(Collection<Long> ids) {
+        return ejecutor.ejecutar(() -> usuarioService.findByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Usuario>> findByUsernameWithCredencial(String username) {
+        return ejecutor.ejecutar(() -> usuarioService.findByUsernameWithCredencial(username));
+    }
+
+    @Override
+    public CompletableFuture<Pagina<Usuario>> findPage(Long afterId, int limit) {
+        return ejecutor.ejecutar(() -> usuarioService.findPage(afterId, limit));
+    }
+
+    @Override
+    public CompletableFuture<Long> createUsuarioConCredencial(Usuario usuario) {
+        return ejecutor.ejecutar(() -> usuarioService.createUsuarioConCredencial(usuario));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(Usuario usuario) {
+        return ejecutor.ejecutar(() -> {
+            usuarioService.update(usuario);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> softDeleteById(Long id) {
+        return ejecutor.ejecutar(() -> {
+            usuarioService.softDeleteById(id);
+            return null;
+        });
+    }
+
+    /**
+     * Las dos búsquedas salen juntas y combino los resultados cuando llegan
+     * las dos. Si una falla, el resultado falla y cancelo la otra.
+     */
+    @Override
+    public CompletableFuture<Disponibilidad> verificarDisponibilidad(String username, String email) {
+        CompletableFuture<Optional<Usuario>> porUsername = findByUsername(username);
+        CompletableFuture<Optional<Usuario>> porEmail = findByEmail(email);
+
+        CompletableFuture<Disponibilidad> resultado = porUsername.thenCombine(porEmail,
+                (u, e) -> new Disponibilidad(u.isEmpty(), e.isEmpty()));
+        resultado.whenComplete((r, ex) -> {
+            if (ex != null) {
+                porUsername.cancel(true);
+                porEmail.cancel(true);
+            }
+        });
+        return resultado;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> ejecutar(Operacion<T> operacion, Duration timeout) {
+        return ejecutor.ejecutar(() -> operacion.ejecutar(usuarioService), timeout);
+    }
+}
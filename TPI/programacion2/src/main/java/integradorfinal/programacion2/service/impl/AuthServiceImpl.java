@@ -0,0 +1,200 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.dao.CredencialAuth;
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.AuthService;
+import integradorfinal.programacion2.service.CredencialAccesoService;
+import integradorfinal.programacion2.service.ResultadoLogin;
+import integradorfinal.programacion2.service.UsuarioService;
+import integradorfinal.programacion2.service.sesion.AlmacenSesiones;
+import integradorfinal.programacion2.service.sesion.LimitadorLogin;
+import integradorfinal.programacion2.service.sesion.RegistroUltimaSesion;
+import integradorfinal.programacion2.service.sesion.Sesion;
+import integradorfinal.programacion2.util.HashingExecutor;
+import integradorfinal.programacion2.util.PasswordHashing;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementación del login.
+ *
+ * Flujo:
+ * 0. Consulto el limitador de intentos: si el username (o el origen) se pasó
+ *    del límite, rechazo sin tocar la base ni hashear nada. Si después la
+ *    contraseña resulta correcta, devuelvo el intento.
+ * 1. Busco usuario + credencial en una sola consulta (JOIN), o directo de
+ *    las caches si ya estaban.
+ * 2. Valido la contraseña en el executor de hashing.
+ * 3. Recién con la contraseña validada miro estado y requiere_reset, así no
+ *    le digo a cualquiera si una cuenta existe pero está inactiva.
+ * 4. Si está todo OK, anoto la última sesión en {@link RegistroUltimaSesion}
+ *    (escritura diferida y en lote, no suma nada a la latencia del login) y,
+ *    si el hash quedó con parámetros viejos, lo regenero en segundo plano.
+ * 5. Emito una sesión en {@link AlmacenSesiones}: las operaciones siguientes
+ *    presentan el token y se validan sin base ni hash.
+ *
+ * El rehash va a un único hilo con cola acotada: si la cola se llena lo
+ * salteo (se vuelve a intentar en el próximo login) y aviso por consola.
+ * Cada rehash pendiente retiene la contraseña en texto plano hasta que el
+ * hilo lo procesa, así que la cola es chica a propósito: como mucho
+ * MAX_PENDIENTES contraseñas en memoria, cada una durante lo que tardan los
+ * rehashes que tiene delante (un hash + un UPDATE cada uno). Solo se encola
+ * cuando el hash guardado tiene parámetros viejos, o sea una vez por usuario
+ * después de cambiar la configuración del hash.
+ */
+public class AuthServiceImpl implements AuthService {
+
+    // Rehashes que pueden quedar pendientes antes de empezar a descartar (cada
+    // uno guarda una contraseña en texto plano: ver la nota de la clase)
+    private static final int MAX_PENDIENTES = 16;
+
+    private final UsuarioService usuarioService;
+    private final CredencialAccesoService credService;
+    private final HashingExecutor hashing;
+    private final RegistroUltimaSesion sesiones;
+    private final LimitadorLogin limitador;
+    private final AlmacenSesiones almacen;
+    private final ThreadPoolExecutor segundoPlano;
+
+    public AuthServiceImpl() {
+        this(new UsuarioServiceImpl(), new CredencialAccesoServiceImpl());
+    }
+
+    public AuthServiceImpl(UsuarioService usuarioService, CredencialAccesoService credService) {
+        this(usuarioService, credService, HashingExecutor.compartido(), RegistroUltimaSesion.compartido(),
+                LimitadorLogin.compartido(), AlmacenSesiones.compartido());
+    }
+
+    public AuthServiceImpl(UsuarioService usuarioService, CredencialAccesoService credService,
+                           HashingExecutor hashing, RegistroUltimaSesion sesiones, LimitadorLogin limitador,
+                           AlmacenSesiones almacen) {
+        this.usuarioService = usuarioService;
+        this.credService = credService;
+        this.hashing = hashing;
+        this.sesiones = sesiones;
+        this.limitador = limitador;
+        this.almacen = almacen;
+        this.segundoPlano = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDIENTES), r -> {
+                    Thread t = new Thread(r, "auth-segundo-plano");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @Override
+    public ResultadoLogin login(String username, String password) throws SQLException {
+        return login(username, password, null);
+    }
+
+    @Override
+    public ResultadoLogin login(String username, String password, String origen) throws SQLException {
+        if (username == null || username.isBlank() || password == null) {
+            return ResultadoLogin.de(ResultadoLogin.Tipo.USUARIO_DESCONOCIDO);
+        }
+
+        // 0. Límite de intentos, antes de cualquier consulta o hash
+        if (!limitador.intentar(username, origen)) {
+            return ResultadoLogin.de(ResultadoLogin.Tipo.DEMASIADOS_INTENTOS);
+        }
+
+        // 1. Usuario + credencial en un solo round trip
+        Optional<Usuario> optUser = usuarioService.findByUsernameWithCredencial(username.trim());
+        if (optUser.isEmpty() || optUser.get().getCredencial() == null) {
+            return ResultadoLogin.de(ResultadoLogin.Tipo.USUARIO_DESCONOCIDO);
+        }
+        Usuario u = optUser.get();
+        CredencialAcceso cred = u.getCredencial();
+
+        // 2. Contraseña (con el algoritmo que indica el hash guardado)
+        if (!hashing.verificar(password, cred.getSalt(), cred.getHashPassword())) {
+            return ResultadoLogin.de(ResultadoLogin.Tipo.PASSWORD_INCORRECTA);
+        }
+        // Con la contraseña correcta el intento no cuenta para el límite
+        limitador.devolver(username, origen);
+
+        // 3. Estado de la cuenta
+        if (!u.isActivo() || u.getEstado() == Estado.INACTIVO || cred.getEstado() == Estado.INACTIVO) {
+            return ResultadoLogin.de(ResultadoLogin.Tipo.INACTIVO, u);
+        }
+        if (cred.isRequiereReset()) {
+            return ResultadoLogin.de(ResultadoLogin.Tipo.REQUIERE_RESET, u);
+        }
+
+        // 4. Última sesión (escritura diferida) y rehash si hace falta
+        LocalDateTime ahora = LocalDateTime.now();
+        cred.setUltimaSesion(ahora);
+        sesiones.registrar(u.getIdUsuario(), ahora);
+        if (PasswordHashing.necesitaRehash(cred.getHashPassword())) {
+            enSegundoPlano(() -> credService.rehashSiHaceFalta(cred, password));
+        }
+
+        // 5. Sesión
+        Sesion sesion = almacen.crear(u.getIdUsuario(), u.getUsername());
+        return ResultadoLogin.ok(u, sesion);
+    }
+
+    @Override
+    public Optional<Sesion> validarSesion(String token) {
+        return almacen.validar(token);
+    }
+
+    @Override
+    public boolean logout(String token) {
+        return almacen.revocar(token);
+    }
+
+    @Override
+    public boolean confirmarPassword(String token, String password) throws SQLException {
+        Optional<Sesion> sesion = almacen.validar(token);
+        if (sesion.isEmpty() || password == null) return false;
+        if (!limitador.intentar(sesion.get().getUsername(), null)) return false;
+
+        // Solo id, hash y salt: no hace falta la credencial completa
+        Optional<CredencialAuth> auth = credService.findAuthByUsuarioId(sesion.get().getUsuarioId());
+        boolean ok = auth.isPresent() && hashing.verificar(password, auth.get().salt(), auth.get().hashPassword());
+        if (ok) limitador.devolver(sesion.get().getUsername(), null);
+        return ok;
+    }
+
+    private void enSegundoPlano(TareaSql tarea) {
+        try {
+            segundoPlano.execute(() -> {
+                try {
+                    tarea.ejecutar();
+                } catch (SQLException | RuntimeException e) {
+                    System.err.println("⚠️ No se pudo regenerar el hash: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println("⚠️ Demasiados rehashes pendientes, se saltea uno.");
+        }
+    }
+
+    @Override
+    public void close() {
+        sesiones.close(); // último flush de las sesiones pendientes
+        segundoPlano.shutdown();
+        try {
+            if (!segundoPlano.awaitTermination(5, TimeUnit.SECONDS)) {
+                segundoPlano.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            segundoPlano.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface TareaSql {
+        void ejecutar() throws SQLException;
+    }
+}
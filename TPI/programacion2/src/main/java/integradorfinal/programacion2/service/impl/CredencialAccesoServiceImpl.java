@@ -1,13 +1,26 @@
 package integradorfinal.programacion2.service.impl;
 
 import integradorfinal.programacion2.dao.CredencialAccesoDao;
+import integradorfinal.programacion2.dao.CredencialAuth;
+import integradorfinal.programacion2.dao.CredencialResumen;
+import integradorfinal.programacion2.dao.Pagina;
 import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
 import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.entities.Estado;
 import integradorfinal.programacion2.service.CredencialAccesoService;
+import integradorfinal.programacion2.service.cache.CredencialCache;
+import integradorfinal.programacion2.service.sesion.AlmacenSesiones;
+import integradorfinal.programacion2.util.HashingExecutor;
+import integradorfinal.programacion2.util.PasswordHashing;
+import integradorfinal.programacion2.util.ProveedorSalt;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementación del servicio de CredencialAcceso.
@@ -24,11 +37,23 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
     // DAO que realmente se conecta a la base y ejecuta SQL
     private final CredencialAccesoDao credencialDao;
 
+    // Cache de credenciales por usuarioId (compartida con el servicio de usuarios)
+    private final CredencialCache cache;
+
+    // Hilos dedicados al hashing de contraseñas
+    private final HashingExecutor hashing;
+
+    // Sesiones abiertas: las cierro si cambia la contraseña o se desactiva la credencial
+    private final AlmacenSesiones sesiones;
+
+    // Salts pre-generados para cambios de contraseña y rehash
+    private final ProveedorSalt salts;
+
     /**
      * Constructor por defecto: instancio el DAO concreto que usa JDBC.
      */
     public CredencialAccesoServiceImpl() {
-        this.credencialDao = new CredencialAccesoDaoImpl();
+        this(new CredencialAccesoDaoImpl());
     }
 
     /**
@@ -36,7 +61,42 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
      * o para cambiar la implementación sin modificar el código de arriba.
      */
     public CredencialAccesoServiceImpl(CredencialAccesoDao credencialDao) {
+        this(credencialDao, CredencialCache.compartida());
+    }
+
+    /**
+     * Constructor completo: DAO y cache de credenciales a usar.
+     */
+    public CredencialAccesoServiceImpl(CredencialAccesoDao credencialDao, CredencialCache cache) {
+        this(credencialDao, cache, HashingExecutor.compartido());
+    }
+
+    /**
+     * Constructor completo con el executor de hashing a usar.
+     */
+    public CredencialAccesoServiceImpl(CredencialAccesoDao credencialDao, CredencialCache cache,
+                                       HashingExecutor hashing) {
+        this(credencialDao, cache, hashing, AlmacenSesiones.compartido());
+    }
+
+    /**
+     * Constructor completo con el almacén de sesiones a usar.
+     */
+    public CredencialAccesoServiceImpl(CredencialAccesoDao credencialDao, CredencialCache cache,
+                                       HashingExecutor hashing, AlmacenSesiones sesiones) {
+        this(credencialDao, cache, hashing, sesiones, ProveedorSalt.compartido());
+    }
+
+    /**
+     * Constructor completo, incluido el proveedor de salts.
+     */
+    public CredencialAccesoServiceImpl(CredencialAccesoDao credencialDao, CredencialCache cache,
+                                       HashingExecutor hashing, AlmacenSesiones sesiones, ProveedorSalt salts) {
         this.credencialDao = credencialDao;
+        this.cache = cache;
+        this.hashing = hashing;
+        this.sesiones = sesiones;
+        this.salts = salts;
     }
 
     // ================================
@@ -67,12 +127,39 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
         return credencialDao.findAll();
     }
 
+    /**
+     * Recorro las credenciales en streaming (el Stream hay que cerrarlo).
+     */
+    @Override
+    public Stream<CredencialAcceso> stream() throws SQLException {
+        return credencialDao.stream();
+    }
+
+    /**
+     * Aplico una acción a cada credencial sin cargarlas todas en memoria.
+     */
+    @Override
+    public void forEach(Consumer<? super CredencialAcceso> action) throws SQLException {
+        credencialDao.forEach(action);
+    }
+
     /**
      * Actualizo una credencial existente.
+     * Invalido la cache antes y después de escribir, para que ninguna lectura
+     * concurrente deje guardado el valor anterior. Si la credencial queda
+     * inactiva o eliminada, cierro las sesiones abiertas del usuario.
      */
     @Override
     public void update(CredencialAcceso entity) throws SQLException {
-        credencialDao.update(entity);
+        invalidar(entity);
+        try {
+            credencialDao.update(entity);
+        } finally {
+            invalidar(entity);
+        }
+        if (entity.isEliminado() || entity.getEstado() == Estado.INACTIVO) {
+            sesiones.revocarUsuario(entity.getUsuarioId());
+        }
     }
 
     /**
@@ -80,7 +167,14 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
      */
     @Override
     public void softDeleteById(Long id) throws SQLException {
-        credencialDao.softDeleteById(id);
+        Optional<CredencialAcceso> actual = credencialDao.findById(id); // para saber de qué usuario es
+        cache.invalidarCredencial(id);
+        try {
+            credencialDao.softDeleteById(id);
+        } finally {
+            cache.invalidarCredencial(id);
+        }
+        actual.ifPresent(c -> sesiones.revocarUsuario(c.getUsuarioId()));
     }
 
     /**
@@ -88,7 +182,19 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
      */
     @Override
     public void deleteById(Long id) throws SQLException {
-        credencialDao.deleteById(id);
+        Optional<CredencialAcceso> actual = credencialDao.findById(id);
+        cache.invalidarCredencial(id);
+        try {
+            credencialDao.deleteById(id);
+        } finally {
+            cache.invalidarCredencial(id);
+        }
+        actual.ifPresent(c -> sesiones.revocarUsuario(c.getUsuarioId()));
+    }
+
+    private void invalidar(CredencialAcceso c) {
+        cache.invalidarUsuario(c.getUsuarioId());
+        cache.invalidarCredencial(c.getIdCredencial());
     }
 
     // ================================
@@ -101,14 +207,74 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
      */
     @Override
     public Optional<CredencialAcceso> findByUsuarioId(Long usuarioId) throws SQLException {
-        return credencialDao.findByUsuarioId(usuarioId);
+        Optional<CredencialAcceso> cacheada = cache.porUsuarioId(usuarioId);
+        if (cacheada.isPresent()) return cacheada;
+
+        long generacion = cache.generacion();
+        Optional<CredencialAcceso> c = credencialDao.findByUsuarioId(usuarioId);
+        c.ifPresent(x -> cache.guardar(x, generacion));
+        return c;
+    }
+
+    /**
+     * Estadísticas de la cache de credenciales (aciertos, fallos, desalojos).
+     */
+    public CredencialCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Busco las credenciales de muchos usuarios juntas (pantallas de
+     * administración, reportes), en vez de ir una por una.
+     */
+    @Override
+    public Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds) throws SQLException {
+        if (usuarioIds == null) {
+            throw new IllegalArgumentException("La colección de IDs no puede ser null");
+        }
+        return credencialDao.findByUsuarioIds(usuarioIds);
+    }
+
+    /**
+     * Listo credenciales por páginas (cursor = último id_credencial visto).
+     */
+    @Override
+    public Pagina<CredencialAcceso> findPage(Long afterId, int limit) throws SQLException {
+        if (limit < 1 || limit > Pagina.MAX_TAMANIO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + Pagina.MAX_TAMANIO);
+        }
+        return credencialDao.findPage(afterId, limit);
+    }
+
+    /**
+     * Listado por páginas con la vista liviana (sin hash ni salt).
+     */
+    @Override
+    public Pagina<CredencialResumen> findResumenPage(Long afterId, int limit) throws SQLException {
+        if (limit < 1 || limit > Pagina.MAX_TAMANIO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + Pagina.MAX_TAMANIO);
+        }
+        return credencialDao.findResumenPage(afterId, limit);
+    }
+
+    /**
+     * Hash y salt de la credencial de un usuario, directo del primario: para
+     * verificar una contraseña no quiero un hash que pueda estar viejo en
+     * cache ni en una réplica atrasada.
+     */
+    @Override
+    public Optional<CredencialAuth> findAuthByUsuarioId(Long usuarioId) throws SQLException {
+        if (usuarioId == null) {
+            throw new IllegalArgumentException("usuarioId es obligatorio");
+        }
+        return credencialDao.findAuthByUsuarioId(usuarioId);
     }
 
     /**
      * Actualizo la contraseña de forma segura:
      * - Primero valido que el password no venga vacío.
      * - Genero un salt aleatorio.
-     * - Calculo el hash usando SHA-256 + salt (PasswordUtil).
+     * - Calculo el hash con el algoritmo configurado, en el executor de hashing.
      * - Delego en el DAO para que llame al stored procedure que actualiza la contraseña.
      *
      * El parámetro "ignorar" queda solo para respetar la firma acordada en la interfaz
@@ -120,13 +286,48 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
             throw new IllegalArgumentException("El password no puede estar vacío");
 
         // Genero un salt nuevo para esta actualización
-        String salt = integradorfinal.programacion2.util.PasswordUtil.generateSalt(16);
+        String salt = salts.siguiente();
 
         // Calculo el hash mezclando el password con el salt
-        String hash = integradorfinal.programacion2.util.PasswordUtil.hashPassword(nuevoPasswordPlano, salt);
+        String hash = hashing.hash(nuevoPasswordPlano, salt);
 
-        // Delego al DAO para que llame al stored procedure con el hash y el salt
-        credencialDao.updatePasswordSeguro(usuarioId, hash, salt);
+        // Delego al DAO para que llame al stored procedure con el hash y el salt.
+        // La credencial cacheada se invalida antes y después: nunca tiene que
+        // quedar un hash viejo en cache después de un cambio de contraseña.
+        cache.invalidarUsuario(usuarioId);
+        try {
+            credencialDao.updatePasswordSeguro(usuarioId, hash, salt);
+        } finally {
+            cache.invalidarUsuario(usuarioId);
+        }
+        // Con la contraseña nueva, ninguna sesión abierta con la anterior sigue valiendo
+        sesiones.revocarUsuario(usuarioId);
     }
 
+    /**
+     * Regenero el hash en el login si quedó con un algoritmo o costo viejo
+     * (por ejemplo, un SHA-256 de antes, o PBKDF2 con menos iteraciones).
+     * Genero salt nuevo y actualizo solo si el hash guardado sigue siendo el
+     * que se validó, así no piso un cambio de contraseña hecho en el medio.
+     */
+    @Override
+    public boolean rehashSiHaceFalta(CredencialAcceso cred, String passwordPlano) throws SQLException {
+        if (cred == null || cred.getUsuarioId() == null || !PasswordHashing.necesitaRehash(cred.getHashPassword())) {
+            return false;
+        }
+        String salt = salts.siguiente();
+        String hash = hashing.hash(passwordPlano, salt);
+
+        cache.invalidarUsuario(cred.getUsuarioId());
+        try {
+            boolean ok = credencialDao.rehashPassword(cred.getUsuarioId(), cred.getHashPassword(), hash, salt);
+            if (ok) {
+                cred.setHashPassword(hash);
+                cred.setSalt(salt);
+            }
+            return ok;
+        } finally {
+            cache.invalidarUsuario(cred.getUsuarioId());
+        }
+    }
 }
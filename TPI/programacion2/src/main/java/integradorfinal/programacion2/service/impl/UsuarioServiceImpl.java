@@ -1,21 +1,35 @@
 package integradorfinal.programacion2.service.impl;
 
+import integradorfinal.programacion2.config.Config;
 import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.config.TransactionManager;
 import integradorfinal.programacion2.dao.CredencialAccesoDao;
+import integradorfinal.programacion2.dao.Pagina;
 import integradorfinal.programacion2.dao.UsuarioDao;
+import integradorfinal.programacion2.dao.UsuarioResumen;
 import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
 import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
 import integradorfinal.programacion2.entities.CredencialAcceso;
 import integradorfinal.programacion2.entities.Estado;
 import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.ResultadoAltaMasiva;
 import integradorfinal.programacion2.service.UsuarioService;
-import integradorfinal.programacion2.util.PasswordUtil;
+import integradorfinal.programacion2.service.cache.CredencialCache;
+import integradorfinal.programacion2.service.sesion.AlmacenSesiones;
+import integradorfinal.programacion2.service.cache.UsuarioCache;
+import integradorfinal.programacion2.util.HashingExecutor;
+import integradorfinal.programacion2.util.ProveedorSalt;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Capa de negocio para Usuario. Orquesta DAO + transacciones (commit/rollback).
@@ -25,16 +39,61 @@ public class UsuarioServiceImpl implements UsuarioService {
     private final UsuarioDao usuarioDao;
     private final CredencialAccesoDao credencialDao;
 
+    // Cache de lectura por id / username / email (compartida entre servicios)
+    private final UsuarioCache cache;
+
+    // Cache de credenciales por usuarioId (la misma que usa el servicio de credenciales)
+    private final CredencialCache credCache;
+
+    // Hilos dedicados al hashing, para que las altas no ocupen los hilos de consultas
+    private final HashingExecutor hashing;
+
+    // Sesiones abiertas: las cierro cuando el usuario se desactiva o se da de baja
+    private final AlmacenSesiones sesiones;
+
+    // Salts pre-generados: las altas no hacen fila en un único SecureRandom
+    private final ProveedorSalt salts;
+
     // Inyección simple por defecto
     public UsuarioServiceImpl() {
-        this.usuarioDao = new UsuarioDaoImpl();
-        this.credencialDao = new CredencialAccesoDaoImpl();
+        this(new UsuarioDaoImpl(), new CredencialAccesoDaoImpl());
     }
 
     // (Opcional) Inyección por constructor para tests
     public UsuarioServiceImpl(UsuarioDao usuarioDao, CredencialAccesoDao credencialDao) {
+        this(usuarioDao, credencialDao, UsuarioCache.compartida(), CredencialCache.compartida());
+    }
+
+    // Inyección completa, para usar caches propias (o de tamaño 0 para desactivarlas)
+    public UsuarioServiceImpl(UsuarioDao usuarioDao, CredencialAccesoDao credencialDao,
+                              UsuarioCache cache, CredencialCache credCache) {
+        this(usuarioDao, credencialDao, cache, credCache, HashingExecutor.compartido());
+    }
+
+    // Inyección completa con el executor de hashing a usar
+    public UsuarioServiceImpl(UsuarioDao usuarioDao, CredencialAccesoDao credencialDao,
+                              UsuarioCache cache, CredencialCache credCache, HashingExecutor hashing) {
+        this(usuarioDao, credencialDao, cache, credCache, hashing, AlmacenSesiones.compartido());
+    }
+
+    // Inyección completa con el almacén de sesiones a usar
+    public UsuarioServiceImpl(UsuarioDao usuarioDao, CredencialAccesoDao credencialDao,
+                              UsuarioCache cache, CredencialCache credCache, HashingExecutor hashing,
+                              AlmacenSesiones sesiones) {
+        this(usuarioDao, credencialDao, cache, credCache, hashing, sesiones, ProveedorSalt.compartido());
+    }
+
+    // Inyección completa, incluido el proveedor de salts
+    public UsuarioServiceImpl(UsuarioDao usuarioDao, CredencialAccesoDao credencialDao,
+                              UsuarioCache cache, CredencialCache credCache, HashingExecutor hashing,
+                              AlmacenSesiones sesiones, ProveedorSalt salts) {
         this.usuarioDao = usuarioDao;
         this.credencialDao = credencialDao;
+        this.cache = cache;
+        this.credCache = credCache;
+        this.hashing = hashing;
+        this.sesiones = sesiones;
+        this.salts = salts;
     }
 
     // ================================
@@ -52,9 +111,21 @@ public class UsuarioServiceImpl implements UsuarioService {
         return usuarioDao.create(entity);
     }
 
+    /**
+     * Lectura con cache: si el usuario está en cache no voy a la base.
+     * Si no está, lo leo del DAO y lo guardo para la próxima. Lo que va a la
+     * cache se lee del primario: de una réplica atrasada podría guardar un
+     * dato viejo (por ejemplo, un usuario ya desactivado) durante todo el TTL.
+     */
     @Override
     public Optional<Usuario> findById(Long id) throws SQLException {
-        return usuarioDao.findById(id);
+        Optional<Usuario> cacheado = cache.porId(id);
+        if (cacheado.isPresent()) return cacheado;
+
+        long generacion = cache.generacion();
+        Optional<Usuario> u = DatabaseConnection.leerDelPrimario(() -> usuarioDao.findById(id));
+        u.ifPresent(x -> cache.guardar(x, generacion));
+        return u;
     }
 
     @Override
@@ -62,22 +133,65 @@ public class UsuarioServiceImpl implements UsuarioService {
         return usuarioDao.findAll();
     }
 
+    @Override
+    public Stream<Usuario> stream() throws SQLException {
+        return usuarioDao.stream();
+    }
+
+    @Override
+    public void forEach(Consumer<? super Usuario> action) throws SQLException {
+        usuarioDao.forEach(action);
+    }
+
+    // En las escrituras invalido la cache antes y después: antes para que
+    // nadie siga leyendo el dato viejo, después por si una lectura
+    // concurrente lo volvió a cargar mientras escribía.
+    //
+    // También invalido la credencial del usuario: el trigger
+    // au_usuario_sync_estado_credencial cambia su estado cuando cambia el
+    // del usuario, y la baja física la borra en cascada.
     @Override
     public void update(Usuario entity) throws SQLException {
         if (entity.getEstado() == null) {
             entity.setEstado(Estado.ACTIVO);
         }
-        usuarioDao.update(entity);
+        invalidar(entity.getIdUsuario());
+        try {
+            usuarioDao.update(entity);
+        } finally {
+            invalidar(entity.getIdUsuario());
+        }
+        // Un usuario desactivado no puede seguir operando con una sesión vieja
+        if (!entity.isActivo() || entity.getEstado() == Estado.INACTIVO || entity.isEliminado()) {
+            sesiones.revocarUsuario(entity.getIdUsuario());
+        }
     }
 
     @Override
     public void softDeleteById(Long id) throws SQLException {
-        usuarioDao.softDeleteById(id);
+        invalidar(id);
+        try {
+            usuarioDao.softDeleteById(id);
+        } finally {
+            invalidar(id);
+        }
+        sesiones.revocarUsuario(id);
     }
 
     @Override
     public void deleteById(Long id) throws SQLException {
-        usuarioDao.deleteById(id);
+        invalidar(id);
+        try {
+            usuarioDao.deleteById(id);
+        } finally {
+            invalidar(id);
+        }
+        sesiones.revocarUsuario(id);
+    }
+
+    private void invalidar(Long idUsuario) {
+        cache.invalidar(idUsuario);
+        credCache.invalidarUsuario(idUsuario);
     }
 
     // ================================
@@ -85,12 +199,86 @@ public class UsuarioServiceImpl implements UsuarioService {
     // ================================
     @Override
     public Optional<Usuario> findByUsername(String username) throws SQLException {
-        return usuarioDao.findByUsername(username);
+        Optional<Usuario> cacheado = cache.porUsername(username);
+        if (cacheado.isPresent()) return cacheado;
+
+        long generacion = cache.generacion();
+        Optional<Usuario> u = DatabaseConnection.leerDelPrimario(() -> usuarioDao.findByUsername(username));
+        u.ifPresent(x -> cache.guardar(x, generacion));
+        return u;
     }
 
     @Override
     public Optional<Usuario> findByEmail(String email) throws SQLException {
-        return usuarioDao.findByEmail(email);
+        Optional<Usuario> cacheado = cache.porEmail(email);
+        if (cacheado.isPresent()) return cacheado;
+
+        long generacion = cache.generacion();
+        Optional<Usuario> u = DatabaseConnection.leerDelPrimario(() -> usuarioDao.findByEmail(email));
+        u.ifPresent(x -> cache.guardar(x, generacion));
+        return u;
+    }
+
+    /**
+     * Estadísticas de la cache de usuarios (aciertos, fallos, desalojos).
+     */
+    public UsuarioCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public Map<Long, Usuario> findByIds(Collection<Long> ids) throws SQLException {
+        if (ids == null) {
+            throw new IllegalArgumentException("La colección de IDs no puede ser null");
+        }
+        return usuarioDao.findByIds(ids);
+    }
+
+    /**
+     * Camino caliente del login. Si el usuario y su credencial están los dos
+     * en cache, no toco la base; si falta alguno, hago la consulta con JOIN
+     * y cargo ambas caches.
+     */
+    @Override
+    public Optional<Usuario> findByUsernameWithCredencial(String username) throws SQLException {
+        Optional<Usuario> u = cache.porUsername(username);
+        if (u.isPresent()) {
+            Optional<CredencialAcceso> c = credCache.porUsuarioId(u.get().getIdUsuario());
+            if (c.isPresent()) {
+                u.get().setCredencial(c.get());
+                return u;
+            }
+        }
+
+        long generacion = cache.generacion();
+        long generacionCred = credCache.generacion();
+        Optional<Usuario> leido = usuarioDao.findByUsernameWithCredencial(username);
+        leido.ifPresent(x -> {
+            cache.guardar(x, generacion);
+            credCache.guardar(x.getCredencial(), generacionCred);
+        });
+        return leido;
+    }
+
+    @Override
+    public Optional<Usuario> findByIdWithCredencial(Long id) throws SQLException {
+        return usuarioDao.findByIdWithCredencial(id);
+    }
+
+    @Override
+    public Pagina<Usuario> findPage(Long afterId, int limit) throws SQLException {
+        if (limit < 1 || limit > Pagina.MAX_TAMANIO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + Pagina.MAX_TAMANIO);
+        }
+        return usuarioDao.findPage(afterId, limit);
+    }
+
+    @Override
+    public Pagina<UsuarioResumen> findResumenPage(Long afterId, int limit) throws SQLException {
+        if (limit < 1 || limit > Pagina.MAX_TAMANIO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + Pagina.MAX_TAMANIO);
+        }
+        return usuarioDao.findResumenPage(afterId, limit);
     }
 
     /**
@@ -101,13 +289,13 @@ public class UsuarioServiceImpl implements UsuarioService {
      * Este método aplica validaciones de negocio mínimas (username, email y
      * credencial obligatorios), inicializa valores por defecto (fecha de
      * registro, estado, último cambio) y asegura la seguridad de la contraseña
-     * generando un {@code salt} aleatorio y calculando el hash con SHA-256
+     * generando un {@code salt} aleatorio y calculando el hash con el algoritmo configurado
      * antes de persistir los datos.</p>
      *
      * <p>
-     * La operación se ejecuta de forma transaccional:
+     * La operación se ejecuta de forma transaccional, con
+     * {@link TransactionManager#inTransaction(TransactionManager.Trabajo)}:
      * <ul>
-     * <li>Se desactiva el autocommit de la conexión.</li>
      * <li>Se inserta primero el usuario en la tabla {@code usuario},
      * recuperando su ID generado.</li>
      * <li>Se inserta la credencial asociada en la tabla
@@ -117,8 +305,7 @@ public class UsuarioServiceImpl implements UsuarioService {
      * <li>Si ocurre cualquier error, se ejecuta {@code rollback()} para
      * revertir los cambios y evitar inconsistencias.</li>
      * </ul>
-     * Al finalizar, se restaura el estado original de autocommit y se cierra la
-     * conexión.</p>
+     * Si ya hay una transacción abierta en el hilo, el alta se suma a ella.</p>
      *
      * @param usuario objeto {@link Usuario} a persistir, con datos básicos y
      * credencial asociada
@@ -127,13 +314,228 @@ public class UsuarioServiceImpl implements UsuarioService {
      * las validaciones mínimas
      * @throws SQLException si ocurre un error en la inserción de usuario o
      * credencial, o en las operaciones de commit/rollback
-     *
-     * @see java.sql.Connection#setAutoCommit(boolean)
-     * @see java.sql.Connection#commit()
-     * @see java.sql.Connection#rollback()
      */
     @Override
     public Long createUsuarioConCredencial(Usuario usuario) throws SQLException {
+        HashAlta hash = prepararAlta(usuario);
+        CredencialAcceso cred = usuario.getCredencial();
+
+        return TransactionManager.inTransaction(conn -> {
+            aplicarHash(cred, hash);
+
+            // 1) Crear USUARIO (genera id)
+            Long userId = usuarioDao.create(usuario, conn);
+
+            // 2) Crear CREDENCIAL con FK al usuario recién creado
+            cred.setUsuarioId(userId);
+            credencialDao.create(cred, conn);
+            return userId;
+        });
+    }
+
+    @Override
+    public ResultadoAltaMasiva createUsuariosConCredencial(List<Usuario> usuarios) {
+        return createUsuariosConCredencial(usuarios, Config.ALTA_MASIVA_CHUNK_SIZE);
+    }
+
+    /**
+     * Alta masiva de usuarios con credencial.
+     *
+     * <p>
+     * Primero valido y hasheo todo el lote (el hash en el executor de
+     * hashing, en paralelo); los que no pasan la validación o cuyo hash
+     * falla quedan como fallidos en el reporte y no llegan a la base. Después
+     * inserto los válidos por bloques de {@code chunkSize}: en cada bloque
+     * inserto todos los usuarios en lote, paso los IDs generados a sus
+     * credenciales, inserto todas las credenciales en lote y hago un único
+     * commit.</p>
+     *
+     * <p>
+     * Si un bloque falla (por ejemplo, un username repetido), hago rollback
+     * de ese bloque y reintento sus usuarios de a uno, cada uno en su propia
+     * transacción, para que el reporte diga exactamente cuáles fallaron y
+     * el resto igual se cree.</p>
+     *
+     * <p>
+     * Las credenciales reciben el hash recién dentro de la transacción que
+     * las inserta: las de los usuarios que fallan conservan la contraseña tal
+     * como vino, así que se pueden reenviar los mismos objetos.</p>
+     *
+     * @param usuarios  usuarios a crear, cada uno con su credencial
+     * @param chunkSize cantidad de usuarios por commit
+     * @return reporte con el resultado de cada usuario, en el orden recibido
+     */
+    @Override
+    public ResultadoAltaMasiva createUsuariosConCredencial(List<Usuario> usuarios, int chunkSize) {
+        if (usuarios == null) {
+            throw new IllegalArgumentException("La lista de usuarios no puede ser null");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser al menos 1");
+        }
+        ResultadoAltaMasiva resultado = new ResultadoAltaMasiva(usuarios.size());
+
+        // 1) Validar todo el lote antes de tocar la base
+        List<Integer> validos = new ArrayList<>(usuarios.size());
+        for (int i = 0; i < usuarios.size(); i++) {
+            Usuario u = usuarios.get(i);
+            try {
+                validarAlta(u);
+                validos.add(i);
+            } catch (IllegalArgumentException ex) {
+                resultado.registrarFallo(i, u != null ? u.getUsername() : null, ex.getMessage());
+            }
+        }
+
+        // Hasheo los válidos en el executor de hashing (en paralelo, con su cola acotada)
+        // (los salts salen todos juntos del proveedor, en bloque). El hash queda
+        // aparte: la credencial del llamador recién lo recibe dentro de la transacción
+        HashAlta[] altas = new HashAlta[usuarios.size()];
+        List<String> passwords = new ArrayList<>(validos.size());
+        for (int i : validos) {
+            passwords.add(usuarios.get(i).getCredencial().getHashPassword());
+        }
+        List<String> saltsAlta = salts.siguientes(validos.size());
+        List<HashingExecutor.Hasheado> hashes = hashing.hashTodos(passwords, saltsAlta);
+        // Un hash que falla deja fuera solo a su usuario
+        List<Integer> hasheados = new ArrayList<>(validos.size());
+        for (int k = 0; k < validos.size(); k++) {
+            int i = validos.get(k);
+            Usuario u = usuarios.get(i);
+            HashingExecutor.Hasheado h = hashes.get(k);
+            if (!h.ok()) {
+                resultado.registrarFallo(i, u.getUsername(), h.error().getMessage());
+                continue;
+            }
+            altas[i] = new HashAlta(h.hash(), saltsAlta.get(k));
+            hasheados.add(i);
+        }
+
+        // 2) Insertar por bloques, un commit por bloque
+        for (int desde = 0; desde < hasheados.size(); desde += chunkSize) {
+            List<Integer> bloque = hasheados.subList(desde, Math.min(desde + chunkSize, hasheados.size()));
+            try {
+                insertarBloque(usuarios, altas, bloque, resultado);
+            } catch (SQLException ex) {
+                // El bloque se revirtió entero: reintento de a uno para aislar los que fallan
+                for (int i : bloque) {
+                    insertarIndividual(usuarios.get(i), altas[i], i, resultado);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Inserta un bloque de usuarios y sus credenciales en una única transacción.
+     * Si algo falla hace rollback, limpia los IDs asignados y relanza la excepción.
+     */
+    private void insertarBloque(List<Usuario> usuarios, HashAlta[] altas, List<Integer> indices,
+                                ResultadoAltaMasiva resultado) throws SQLException {
+        List<Usuario> lote = new ArrayList<>(indices.size());
+        List<CredencialAcceso> creds = new ArrayList<>(indices.size());
+        for (int i : indices) {
+            lote.add(usuarios.get(i));
+            creds.add(usuarios.get(i).getCredencial());
+        }
+
+        try {
+            // Transacción propia del bloque (un commit por bloque aunque haya otra abierta)
+            List<Long> ids = TransactionManager.inTransaction(TransactionManager.Propagacion.REQUIRES_NEW, conn -> {
+                for (int k = 0; k < creds.size(); k++) {
+                    aplicarHash(creds.get(k), altas[indices.get(k)]);
+                }
+                List<Long> generados = usuarioDao.createAll(lote, conn);
+                for (int k = 0; k < creds.size(); k++) {
+                    creds.get(k).setUsuarioId(generados.get(k));
+                }
+                credencialDao.createAll(creds, conn);
+                return generados;
+            });
+            for (int k = 0; k < indices.size(); k++) {
+                resultado.registrarExito(indices.get(k), lote.get(k).getUsername(), ids.get(k));
+            }
+        } catch (SQLException | RuntimeException ex) {
+            // Los IDs que se asignaron dentro del bloque ya no existen
+            for (int k = 0; k < lote.size(); k++) {
+                lote.get(k).setIdUsuario(null);
+                creds.get(k).setIdCredencial(null);
+                creds.get(k).setUsuarioId(null);
+            }
+            throw ex instanceof SQLException sql ? sql : new SQLException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Inserta un único usuario con su credencial (ya validados y hasheados)
+     * en su propia transacción y anota el resultado en el reporte.
+     */
+    private void insertarIndividual(Usuario usuario, HashAlta hash, int indice, ResultadoAltaMasiva resultado) {
+        CredencialAcceso cred = usuario.getCredencial();
+        try {
+            Long userId = TransactionManager.inTransaction(TransactionManager.Propagacion.REQUIRES_NEW, conn -> {
+                aplicarHash(cred, hash);
+                Long id = usuarioDao.create(usuario, conn);
+                cred.setUsuarioId(id);
+                credencialDao.create(cred, conn);
+                return id;
+            });
+            resultado.registrarExito(indice, usuario.getUsername(), userId);
+        } catch (SQLException | RuntimeException ex) {
+            usuario.setIdUsuario(null);
+            cred.setIdCredencial(null);
+            cred.setUsuarioId(null);
+            resultado.registrarFallo(indice, usuario.getUsername(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Validaciones de negocio, valores por defecto y hash de la contraseña
+     * previos al alta de un usuario con credencial. El hash lo calcula el
+     * executor de hashing, no este hilo, y lo devuelvo sin tocar la
+     * credencial (ver {@link #aplicarHash}).
+     *
+     * @throws IllegalArgumentException si el usuario o su credencial no
+     * cumplen las validaciones mínimas
+     */
+    private HashAlta prepararAlta(Usuario usuario) {
+        validarAlta(usuario);
+        CredencialAcceso cred = usuario.getCredencial();
+
+        // ===== Seguridad de contraseña =====
+        String salt = salts.siguiente(); // salt aleatorio pre-generado (no espera)
+        String hash = hashing.hash(cred.getHashPassword(), salt); // algoritmo y costo configurados
+        return new HashAlta(hash, salt);
+    }
+
+    /**
+     * Paso el hash y el salt a la credencial recién dentro de la transacción
+     * del alta. Si termina en rollback, la credencial vuelve a tener la
+     * contraseña en texto plano que trajo el llamador: así puede reintentar
+     * con el mismo objeto sin que se hashee un hash (y la cuenta quede sin
+     * poder entrar).
+     */
+    private static void aplicarHash(CredencialAcceso cred, HashAlta alta) {
+        String passwordOriginal = cred.getHashPassword();
+        String saltOriginal = cred.getSalt();
+        cred.setSalt(alta.salt());
+        cred.setHashPassword(alta.hash());
+        TransactionManager.alDeshacer(() -> {
+            cred.setHashPassword(passwordOriginal);
+            cred.setSalt(saltOriginal);
+        });
+    }
+
+    // Hash y salt calculados para un alta, antes de escribirlos en la credencial
+    private record HashAlta(String hash, String salt) {}
+
+    /**
+     * Validaciones de negocio y valores por defecto del alta (sin el hash).
+     *
+     * @throws IllegalArgumentException si el usuario o su credencial no
+     * cumplen las validaciones mínimas
+     */
+    private void validarAlta(Usuario usuario) {
         // Validaciones mínimas de negocio
         if (usuario == null) {
             throw new IllegalArgumentException("Usuario no puede ser null");
@@ -166,52 +568,6 @@ public class UsuarioServiceImpl implements UsuarioService {
         if (cred.getUltimoCambio() == null) {
             cred.setUltimoCambio(LocalDateTime.now());
         }
-
-        // ===== Seguridad de contraseña =====
-        String salt = PasswordUtil.generateSalt(16); // genera un salt aleatorio de 16 bytes
-        String hash = PasswordUtil.hashPassword(cred.getHashPassword(), salt);
-
-        cred.setSalt(salt);
-        cred.setHashPassword(hash);
-
-        Connection conn = null;
-        boolean prevAutoCommit = true;
-
-        try {
-            conn = DatabaseConnection.getConnection();
-            prevAutoCommit = conn.getAutoCommit();
-            conn.setAutoCommit(false); // --- INICIO TRANSACCIÓN ---
-
-            // 1) Crear USUARIO (genera id)
-            Long userId = usuarioDao.create(usuario, conn);
-
-            // 2) Crear CREDENCIAL con FK al usuario recién creado
-            cred.setUsuarioId(userId);
-            credencialDao.create(cred, conn);
-
-            // 3) Commit si todo OK
-            conn.commit();
-            return userId;
-
-        } catch (SQLException ex) {
-            // Rollback ante cualquier problema
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ignore) {
-                }
-            }
-            throw ex;
-        } finally {
-            // Restaurar autocommit y cerrar conexión
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(prevAutoCommit);
-                } catch (SQLException ignore) {
-                }
-            }
-            DatabaseConnection.closeConnection();
-        }
     }
 
     /**
@@ -223,14 +579,13 @@ public class UsuarioServiceImpl implements UsuarioService {
      * manejo transaccional en JDBC:</p>
      *
      * <ol>
-     * <li>Se inicia una transacción desactivando el autocommit.</li>
+     * <li>Se inicia una transacción nueva con {@link TransactionManager}.</li>
      * <li>Se crea un usuario de prueba en la base de datos (sin commit).</li>
      * <li>Se lanza intencionalmente una {@link SQLException} para simular un
      * error.</li>
-     * <li>El bloque {@code catch} ejecuta un {@code rollback()}, revirtiendo la
-     * operación y asegurando que el usuario no quede persistido.</li>
-     * <li>Finalmente se restaura el estado original de autocommit y se cierra
-     * la conexión.</li>
+     * <li>El TransactionManager ejecuta un {@code rollback()}, revirtiendo la
+     * operación y asegurando que el usuario no quede persistido, restaura el
+     * autocommit y devuelve la conexión al pool.</li>
      * </ol>
      *
      * <p>
@@ -243,52 +598,31 @@ public class UsuarioServiceImpl implements UsuarioService {
      */
     @Override
     public void demoRollback() throws SQLException {
-        Connection conn = null;
-        boolean prevAutoCommit = true;
-
+        System.out.println(">>> Iniciando demo de rollback con error simulado...");
         try {
-            System.out.println(">>> Iniciando demo de rollback con error simulado...");
-
-            conn = DatabaseConnection.getConnection();
-            prevAutoCommit = conn.getAutoCommit();
-            conn.setAutoCommit(false); // --- INICIO TRANSACCIÓN ---
-
-            // 1) Crear un usuario de prueba
-            Usuario u = new Usuario();
-            u.setUsername("rollback_demo_" + System.currentTimeMillis());
-            u.setNombre("Demo");
-            u.setApellido("Rollback");
-            u.setEmail("demo.rollback@example.com");
-            u.setFechaRegistro(LocalDateTime.now());
-            u.setActivo(true);
-            u.setEstado(Estado.ACTIVO);
-            u.setEliminado(false);
-
-            Long idUsuario = usuarioDao.create(u, conn);
-            System.out.println("Usuario demo creado con ID (sin commit): " + idUsuario);
-
-            // 💣 2) ERROR FORZADO para demostrar rollback
-            throw new SQLException("Error simulado para demostrar ROLLBACK");
-
-            // 3) (Nunca llega acá)
-            // conn.commit();
+            // Transacción propia: el error forzado no tiene que afectar a nadie más
+            TransactionManager.inTransaction(TransactionManager.Propagacion.REQUIRES_NEW, conn -> {
+                // 1) Crear un usuario de prueba
+                Usuario u = new Usuario();
+                u.setUsername("rollback_demo_" + System.currentTimeMillis());
+                u.setNombre("Demo");
+                u.setApellido("Rollback");
+                u.setEmail("demo.rollback@example.com");
+                u.setFechaRegistro(LocalDateTime.now());
+                u.setActivo(true);
+                u.setEstado(Estado.ACTIVO);
+                u.setEliminado(false);
+
+                Long idUsuario = usuarioDao.create(u, conn);
+                System.out.println("Usuario demo creado con ID (sin commit): " + idUsuario);
+
+                // 💣 2) ERROR FORZADO para demostrar rollback
+                throw new SQLException("Error simulado para demostrar ROLLBACK");
+            });
         } catch (SQLException ex) {
-            if (conn != null) {
-                try {
-                    conn.rollback(); // ROLLBACK REAL
-                    System.out.println(">>> Se ejecutó ROLLBACK correctamente.");
-                } catch (SQLException ignore) {
-                }
-            }
+            // inTransaction ya hizo el ROLLBACK REAL antes de relanzar
+            System.out.println(">>> Se ejecutó ROLLBACK correctamente.");
             throw ex;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(prevAutoCommit);
-                } catch (SQLException ignore) {
-                }
-            }
-            DatabaseConnection.closeConnection();
         }
     }
 
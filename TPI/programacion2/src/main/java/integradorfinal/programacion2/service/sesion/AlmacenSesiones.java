@@ -0,0 +1,249 @@
+package integradorfinal.programacion2.service.sesion;
+
+import integradorfinal.programacion2.config.Config;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Almacén en memoria de sesiones (token → sesión).
+ *
+ * Después de un login correcto emito un token opaco; las operaciones
+ * siguientes lo presentan y validarlo es un get() en un ConcurrentHashMap,
+ * sin ir a la base ni volver a hashear la contraseña.
+ *
+ * Vencimiento con una rueda de tiempo (hashed timing wheel), en vez de un
+ * timer por sesión:
+ * - La rueda tiene N casilleros; un hilo avanza un casillero cada tickMs.
+ * - Una sesión que vence en el tick T va al casillero T mod N. Cuando el hilo
+ *   pasa por ese casillero, borra las que ya vencieron (T <= tick actual) y
+ *   deja las que son de una vuelta posterior.
+ * - Así el costo de vencer sesiones es proporcional a las que vencen, y
+ *   crear una sesión es solo agregarla a una cola.
+ * - Como la rueda tiene resolución de un tick, validar() además compara la
+ *   hora exacta de vencimiento: una sesión vencida nunca se acepta.
+ *
+ * Revocación: también guardo usuarioId → tokens, para poder cerrar todas
+ * las sesiones de un usuario cuando cambia su contraseña o se lo desactiva.
+ */
+public final class AlmacenSesiones implements AutoCloseable {
+
+    private static final int BYTES_TOKEN = 32;
+
+    private static volatile AlmacenSesiones compartido;
+
+    private final long ttlNs;
+    private final long tickNs;
+    private final int mascara;
+
+    private final ConcurrentHashMap<String, Sesion> porToken = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<String>> porUsuario = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Sesion>[] rueda;
+
+    private final SecureRandom rng = new SecureRandom();
+    private final long inicioNs = System.nanoTime();
+    private volatile long tickActual;
+    private final ScheduledExecutorService reloj;
+
+    // Métricas
+    private final LongAdder emitidas = new LongAdder();
+    private final LongAdder vencidas = new LongAdder();
+    private final LongAdder revocadas = new LongAdder();
+
+    /**
+     * @param ttlMs     duración de cada sesión
+     * @param tickMs    resolución de la rueda de tiempo
+     * @param casilleros cantidad de casilleros (se redondea a potencia de 2)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public AlmacenSesiones(long ttlMs, long tickMs, int casilleros) {
+        if (ttlMs < 1 || tickMs < 1 || casilleros < 1) {
+            throw new IllegalArgumentException("ttlMs, tickMs y casilleros deben ser al menos 1");
+        }
+        this.ttlNs = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.tickNs = TimeUnit.MILLISECONDS.toNanos(tickMs);
+
+        int n = Integer.highestOneBit(casilleros);
+        if (n < casilleros) n <<= 1;
+        this.mascara = n - 1;
+        this.rueda = new ConcurrentLinkedQueue[n];
+        for (int i = 0; i < n; i++) rueda[i] = new ConcurrentLinkedQueue<>();
+
+        this.reloj = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sesiones-rueda");
+            t.setDaemon(true);
+            return t;
+        });
+        reloj.scheduleAtFixedRate(this::avanzar, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Almacén compartido, configurado desde Config. */
+    public static AlmacenSesiones compartido() {
+        AlmacenSesiones a = compartido;
+        if (a == null) {
+            synchronized (AlmacenSesiones.class) {
+                a = compartido;
+                if (a == null) {
+                    a = new AlmacenSesiones(Config.SESIONES_TTL_MS, Config.SESIONES_TICK_MS,
+                            Config.SESIONES_CASILLEROS);
+                    compartido = a;
+                }
+            }
+        }
+        return a;
+    }
+
+    // ======================================================
+    // OPERACIONES
+    // ======================================================
+
+    /** Creo una sesión para un usuario ya autenticado y devuelvo su token. */
+    public Sesion crear(Long usuarioId, String username) {
+        if (usuarioId == null) {
+            throw new IllegalArgumentException("usuarioId es obligatorio");
+        }
+        long ahora = System.nanoTime();
+        long expiraNs = ahora + ttlNs;
+        // Redondeo hacia arriba: la rueda nunca la borra antes de tiempo
+        long expiraTick = (expiraNs - inicioNs + tickNs - 1) / tickNs;
+
+        Sesion s = new Sesion(nuevoToken(), usuarioId, username, LocalDateTime.now(), expiraNs, expiraTick);
+        // Publico el token dentro del compute() del usuario: así no compite con
+        // quitar() borrando el set vacío ni con revocarUsuario(), que barre los
+        // tokens bajo el mismo compute (una sesión nunca queda fuera del índice)
+        porUsuario.compute(usuarioId, (id, tokens) -> {
+            if (tokens == null) tokens = ConcurrentHashMap.newKeySet();
+            tokens.add(s.getToken());
+            porToken.put(s.getToken(), s);
+            return tokens;
+        });
+        rueda[(int) (expiraTick & mascara)].add(s);
+        emitidas.increment();
+        return s;
+    }
+
+    /**
+     * Valido un token: O(1), sin base ni hash.
+     *
+     * @return la sesión si existe y no venció
+     */
+    public Optional<Sesion> validar(String token) {
+        if (token == null) return Optional.empty();
+        Sesion s = porToken.get(token);
+        if (s == null) return Optional.empty();
+        if (s.vencida(System.nanoTime())) {
+            if (quitar(s)) vencidas.increment();
+            return Optional.empty();
+        }
+        return Optional.of(s);
+    }
+
+    /** Cierro una sesión puntual (logout). */
+    public boolean revocar(String token) {
+        Sesion s = token == null ? null : porToken.get(token);
+        if (s != null && quitar(s)) {
+            revocadas.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Cierro todas las sesiones de un usuario (cambio de contraseña,
+     * desactivación o baja).
+     *
+     * @return cantidad de sesiones cerradas
+     */
+    public int revocarUsuario(Long usuarioId) {
+        if (usuarioId == null) return 0;
+        int[] n = new int[1];
+        // Bajo el compute del usuario: una sesión que se está creando queda
+        // registrada antes (y la revoco) o después (y ya es posterior a la revocación)
+        porUsuario.computeIfPresent(usuarioId, (id, tokens) -> {
+            for (String t : tokens) {
+                if (porToken.remove(t) != null) n[0]++;
+            }
+            return null;
+        });
+        revocadas.add(n[0]);
+        return n[0];
+    }
+
+    private boolean quitar(Sesion s) {
+        boolean quitada = porToken.remove(s.getToken(), s);
+        porUsuario.computeIfPresent(s.getUsuarioId(), (id, tokens) -> {
+            tokens.remove(s.getToken());
+            return tokens.isEmpty() ? null : tokens;
+        });
+        return quitada;
+    }
+
+    private String nuevoToken() {
+        byte[] b = new byte[BYTES_TOKEN];
+        rng.nextBytes(b);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(b);
+    }
+
+    // ======================================================
+    // RUEDA DE TIEMPO
+    // ======================================================
+
+    /**
+     * Avanzo la rueda hasta el tick actual y limpio los casilleros por los que
+     * paso. Si el hilo se atrasó, recorro todos los ticks pendientes (como
+     * mucho una vuelta completa, que ya cubre todos los casilleros).
+     */
+    private void avanzar() {
+        long objetivo = (System.nanoTime() - inicioNs) / tickNs;
+        long desde = Math.max(tickActual + 1, objetivo - mascara);
+        for (long t = desde; t <= objetivo; t++) {
+            Iterator<Sesion> it = rueda[(int) (t & mascara)].iterator();
+            while (it.hasNext()) {
+                Sesion s = it.next();
+                if (s.expiraTick <= objetivo) {
+                    it.remove();
+                    if (quitar(s)) vencidas.increment();
+                }
+            }
+        }
+        tickActual = objetivo;
+    }
+
+    @Override
+    public void close() {
+        reloj.shutdownNow();
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    /** Sesiones vivas en este momento. */
+    public int getActivas() { return porToken.size(); }
+
+    public long getEmitidas() { return emitidas.sum(); }
+
+    public long getVencidas() { return vencidas.sum(); }
+
+    public long getRevocadas() { return revocadas.sum(); }
+
+    @Override
+    public String toString() {
+        return "AlmacenSesiones{" +
+                "activas=" + getActivas() +
+                ", emitidas=" + getEmitidas() +
+                ", vencidas=" + getVencidas() +
+                ", revocadas=" + getRevocadas() +
+                '}';
+    }
+}
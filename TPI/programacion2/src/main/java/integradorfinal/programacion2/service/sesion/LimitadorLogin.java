@@ -0,0 +1,305 @@
+package integradorfinal.programacion2.service.sesion;
+
+import integradorfinal.programacion2.config.Config;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Limitador de intentos de login en memoria, por username y (opcional) por
+ * origen (IP, terminal, etc.).
+ *
+ * Cada clave tiene un "token bucket": hasta {@code rafaga} intentos seguidos
+ * y después se recarga a {@code porMinuto} intentos por minuto. Lo implemento
+ * con la variante GCRA, que guarda todo el estado del bucket en un único
+ * long (el "tiempo teórico de llegada"); así cada intento es un
+ * compareAndSet sobre un AtomicLong, sin locks:
+ *
+ * - intervalo = 1 minuto / porMinuto (lo que tarda en volver un token)
+ * - tolerancia = intervalo * (rafaga - 1)
+ * - un intento pasa si ahora >= tat - tolerancia, y entonces
+ *   tat = max(tat, ahora) + intervalo
+ *
+ * Un bucket que no se usó hace rato está lleno (tat en el pasado), así que
+ * borrarlo no cambia nada: un hilo de limpieza los saca periódicamente. (Si un
+ * intento justo compite con el borrado, como mucho se cuela un intento de más.)
+ *
+ * El mapa tiene un tope (maxClaves). Con el mapa lleno, una clave nueva se
+ * rechaza (falla cerrado) y le pido al hilo de limpieza que corra ya; el hilo
+ * del login nunca recorre el mapa. Así, una lluvia de usernames inventados no
+ * hace crecer el mapa sin límite: como mucho, mientras dura, los usernames que
+ * no tienen bucket esperan a la limpieza.
+ *
+ * Un login correcto devuelve su intento ({@link #devolver(String, String)}):
+ * el límite frena a quien prueba contraseñas, no a quien entra seguido.
+ *
+ * El servicio de login lo consulta ANTES de ir a la base o de hashear, para
+ * que una ráfaga de intentos no llegue a MySQL.
+ */
+public final class LimitadorLogin implements AutoCloseable {
+
+    private static volatile LimitadorLogin compartido;
+
+    // Marcas combinantes (acentos, diéresis, ...) que deja la descomposición
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private final Limite porUsuario;
+    private final Limite porOrigen;
+    private final int maxClaves;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService limpieza;
+    private final AtomicBoolean limpiezaPedida = new AtomicBoolean();
+
+    // Métricas
+    private final LongAdder permitidos = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+    private final LongAdder desalojados = new LongAdder();
+    private final LongAdder rechazadosPorTope = new LongAdder();
+
+    /**
+     * Límite de un tipo de clave.
+     *
+     * @param rafaga    intentos seguidos permitidos con el bucket lleno
+     * @param porMinuto intentos por minuto que se recuperan
+     */
+    public record Limite(int rafaga, int porMinuto) {
+
+        public Limite {
+            if (rafaga < 1 || porMinuto < 1) {
+                throw new IllegalArgumentException("rafaga y porMinuto deben ser al menos 1");
+            }
+        }
+
+        long intervaloNs() {
+            return TimeUnit.MINUTES.toNanos(1) / porMinuto;
+        }
+
+        long toleranciaNs() {
+            return intervaloNs() * (rafaga - 1);
+        }
+    }
+
+    /**
+     * @param porUsuario límite por username
+     * @param porOrigen  límite por origen (null = no limito por origen)
+     * @param maxClaves  tope de buckets; con el mapa lleno rechazo las claves nuevas
+     * @param limpiezaMs cada cuánto borro los buckets ociosos
+     */
+    public LimitadorLogin(Limite porUsuario, Limite porOrigen, int maxClaves, long limpiezaMs) {
+        if (porUsuario == null) {
+            throw new IllegalArgumentException("El límite por usuario es obligatorio");
+        }
+        if (limpiezaMs < 1 || maxClaves < 1) {
+            throw new IllegalArgumentException("maxClaves y limpiezaMs deben ser al menos 1");
+        }
+        this.porUsuario = porUsuario;
+        this.porOrigen = porOrigen;
+        this.maxClaves = maxClaves;
+        this.limpieza = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "login-limitador-limpieza");
+            t.setDaemon(true);
+            return t;
+        });
+        limpieza.scheduleWithFixedDelay(this::limpiar, limpiezaMs, limpiezaMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Instancia compartida, configurada desde Config. */
+    public static LimitadorLogin compartido() {
+        LimitadorLogin l = compartido;
+        if (l == null) {
+            synchronized (LimitadorLogin.class) {
+                l = compartido;
+                if (l == null) {
+                    Limite origen = Config.LOGIN_LIMITE_ORIGEN_POR_MINUTO > 0
+                            ? new Limite(Config.LOGIN_LIMITE_ORIGEN_RAFAGA, Config.LOGIN_LIMITE_ORIGEN_POR_MINUTO)
+                            : null;
+                    l = new LimitadorLogin(
+                            new Limite(Config.LOGIN_LIMITE_RAFAGA, Config.LOGIN_LIMITE_POR_MINUTO),
+                            origen, Config.LOGIN_LIMITE_MAX_CLAVES, Config.LOGIN_LIMITE_LIMPIEZA_MS);
+                    compartido = l;
+                }
+            }
+        }
+        return l;
+    }
+
+    // ======================================================
+    // CONSULTA
+    // ======================================================
+
+    /**
+     * Consumo un intento para el username (y el origen, si viene y hay límite
+     * por origen). Tienen que pasar los dos.
+     *
+     * @param username usuario que intenta entrar
+     * @param origen   origen del intento (puede ser null)
+     * @return true si el intento está permitido
+     */
+    public boolean intentar(String username, String origen) {
+        long ahora = System.nanoTime();
+        boolean ok = tomar("u:" + normalizar(username), porUsuario, ahora);
+        if (ok && porOrigen != null && origen != null && !origen.isBlank()) {
+            ok = tomar("o:" + origen.trim(), porOrigen, ahora);
+        }
+        if (ok) {
+            permitidos.increment();
+        } else {
+            rechazados.increment();
+        }
+        return ok;
+    }
+
+    /**
+     * Devuelvo el intento que consumió un login con la contraseña correcta,
+     * al username y al origen.
+     */
+    public void devolver(String username, String origen) {
+        long ahora = System.nanoTime();
+        reintegrar("u:" + normalizar(username), porUsuario, ahora);
+        if (porOrigen != null && origen != null && !origen.isBlank()) {
+            reintegrar("o:" + origen.trim(), porOrigen, ahora);
+        }
+    }
+
+    private boolean tomar(String clave, Limite limite, long ahora) {
+        AtomicLong tat = buckets.get(clave);
+        if (tat == null) {
+            if (buckets.size() >= maxClaves) {
+                // Mapa lleno: no agrego la clave ni lo recorro acá; lo limpia el hilo de limpieza
+                rechazadosPorTope.increment();
+                pedirLimpieza();
+                return false;
+            }
+            AtomicLong nuevo = new AtomicLong(ahora);
+            tat = buckets.putIfAbsent(clave, nuevo);
+            if (tat == null) tat = nuevo;
+        }
+
+        long intervalo = limite.intervaloNs();
+        long tolerancia = limite.toleranciaNs();
+        while (true) {
+            long actual = tat.get();
+            if (ahora - (actual - tolerancia) < 0) {
+                return false; // bucket vacío
+            }
+            long siguiente = (actual - ahora > 0 ? actual : ahora) + intervalo;
+            if (tat.compareAndSet(actual, siguiente)) {
+                return true;
+            }
+        }
+    }
+
+    /** Resto un intervalo al tat, sin pasar de "lleno" (tat = ahora). */
+    private void reintegrar(String clave, Limite limite, long ahora) {
+        AtomicLong tat = buckets.get(clave);
+        if (tat == null) return; // ya está lleno (o se limpió)
+        long intervalo = limite.intervaloNs();
+        while (true) {
+            long actual = tat.get();
+            long anterior = actual - intervalo;
+            long siguiente = anterior - ahora > 0 ? anterior : ahora;
+            if (siguiente - actual >= 0 || tat.compareAndSet(actual, siguiente)) return;
+        }
+    }
+
+    /**
+     * La clave tiene que juntar todo lo que MySQL considera el mismo username:
+     * la tabla usa utf8mb4_0900_ai_ci, que ignora acentos y mayúsculas ("ana",
+     * "Anà" y "ÁNA" son la misma cuenta). Si cada variante tuviera su bucket,
+     * una cuenta se podría atacar a N veces el límite. Descompongo (NFKD, que
+     * también junta las formas de ancho completo), saco las marcas combinantes
+     * y pliego mayúsculas pasando por upper ("ß" → "SS" → "ss", como la collation).
+     */
+    static String normalizar(String username) {
+        if (username == null) return "";
+        String s = username.trim();
+        if (!esAscii(s)) {
+            s = MARCAS.matcher(Normalizer.normalize(s, Normalizer.Form.NFKD)).replaceAll("");
+            s = s.toUpperCase(Locale.ROOT);
+        }
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    // Camino rápido: un username ASCII solo necesita pasar a minúsculas
+    private static boolean esAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    // ======================================================
+    // LIMPIEZA
+    // ======================================================
+
+    /** Adelanto la limpieza en el hilo de limpieza (una sola pedida a la vez). */
+    private void pedirLimpieza() {
+        if (!limpiezaPedida.compareAndSet(false, true)) return;
+        try {
+            limpieza.execute(() -> {
+                limpiezaPedida.set(false);
+                limpiar();
+            });
+        } catch (RejectedExecutionException e) {
+            limpiezaPedida.set(false); // cerrado
+        }
+    }
+
+    /**
+     * Borro los buckets que ya se recargaron por completo (tat en el pasado):
+     * equivalen a uno nuevo, así que no pierdo información. Corre solo en el
+     * hilo de limpieza.
+     */
+    private void limpiar() {
+        long ahora = System.nanoTime();
+        buckets.forEach((clave, tat) -> {
+            if (ahora - tat.get() >= 0 && buckets.remove(clave, tat)) {
+                desalojados.increment();
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        limpieza.shutdownNow();
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    public long getPermitidos() { return permitidos.sum(); }
+
+    /** Intentos rechazados por superar el límite. */
+    public long getRechazados() { return rechazados.sum(); }
+
+    /** Buckets borrados por estar ociosos. */
+    public long getDesalojados() { return desalojados.sum(); }
+
+    /** Intentos rechazados porque el mapa de buckets estaba lleno (también cuentan en rechazados). */
+    public long getRechazadosPorTope() { return rechazadosPorTope.sum(); }
+
+    /** Buckets vivos en este momento. */
+    public int getClavesActivas() { return buckets.size(); }
+
+    @Override
+    public String toString() {
+        return "LimitadorLogin{" +
+                "permitidos=" + getPermitidos() +
+                ", rechazados=" + getRechazados() +
+                ", clavesActivas=" + getClavesActivas() +
+                ", desalojados=" + getDesalojados() +
+                ", rechazadosPorTope=" + getRechazadosPorTope() +
+                '}';
+    }
+}
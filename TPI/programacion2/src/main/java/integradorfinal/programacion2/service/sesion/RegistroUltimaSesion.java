@@ -0,0 +1,339 @@
+package integradorfinal.programacion2.service.sesion;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.dao.CredencialAccesoDao;
+import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
+import integradorfinal.programacion2.service.cache.CredencialCache;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Escritura diferida (write-behind) de credencial_acceso.ultima_sesion.
+ *
+ * La última sesión es un dato informativo: no vale la pena que cada login
+ * espere un UPDATE ni que un usuario que entra varias veces por minuto
+ * bloquee su fila una y otra vez. Entonces:
+ *
+ * - registrar() solo anota (usuarioId → fecha) en memoria y vuelve enseguida.
+ *   Si el usuario ya tenía una fecha pendiente, me quedo con la más nueva
+ *   (se "coalescen" los logins repetidos en una sola escritura).
+ * - Cada flushMs un hilo toma todo lo pendiente y lo escribe con un único
+ *   UPDATE en lote (executeBatch) dentro de una transacción.
+ * - El buffer es acotado: si llega a maxPendientes adelanto el flush y, si
+ *   aun así no hay lugar, descarto la anotación y lo cuento.
+ * - Si el flush falla por la conexión (la base no responde), devuelvo el
+ *   lote al buffer, sin pisar fechas más nuevas, para el próximo ciclo.
+ * - Si falla por alguna fila (por ejemplo, un trigger que la rechaza), parto
+ *   el lote al medio y escribo cada mitad por separado hasta aislarla: las
+ *   demás se escriben igual. La fila que falla sola vuelve al buffer y, tras
+ *   maxIntentos flushes fallidos, se abandona.
+ * - Lo que vuelve al buffer respeta maxPendientes: si no hay lugar se descarta.
+ * - close() hace un último flush, para no perder nada al salir.
+ */
+public final class RegistroUltimaSesion implements AutoCloseable {
+
+    private static volatile RegistroUltimaSesion compartido;
+
+    private final CredencialAccesoDao credencialDao;
+    private final CredencialCache cache;
+    private final int maxPendientes;
+    private final int maxIntentos;
+
+    private final ConcurrentHashMap<Long, LocalDateTime> pendientes = new ConcurrentHashMap<>();
+    // Flushes fallidos de cada fila que falló sola (solo lo usa el flush)
+    private final Map<Long, Integer> intentos = new HashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushAdelantado = new AtomicBoolean();
+    private volatile boolean cerrado;
+
+    // Métricas
+    private final LongAdder registrados = new LongAdder();
+    private final LongAdder coalescidos = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder filasEscritas = new LongAdder();
+    private final LongAdder erroresFlush = new LongAdder();
+    private final LongAdder abandonados = new LongAdder();
+    private final AtomicLong ultimoFlushMs = new AtomicLong();
+
+    /**
+     * @param credencialDao DAO que hace el UPDATE en lote
+     * @param cache         cache de credenciales a mantener al día (puede ser null)
+     * @param flushMs       cada cuánto escribo lo pendiente
+     * @param maxPendientes máximo de usuarios distintos esperando escritura
+     * @param maxIntentos   flushes fallidos que le doy a una fila antes de abandonarla
+     */
+    public RegistroUltimaSesion(CredencialAccesoDao credencialDao, CredencialCache cache,
+                                long flushMs, int maxPendientes, int maxIntentos) {
+        if (flushMs < 1 || maxPendientes < 1 || maxIntentos < 1) {
+            throw new IllegalArgumentException("flushMs, maxPendientes y maxIntentos deben ser al menos 1");
+        }
+        this.credencialDao = credencialDao;
+        this.cache = cache;
+        this.maxPendientes = maxPendientes;
+        this.maxIntentos = maxIntentos;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ultima-sesion-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSeguro, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Instancia compartida, configurada desde Config. */
+    public static RegistroUltimaSesion compartido() {
+        RegistroUltimaSesion r = compartido;
+        if (r == null || r.cerrado) {
+            synchronized (RegistroUltimaSesion.class) {
+                r = compartido;
+                if (r == null || r.cerrado) {
+                    r = new RegistroUltimaSesion(new CredencialAccesoDaoImpl(), CredencialCache.compartida(),
+                            Config.SESIONES_FLUSH_MS, Config.SESIONES_MAX_PENDIENTES,
+                            Config.SESIONES_MAX_INTENTOS);
+                    compartido = r;
+                }
+            }
+        }
+        return r;
+    }
+
+    // ======================================================
+    // REGISTRO
+    // ======================================================
+
+    /**
+     * Anoto la última sesión de un usuario para escribirla en el próximo flush.
+     * No toca la base y no bloquea.
+     *
+     * @return false si el buffer estaba lleno (o cerrado) y se descartó
+     */
+    public boolean registrar(Long usuarioId, LocalDateTime ultimaSesion) {
+        if (usuarioId == null || ultimaSesion == null) {
+            throw new IllegalArgumentException("usuarioId y ultimaSesion son obligatorios");
+        }
+        if (cerrado) {
+            descartados.increment();
+            return false;
+        }
+        if (cache != null) cache.actualizarUltimaSesion(usuarioId, ultimaSesion);
+
+        if (pendientes.size() >= maxPendientes && !pendientes.containsKey(usuarioId)) {
+            adelantarFlush();
+            descartados.increment();
+            return false;
+        }
+        registrados.increment();
+        boolean[] yaHabia = new boolean[1];
+        pendientes.compute(usuarioId, (id, anterior) -> {
+            if (anterior == null) return ultimaSesion;
+            yaHabia[0] = true;
+            return masNueva(anterior, ultimaSesion);
+        });
+        if (yaHabia[0]) coalescidos.increment();
+        if (pendientes.size() >= maxPendientes) {
+            adelantarFlush();
+        }
+        return true;
+    }
+
+    private static LocalDateTime masNueva(LocalDateTime a, LocalDateTime b) {
+        return b.isAfter(a) ? b : a;
+    }
+
+    /** Pido un flush ya, sin esperar al próximo ciclo (uno a la vez). */
+    private void adelantarFlush() {
+        if (!cerrado && flushAdelantado.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushAdelantado.set(false);
+                    flushSeguro();
+                });
+            } catch (RuntimeException e) {
+                flushAdelantado.set(false);
+            }
+        }
+    }
+
+    // ======================================================
+    // FLUSH
+    // ======================================================
+
+    /**
+     * Escribo todo lo pendiente en un solo lote. Lo uso desde el hilo de
+     * flush y desde close(); también se puede llamar a mano.
+     *
+     * @return filas actualizadas
+     * @throws SQLException si falla la conexión (lo que no se escribió vuelve al buffer)
+     */
+    public synchronized int flush() throws SQLException {
+        if (pendientes.isEmpty()) return 0;
+
+        // Saco cada entrada con remove(clave, valor): si justo llegó una fecha
+        // más nueva para ese usuario, queda en el buffer para el próximo flush.
+        Map<Long, LocalDateTime> lote = new HashMap<>();
+        Iterator<Map.Entry<Long, LocalDateTime>> it = pendientes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, LocalDateTime> e = it.next();
+            if (pendientes.remove(e.getKey(), e.getValue())) {
+                lote.put(e.getKey(), e.getValue());
+            }
+        }
+        if (lote.isEmpty()) return 0;
+
+        long t0 = System.nanoTime();
+        try {
+            int filas = escribir(lote, new ArrayList<>(lote.keySet()));
+            flushes.increment();
+            filasEscritas.add(filas);
+            return filas;
+        } catch (SQLException | RuntimeException e) {
+            // Problema de conexión: lo que quedó sin escribir vuelve entero, sin contar intentos
+            erroresFlush.increment();
+            lote.forEach(this::reencolar);
+            throw e;
+        } finally {
+            ultimoFlushMs.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+        }
+    }
+
+    /**
+     * Escribo las filas indicadas del lote en una transacción y las saco del
+     * lote. Si falla por una fila, parto al medio y reintento cada mitad; una
+     * fila que falla sola sale del lote y vuelve al buffer (o se abandona).
+     * Los errores de conexión los relanzo sin partir: ahí fallaría todo igual.
+     */
+    private int escribir(Map<Long, LocalDateTime> lote, List<Long> ids) throws SQLException {
+        Map<Long, LocalDateTime> parte = new HashMap<>();
+        for (Long id : ids) parte.put(id, lote.get(id));
+        try {
+            int filas = credencialDao.updateUltimasSesiones(parte);
+            for (Long id : ids) {
+                lote.remove(id);
+                intentos.remove(id);
+            }
+            return filas;
+        } catch (SQLException | RuntimeException e) {
+            if (esDeConexion(e)) throw e;
+            if (ids.size() == 1) {
+                Long id = ids.get(0);
+                falloFila(id, lote.remove(id), e);
+                return 0;
+            }
+            int mitad = ids.size() / 2;
+            return escribir(lote, ids.subList(0, mitad)) + escribir(lote, ids.subList(mitad, ids.size()));
+        }
+    }
+
+    private void falloFila(Long usuarioId, LocalDateTime ultimaSesion, Exception e) {
+        erroresFlush.increment();
+        int n = intentos.merge(usuarioId, 1, Integer::sum);
+        if (n >= maxIntentos) {
+            intentos.remove(usuarioId);
+            abandonados.increment();
+            System.err.println("⚠️ Se abandona la última sesión del usuario " + usuarioId
+                    + " tras " + n + " intentos: " + e.getMessage());
+            return;
+        }
+        if (!reencolar(usuarioId, ultimaSesion)) intentos.remove(usuarioId);
+    }
+
+    /**
+     * Devuelvo una fecha al buffer sin pisar una más nueva, respetando el
+     * tope: si el usuario no estaba y el buffer está lleno, la descarto.
+     */
+    private boolean reencolar(Long usuarioId, LocalDateTime ultimaSesion) {
+        if (pendientes.size() >= maxPendientes && !pendientes.containsKey(usuarioId)) {
+            descartados.increment();
+            return false;
+        }
+        pendientes.merge(usuarioId, ultimaSesion, RegistroUltimaSesion::masNueva);
+        return true;
+    }
+
+    /** Errores que no son de una fila sino de la base o la conexión (SQLState 08xxx). */
+    private static boolean esDeConexion(Exception e) {
+        if (!(e instanceof SQLException sql)) return false;
+        String estado = sql.getSQLState();
+        return sql instanceof SQLTransientConnectionException
+                || sql instanceof SQLNonTransientConnectionException
+                || (estado != null && estado.startsWith("08"));
+    }
+
+    private void flushSeguro() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("⚠️ No se pudieron registrar las últimas sesiones (se reintenta): " + e.getMessage());
+        }
+    }
+
+    /** Dejo de aceptar registros, espero el ciclo en curso y hago el último flush. */
+    @Override
+    public void close() {
+        if (cerrado) return;
+        cerrado = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushSeguro();
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    /** Usuarios con una última sesión esperando escritura. */
+    public int getPendientes() { return pendientes.size(); }
+
+    public long getRegistrados() { return registrados.sum(); }
+
+    /** Registros que se juntaron con otro pendiente del mismo usuario. */
+    public long getCoalescidos() { return coalescidos.sum(); }
+
+    public long getDescartados() { return descartados.sum(); }
+
+    public long getFlushes() { return flushes.sum(); }
+
+    public long getFilasEscritas() { return filasEscritas.sum(); }
+
+    public long getErroresFlush() { return erroresFlush.sum(); }
+
+    /** Filas que se dejaron de reintentar tras maxIntentos flushes fallidos. */
+    public long getAbandonados() { return abandonados.sum(); }
+
+    /** Duración del último flush, en milisegundos. */
+    public long getUltimoFlushMs() { return ultimoFlushMs.get(); }
+
+    @Override
+    public String toString() {
+        return "RegistroUltimaSesion{" +
+                "pendientes=" + getPendientes() +
+                ", registrados=" + getRegistrados() +
+                ", coalescidos=" + getCoalescidos() +
+                ", descartados=" + getDescartados() +
+                ", flushes=" + getFlushes() +
+                ", filasEscritas=" + getFilasEscritas() +
+                ", erroresFlush=" + getErroresFlush() +
+                ", abandonados=" + getAbandonados() +
+                ", ultimoFlushMs=" + getUltimoFlushMs() +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+package integradorfinal.programacion2.service.sesion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sesión de un usuario autenticado.
+ *
+ * El token es opaco (bytes aleatorios en base64url): no contiene datos del
+ * usuario y solo sirve para buscar la sesión en {@link AlmacenSesiones}.
+ */
+public final class Sesion {
+
+    private final String token;
+    private final Long usuarioId;
+    private final String username;
+    private final LocalDateTime creada;
+
+    // Vencimiento en System.nanoTime() y en ticks de la rueda de tiempo
+    final long expiraNs;
+    final long expiraTick;
+
+    Sesion(String token, Long usuarioId, String username, LocalDateTime creada, long expiraNs, long expiraTick) {
+        this.token = token;
+        this.usuarioId = usuarioId;
+        this.username = username;
+        this.creada = creada;
+        this.expiraNs = expiraNs;
+        this.expiraTick = expiraTick;
+    }
+
+    public String getToken() { return token; }
+
+    public Long getUsuarioId() { return usuarioId; }
+
+    public String getUsername() { return username; }
+
+    public LocalDateTime getCreada() { return creada; }
+
+    boolean vencida(long ahoraNs) {
+        return ahoraNs - expiraNs >= 0;
+    }
+
+    @Override
+    public String toString() {
+        // No muestro el token completo para que no termine en un log
+        return "Sesion{" +
+                "usuarioId=" + usuarioId +
+                ", username='" + username + '\'' +
+                ", creada=" + creada +
+                ", token=" + token.substring(0, Math.min(6, token.length())) + "…" +
+                '}';
+    }
+}
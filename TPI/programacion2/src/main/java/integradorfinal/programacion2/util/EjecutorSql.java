@@ -0,0 +1,218 @@
+package integradorfinal.programacion2.util;
+
+import integradorfinal.programacion2.config.CancelacionSql;
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.exceptions.SobrecargaException;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor para correr llamadas bloqueantes de JDBC (DAO / servicios) sin
+ * bloquear a quien las pide: cada llamada devuelve un CompletableFuture.
+ *
+ * Hilos:
+ * - Si la JVM tiene hilos virtuales (Java 21+), uso un hilo virtual por
+ *   llamada: miles de llamadas en vuelo no ocupan miles de hilos del sistema.
+ *   Lo busco por reflexión porque el proyecto compila con Java 17.
+ * - Si no, uso un grupo fijo de hilos de plataforma con una cola acotada; con
+ *   la cola llena la llamada falla en el acto con {@link SobrecargaException}.
+ * En los dos casos el límite real de consultas simultáneas lo pone el pool de
+ * conexiones; el resto espera su turno sin ocupar una conexión.
+ *
+ * Timeout y cancelación: cada llamada corre con su propia {@link CancelacionSql}.
+ * Si se vence el timeout o quien la pidió cancela el future, cancelo las
+ * consultas que estén corriendo (Statement.cancel, el servidor corta la
+ * consulta) y cualquier consulta nueva de esa llamada falla en el acto. Si la
+ * llamada todavía no había arrancado, directamente no corre.
+ *
+ * Escrituras: después de la cancelación la llamada no puede confirmar (su
+ * commit hace rollback y falla), así que un timeout normalmente significa
+ * "no se escribió". La excepción es un commit que ya estaba en curso cuando
+ * venció el timeout: ese puede haber quedado, y el TimeoutException no lo
+ * distingue. Ante un timeout de una escritura, el resultado es desconocido
+ * hasta releer.
+ */
+public final class EjecutorSql implements AutoCloseable {
+
+    /** Llamada bloqueante a correr en el executor (puede tirar SQLException). */
+    @FunctionalInterface
+    public interface Llamada<T> {
+        T ejecutar() throws Exception;
+    }
+
+    private static volatile EjecutorSql compartido;
+
+    private final ExecutorService executor;
+    private final boolean hilosVirtuales;
+    private final long timeoutPorDefectoMs;
+
+    // Métricas
+    private final AtomicInteger enVuelo = new AtomicInteger();
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder canceladas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+
+    /**
+     * @param hilos               hilos de plataforma si no hay hilos virtuales
+     * @param capacidadCola       llamadas en espera como máximo (solo sin hilos virtuales)
+     * @param timeoutPorDefectoMs timeout de las llamadas que no indican otro
+     */
+    public EjecutorSql(int hilos, int capacidadCola, long timeoutPorDefectoMs) {
+        if (hilos < 1 || capacidadCola < 1 || timeoutPorDefectoMs < 1) {
+            throw new IllegalArgumentException("Configuración inválida del executor asíncrono");
+        }
+        this.timeoutPorDefectoMs = timeoutPorDefectoMs;
+
+        ExecutorService virtuales = executorVirtual();
+        this.hilosVirtuales = virtuales != null;
+        if (virtuales != null) {
+            this.executor = virtuales;
+        } else {
+            AtomicInteger n = new AtomicInteger();
+            ThreadPoolExecutor tpe = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(capacidadCola), r -> {
+                        Thread t = new Thread(r, "sql-async-" + n.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            tpe.allowCoreThreadTimeOut(true);
+            this.executor = tpe;
+        }
+    }
+
+    /** Executor compartido por toda la aplicación, configurado desde Config. */
+    public static EjecutorSql compartido() {
+        EjecutorSql e = compartido;
+        if (e == null) {
+            synchronized (EjecutorSql.class) {
+                e = compartido;
+                if (e == null) {
+                    int hilos = Config.ASYNC_HILOS > 0 ? Config.ASYNC_HILOS : Config.POOL_MAX_SIZE * 2;
+                    e = new EjecutorSql(hilos, Config.ASYNC_COLA, Config.ASYNC_TIMEOUT_MS);
+                    compartido = e;
+                }
+            }
+        }
+        return e;
+    }
+
+    /** Executors.newVirtualThreadPerTaskExecutor() si existe en esta JVM, o null. */
+    private static ExecutorService executorVirtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ======================================================
+    // LLAMADAS
+    // ======================================================
+
+    /** Corro la llamada con el timeout por defecto. */
+    public <T> CompletableFuture<T> ejecutar(Llamada<T> llamada) {
+        return ejecutar(llamada, Duration.ofMillis(timeoutPorDefectoMs));
+    }
+
+    /**
+     * Corro la llamada en el executor.
+     *
+     * El future se completa con el resultado, con la excepción que tiró la
+     * llamada (por ejemplo, SQLException), con TimeoutException si se vence
+     * el timeout o con CancellationException si alguien lo cancela.
+     * Con TimeoutException o CancellationException una escritura puede
+     * haberse confirmado igual si el commit ya había salido (ver la clase).
+     */
+    public <T> CompletableFuture<T> ejecutar(Llamada<T> llamada, Duration timeout) {
+        CancelacionSql cancelacion = new CancelacionSql();
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+
+        try {
+            executor.execute(() -> correr(llamada, cancelacion, futuro));
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            futuro.completeExceptionally(new SobrecargaException("Demasiadas llamadas a la base en espera", e));
+            return futuro;
+        }
+
+        futuro.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        futuro.whenComplete((r, ex) -> {
+            if (ex instanceof TimeoutException) {
+                timeouts.increment();
+                cancelacion.cancelar();
+            } else if (ex instanceof CancellationException) {
+                canceladas.increment();
+                cancelacion.cancelar();
+            }
+        });
+        return futuro;
+    }
+
+    private <T> void correr(Llamada<T> llamada, CancelacionSql cancelacion, CompletableFuture<T> futuro) {
+        if (futuro.isDone()) return; // cancelada o vencida antes de arrancar
+        enVuelo.incrementAndGet();
+        try {
+            T r = CancelacionSql.ejecutarCon(cancelacion, llamada::ejecutar);
+            if (futuro.complete(r)) completadas.increment();
+        } catch (Throwable t) {
+            if (futuro.completeExceptionally(t instanceof CompletionException && t.getCause() != null
+                    ? t.getCause() : t)) {
+                fallidas.increment();
+            }
+        } finally {
+            enVuelo.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    public boolean isHilosVirtuales() { return hilosVirtuales; }
+
+    /** Llamadas corriendo en este momento. */
+    public int getEnVuelo() { return enVuelo.get(); }
+
+    public long getCompletadas() { return completadas.sum(); }
+
+    public long getFallidas() { return fallidas.sum(); }
+
+    public long getTimeouts() { return timeouts.sum(); }
+
+    public long getCanceladas() { return canceladas.sum(); }
+
+    /** Llamadas rechazadas por cola llena. */
+    public long getRechazadas() { return rechazadas.sum(); }
+
+    @Override
+    public String toString() {
+        return "EjecutorSql{" +
+                "hilosVirtuales=" + hilosVirtuales +
+                ", enVuelo=" + getEnVuelo() +
+                ", completadas=" + getCompletadas() +
+                ", fallidas=" + getFallidas() +
+                ", timeouts=" + getTimeouts() +
+                ", canceladas=" + getCanceladas() +
+                ", rechazadas=" + getRechazadas() +
+                '}';
+    }
+}
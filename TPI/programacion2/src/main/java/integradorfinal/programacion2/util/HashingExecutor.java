@@ -0,0 +1,355 @@
+package integradorfinal.programacion2.util;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.exceptions.SobrecargaException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor dedicado para el trabajo caro de contraseñas (hashear y validar).
+ *
+ * Antes el hash corría en el hilo que llamaba: una ráfaga de altas dejaba
+ * a todos los hilos ocupados en PBKDF2 y las consultas baratas esperaban.
+ * Acá el hashing tiene su propio grupo de hilos, con tope de hilos y de cola:
+ *
+ * - Admisión: un semáforo con (hilos + capacidad de cola) permisos. Con la
+ *   política RECHAZAR, si no hay lugar tiro {@link SobrecargaException} en el
+ *   acto; con ESPERAR espero hasta timeoutMs a que se libere un lugar.
+ * - Tiempo máximo: quien llama espera el resultado como mucho timeoutMs desde
+ *   que la tarea entró; si se vence, la cancelo y tiro SobrecargaException.
+ * - Métricas: profundidad de cola, tareas en ejecución, rechazos, timeouts y
+ *   tiempo de espera en cola (promedio y máximo).
+ *
+ * Si ya estoy en un hilo de hashing, ejecuto directo para no bloquearme
+ * esperando a mi propio executor.
+ */
+public final class HashingExecutor implements AutoCloseable {
+
+    /** Qué hago cuando no hay lugar en la cola. */
+    public enum Politica {
+        RECHAZAR, ESPERAR;
+
+        static Politica from(String s) {
+            try {
+                return Politica.valueOf(s.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                return ESPERAR;
+            }
+        }
+    }
+
+    private static volatile HashingExecutor compartido;
+
+    private static final ThreadLocal<Boolean> EN_HILO_DE_HASH = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore lugares;
+    private final Politica politica;
+    private final long timeoutNs;
+
+    // Métricas
+    private final LongAdder iniciadas = new LongAdder();
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder esperaTotalNs = new LongAdder();
+    private final AtomicLong esperaMaximaNs = new AtomicLong();
+
+    /**
+     * @param hilos         hilos dedicados al hashing
+     * @param capacidadCola tareas que pueden esperar en cola además de las que corren
+     * @param politica      qué hacer con la cola llena
+     * @param timeoutMs     tiempo máximo de espera (por lugar y por resultado)
+     */
+    public HashingExecutor(int hilos, int capacidadCola, Politica politica, long timeoutMs) {
+        if (hilos < 1 || capacidadCola < 0 || timeoutMs < 1) {
+            throw new IllegalArgumentException("Configuración inválida del executor de hashing");
+        }
+        this.politica = politica == null ? Politica.ESPERAR : politica;
+        this.timeoutNs = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        this.lugares = new Semaphore(hilos + capacidadCola, true);
+
+        AtomicInteger n = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                // La cola tiene lugar de sobra: el límite real lo pone el semáforo
+                new ArrayBlockingQueue<>(hilos + capacidadCola), r -> {
+                    Thread t = new Thread(() -> {
+                        EN_HILO_DE_HASH.set(Boolean.TRUE);
+                        r.run();
+                    }, "hashing-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Executor compartido por toda la aplicación, configurado desde Config. */
+    public static HashingExecutor compartido() {
+        HashingExecutor e = compartido;
+        if (e == null) {
+            synchronized (HashingExecutor.class) {
+                e = compartido;
+                if (e == null) {
+                    int hilos = Config.HASH_EXECUTOR_HILOS > 0
+                            ? Config.HASH_EXECUTOR_HILOS
+                            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+                    e = new HashingExecutor(hilos, Config.HASH_EXECUTOR_COLA,
+                            Politica.from(Config.HASH_EXECUTOR_POLITICA), Config.HASH_EXECUTOR_TIMEOUT_MS);
+                    compartido = e;
+                }
+            }
+        }
+        return e;
+    }
+
+    // ======================================================
+    // OPERACIONES
+    // ======================================================
+
+    /** Hash con el algoritmo actual, calculado en el executor. */
+    public String hash(String password, String salt) {
+        return ejecutar(() -> PasswordHashing.hash(password, salt));
+    }
+
+    /** Validación de contraseña, calculada en el executor. */
+    public boolean verificar(String password, String salt, String almacenado) {
+        return ejecutar(() -> PasswordHashing.verificar(password, salt, almacenado));
+    }
+
+    /**
+     * Resultado del hash de un ítem del lote: el hash, o el error si ese
+     * ítem no se pudo hashear.
+     */
+    public record Hasheado(String hash, RuntimeException error) {
+
+        public boolean ok() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Hash de varias contraseñas (alta masiva). Acá no aplico la política de
+     * rechazo: un lote prefiere ir más lento antes que perder ítems, así que
+     * espero lugar sin límite y la cola acotada hace de contrapresión.
+     *
+     * Cada ítem se resuelve por separado: si uno falla, los demás siguen y
+     * su error queda en su posición del resultado.
+     *
+     * @return un resultado por password, en el mismo orden
+     */
+    public List<Hasheado> hashTodos(List<String> passwords, List<String> salts) {
+        if (passwords.size() != salts.size()) {
+            throw new IllegalArgumentException("Tiene que haber un salt por cada password");
+        }
+        if (EN_HILO_DE_HASH.get()) {
+            List<Hasheado> out = new ArrayList<>(passwords.size());
+            for (int i = 0; i < passwords.size(); i++) {
+                try {
+                    out.add(new Hasheado(PasswordHashing.hash(passwords.get(i), salts.get(i)), null));
+                } catch (RuntimeException e) {
+                    out.add(new Hasheado(null, e));
+                }
+            }
+            return out;
+        }
+
+        List<Future<String>> futuros = new ArrayList<>(passwords.size());
+        try {
+            for (int i = 0; i < passwords.size(); i++) {
+                String pw = passwords.get(i);
+                String salt = salts.get(i);
+                lugares.acquire();
+                try {
+                    futuros.add(encolar(() -> PasswordHashing.hash(pw, salt)));
+                } catch (SobrecargaException e) {
+                    // No se pudo encolar (executor cerrado); encolar ya devolvió el lugar
+                    futuros.add(fallido(e));
+                }
+            }
+            List<Hasheado> out = new ArrayList<>(futuros.size());
+            for (Future<String> f : futuros) {
+                try {
+                    out.add(new Hasheado(f.get(), null));
+                } catch (ExecutionException e) {
+                    out.add(new Hasheado(null, propagar(e)));
+                } catch (CancellationException e) {
+                    out.add(new Hasheado(null, new SobrecargaException("El hashing de contraseña fue cancelado", e)));
+                }
+            }
+            return out;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuros.forEach(f -> f.cancel(true));
+            throw new SobrecargaException("Interrumpido esperando el hashing del lote", e);
+        }
+    }
+
+    /** Futuro ya terminado con el error, para que el ítem falle como los demás. */
+    private static Future<String> fallido(RuntimeException e) {
+        FutureTask<String> f = new FutureTask<>(() -> { throw e; });
+        f.run();
+        return f;
+    }
+
+    /**
+     * Ejecuto una tarea en el executor y espero su resultado, aplicando la
+     * política de admisión y el tiempo máximo.
+     */
+    public <T> T ejecutar(Callable<T> tarea) {
+        if (EN_HILO_DE_HASH.get()) {
+            return llamar(tarea);
+        }
+
+        long inicio = System.nanoTime();
+        admitir();
+        Future<T> f = encolar(tarea);
+        try {
+            long restante = timeoutNs - (System.nanoTime() - inicio);
+            return f.get(Math.max(0, restante), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(true);
+            timeouts.increment();
+            throw new SobrecargaException("El hashing de contraseña no terminó a tiempo", e);
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SobrecargaException("Interrumpido esperando el hashing de contraseña", e);
+        } catch (CancellationException e) {
+            throw new SobrecargaException("El hashing de contraseña fue cancelado", e);
+        } catch (ExecutionException e) {
+            throw propagar(e);
+        }
+    }
+
+    private void admitir() {
+        boolean ok;
+        if (politica == Politica.RECHAZAR) {
+            ok = lugares.tryAcquire();
+        } else {
+            try {
+                ok = lugares.tryAcquire(timeoutNs, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SobrecargaException("Interrumpido esperando lugar para hashear", e);
+            }
+        }
+        if (!ok) {
+            rechazadas.increment();
+            throw new SobrecargaException("Demasiadas operaciones de contraseña en curso, intente más tarde");
+        }
+    }
+
+    /**
+     * Encolo la tarea (ya tengo el permiso) y mido cuánto esperó en cola.
+     * El permiso se devuelve cuando termina, se cancela o no se pudo encolar.
+     */
+    private <T> Future<T> encolar(Callable<T> tarea) {
+        long encolada = System.nanoTime();
+        FutureTask<T> f = new FutureTask<>(() -> {
+            registrarEspera(System.nanoTime() - encolada);
+            return tarea.call();
+        }) {
+            @Override
+            protected void done() {
+                lugares.release();
+                if (isCancelled()) {
+                    // Si todavía estaba en cola, la saco para que no ocupe lugar
+                    executor.remove(this);
+                } else {
+                    completadas.increment();
+                }
+            }
+        };
+        try {
+            executor.execute(f);
+        } catch (RuntimeException e) {
+            // Executor cerrado: done() no va a correr, devuelvo el permiso acá
+            lugares.release();
+            rechazadas.increment();
+            throw new SobrecargaException("El executor de hashing no acepta más tareas", e);
+        }
+        return f;
+    }
+
+    private void registrarEspera(long ns) {
+        iniciadas.increment();
+        esperaTotalNs.add(ns);
+        esperaMaximaNs.accumulateAndGet(ns, Math::max);
+    }
+
+    private static <T> T llamar(Callable<T> tarea) {
+        try {
+            return tarea.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static RuntimeException propagar(ExecutionException e) {
+        Throwable causa = e.getCause();
+        if (causa instanceof RuntimeException re) return re;
+        if (causa instanceof Error err) throw err;
+        return new IllegalStateException(causa);
+    }
+
+    /** Cierro el executor; las tareas ya encoladas terminan. */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    /** Tareas esperando en cola (todavía no empezaron). */
+    public int getProfundidadCola() { return executor.getQueue().size(); }
+
+    /** Tareas corriendo en este momento. */
+    public int getEnEjecucion() { return executor.getActiveCount(); }
+
+    public long getCompletadas() { return completadas.sum(); }
+
+    public long getRechazadas() { return rechazadas.sum(); }
+
+    public long getTimeouts() { return timeouts.sum(); }
+
+    /** Espera promedio en cola, en milisegundos. */
+    public double getEsperaPromedioMs() {
+        long n = iniciadas.sum();
+        return n == 0 ? 0 : esperaTotalNs.sum() / 1_000_000.0 / n;
+    }
+
+    /** Espera máxima en cola observada, en milisegundos. */
+    public double getEsperaMaximaMs() { return esperaMaximaNs.get() / 1_000_000.0; }
+
+    @Override
+    public String toString() {
+        return "HashingExecutor{" +
+                "cola=" + getProfundidadCola() +
+                ", enEjecucion=" + getEnEjecucion() +
+                ", completadas=" + getCompletadas() +
+                ", rechazadas=" + getRechazadas() +
+                ", timeouts=" + getTimeouts() +
+                ", esperaPromedioMs=" + String.format(Locale.ROOT, "%.2f", getEsperaPromedioMs()) +
+                ", esperaMaximaMs=" + String.format(Locale.ROOT, "%.2f", getEsperaMaximaMs()) +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package integradorfinal.programacion2.util;
+
+/**
+ * Estrategia de hash de contraseñas.
+ *
+ * Cada implementación guarda en credencial_acceso.hash_password un texto que
+ * empieza con su identificador y sus parámetros, por ejemplo:
+ *
+ * <pre>
+ *   $sha256$&lt;hash hex&gt;
+ *   $pbkdf2-sha256$i=210000$&lt;hash hex&gt;
+ * </pre>
+ *
+ * Así, al validar un login sé con qué algoritmo y con qué costo se generó
+ * ese hash aunque la configuración actual sea otra. El salt sigue yendo en
+ * su propia columna.
+ */
+public interface PasswordHasher {
+
+    /** Identificador del algoritmo (el que va entre los primeros '$'). */
+    String id();
+
+    /**
+     * Calcula el hash de la contraseña con el salt dado y lo devuelve ya
+     * codificado para guardar en hash_password.
+     */
+    String hash(String password, String salt);
+
+    /** Indica si el hash guardado lo generó este algoritmo. */
+    boolean soporta(String almacenado);
+
+    /**
+     * Valida la contraseña contra un hash guardado que este algoritmo soporta,
+     * usando los parámetros que vienen codificados en el propio hash.
+     */
+    boolean verificar(String password, String salt, String almacenado);
+
+    /**
+     * Indica si el hash guardado fue generado con otro algoritmo o con un
+     * costo menor que el de esta instancia (y conviene regenerarlo).
+     */
+    boolean necesitaRehash(String almacenado);
+}
@@ -0,0 +1,149 @@
+package integradorfinal.programacion2.util;
+
+import integradorfinal.programacion2.config.Config;
+
+/**
+ * Punto único para hashear y validar contraseñas en la aplicación.
+ *
+ * - Para hashear uso siempre el algoritmo "actual", elegido en db.properties
+ *   (hash.algoritmo) con su costo.
+ * - Para validar miro el prefijo del hash guardado y uso el algoritmo y los
+ *   parámetros con que se generó, aunque hoy la configuración sea otra.
+ * - {@link #necesitaRehash(String)} dice si un hash guardado quedó
+ *   desactualizado respecto de la configuración actual; el login lo usa para
+ *   regenerarlo apenas valida la contraseña.
+ *
+ * Las iteraciones de PBKDF2 van fijas en db.properties (hash.pbkdf2.iteraciones),
+ * así todos los servidores y todos los arranques hashean con el mismo costo.
+ * Si vale 0, las calibro midiendo en esta máquina cuántas entran en
+ * hash.objetivoMs y muestro el valor para fijarlo; la calibración tarda
+ * alrededor de un segundo, por eso se hace al arrancar ({@link #inicializar()})
+ * y no dentro del primer login.
+ */
+public final class PasswordHashing {
+
+    // Cotas para que la calibración no dé algo absurdo en una máquina muy lenta o muy rápida
+    private static final int MIN_ITERACIONES = 10_000;
+    private static final int MAX_ITERACIONES = 10_000_000;
+
+    // Iteraciones de cada medición durante la calibración
+    private static final int ITERACIONES_MUESTRA = 10_000;
+
+    // Tiempo mínimo de calentamiento antes de medir (hasta que el JIT compile HMAC/SHA)
+    private static final long CALENTAMIENTO_NS = 500_000_000L;
+
+    private static final PasswordHasher SHA256 = new Sha256PasswordHasher();
+
+    private static volatile PasswordHasher actual;
+
+    private PasswordHashing() {}
+
+    /** El algoritmo con el que se generan los hashes nuevos. */
+    public static PasswordHasher actual() {
+        PasswordHasher h = actual;
+        if (h == null) {
+            synchronized (PasswordHashing.class) {
+                h = actual;
+                if (h == null) {
+                    h = crearDesdeConfig();
+                    actual = h;
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Preparo el algoritmo actual (y calibro, si hace falta) antes de atender
+     * pedidos. Lo llama Main al arrancar.
+     */
+    public static void inicializar() {
+        actual();
+    }
+
+    /** Cambio el algoritmo actual (por ejemplo, después de recalibrar). */
+    public static void usar(PasswordHasher hasher) {
+        if (hasher == null) {
+            throw new IllegalArgumentException("El algoritmo de hash no puede ser null");
+        }
+        actual = hasher;
+    }
+
+    /** Hash de la contraseña con el algoritmo actual, listo para hash_password. */
+    public static String hash(String password, String salt) {
+        return actual().hash(password, salt);
+    }
+
+    /**
+     * Valido la contraseña con el algoritmo que generó el hash guardado.
+     * Si no reconozco el formato, devuelvo false.
+     */
+    public static boolean verificar(String password, String salt, String almacenado) {
+        PasswordHasher h = hasherDe(almacenado);
+        return h != null && h.verificar(password, salt, almacenado);
+    }
+
+    /** Indica si conviene regenerar el hash guardado con la configuración actual. */
+    public static boolean necesitaRehash(String almacenado) {
+        return actual().necesitaRehash(almacenado);
+    }
+
+    private static PasswordHasher hasherDe(String almacenado) {
+        if (almacenado == null) return null;
+        PasswordHasher a = actual();
+        if (a.soporta(almacenado)) return a;
+        if (almacenado.startsWith("$" + Pbkdf2PasswordHasher.ID + "$")) {
+            // Hash PBKDF2 con otras iteraciones: la instancia valida con las del propio hash
+            return new Pbkdf2PasswordHasher(1);
+        }
+        if (SHA256.soporta(almacenado)) return SHA256;
+        return null;
+    }
+
+    private static PasswordHasher crearDesdeConfig() {
+        if (Sha256PasswordHasher.ID.equalsIgnoreCase(Config.HASH_ALGORITMO)) {
+            return SHA256;
+        }
+        int it = Config.HASH_PBKDF2_ITERACIONES;
+        if (it <= 0) {
+            it = calibrarIteraciones(Config.HASH_OBJETIVO_MS);
+            System.out.println("🔐 PBKDF2 calibrado: " + it + " iteraciones (~"
+                    + Config.HASH_OBJETIVO_MS + " ms por hash). Fijar hash.pbkdf2.iteraciones="
+                    + it + " en db.properties para no recalibrar en cada arranque.");
+        }
+        return new Pbkdf2PasswordHasher(it);
+    }
+
+    // ======================================================
+    // CALIBRACIÓN
+    // ======================================================
+
+    /**
+     * Calculo cuántas iteraciones de PBKDF2 entran en objetivoMs en esta
+     * máquina. Primero caliento un rato (si mido en frío, el JIT todavía no
+     * compiló el HMAC y la calibración da varias veces menos), mido varias muestras
+     * de ITERACIONES_MUESTRA, me quedo con la más rápida (la menos afectada
+     * por ruido) y escalo. Redondeo a miles y acoto entre MIN y MAX.
+     */
+    public static int calibrarIteraciones(long objetivoMs) {
+        if (objetivoMs < 1) {
+            throw new IllegalArgumentException("El objetivo de latencia debe ser al menos 1 ms");
+        }
+        String salt = PasswordUtil.generateSalt(16);
+        long inicio = System.nanoTime();
+        while (System.nanoTime() - inicio < CALENTAMIENTO_NS) {
+            Pbkdf2PasswordHasher.derivar("calibracion", salt, ITERACIONES_MUESTRA);
+        }
+
+        long mejorNs = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long t0 = System.nanoTime();
+            Pbkdf2PasswordHasher.derivar("calibracion", salt, ITERACIONES_MUESTRA);
+            mejorNs = Math.min(mejorNs, System.nanoTime() - t0);
+        }
+
+        double porIteracionNs = (double) Math.max(1, mejorNs) / ITERACIONES_MUESTRA;
+        long it = Math.round(objetivoMs * 1_000_000.0 / porIteracionNs / 1000.0) * 1000;
+        return (int) Math.max(MIN_ITERACIONES, Math.min(MAX_ITERACIONES, it));
+    }
+}
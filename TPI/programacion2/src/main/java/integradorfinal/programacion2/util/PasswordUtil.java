@@ -1,6 +1,6 @@
 package integradorfinal.programacion2.util;
 
-import java.nio.charset.StandardCharsets;
+import java.nio.CharBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -13,56 +13,220 @@ import java.security.SecureRandom;
  *
  * Nota: Para producción suele recomendarse BCrypt/Argon2.
  * Para el integrador, SHA-256 + salt es suficiente.
+ *
+ * Como esto corre en cada login y en cada alta, está escrito para generar
+ * la menor basura posible:
+ * - Un MessageDigest por hilo (no llamo a getInstance en cada hash).
+ * - El texto (password + salt) se codifica a UTF-8 directo dentro del
+ *   digest, sin armar el String concatenado ni el byte[] intermedio.
+ * - El hex se arma con una tabla, no con String.format por byte.
+ * - La validación compara en tiempo constante contra el hash decodificado,
+ *   sin pasar los dos hex a byte[].
+ *
+ * El resultado es exactamente el mismo que calcular
+ * SHA-256(UTF-8(password + saltHex)) y pasarlo a hex en minúsculas.
  */
 public final class PasswordUtil {
 
     private static final String HASH_ALGO = "SHA-256";
-    private static final SecureRandom RNG = new SecureRandom();
+    private static final int HASH_BYTES = 32;
+
+    // Un generador por hilo: un SecureRandom compartido serializa a todos los que piden salt
+    private static final ThreadLocal<SecureRandom> RNG = ThreadLocal.withInitial(PasswordUtil::nuevoGenerador);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Tamaño del buffer donde codifico a UTF-8 antes de pasarle los bytes al digest
+    private static final int BUFFER_BYTES = 256;
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(HASH_ALGO);
+        } catch (NoSuchAlgorithmException e) {
+            // No debería ocurrir para SHA-256 en JRE moderno
+            throw new IllegalStateException("Algoritmo de hash no disponible: " + HASH_ALGO, e);
+        }
+    });
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_BYTES]);
 
     private PasswordUtil() {}
 
-    /** Genera un salt aleatorio de N bytes, devuelto como hex. */
+    /**
+     * Genera un salt aleatorio de N bytes, devuelto como hex, con el
+     * generador del hilo actual. Para altas y cambios de contraseña conviene
+     * {@link ProveedorSalt}, que ya los tiene generados.
+     */
     public static String generateSalt(int numBytes) {
-        
+
         byte[] salt = new byte[numBytes];
-        RNG.nextBytes(salt);
+        RNG.get().nextBytes(salt);
         return toHex(salt);
     }
 
-    /** Calcula el hash SHA-256 de (password + salt) y devuelve hex. */
-    public static String hashPassword(String password, String saltHex) {
+    /** Generador aleatorio del hilo actual. */
+    static SecureRandom rng() {
+        return RNG.get();
+    }
+
+    /**
+     * Creo un generador DRBG: se siembra una sola vez y después no vuelve a
+     * leer entropía del sistema ni comparte locks con otras instancias (el
+     * NativePRNG por defecto sí, uno global para todos los hilos).
+     */
+    static SecureRandom nuevoGenerador() {
         try {
-            MessageDigest md = MessageDigest.getInstance(HASH_ALGO);
-            byte[] input = (password + saltHex).getBytes(StandardCharsets.UTF_8);
-            byte[] digest = md.digest(input);
-            return toHex(digest);
+            return SecureRandom.getInstance("DRBG");
         } catch (NoSuchAlgorithmException e) {
-            // No debería ocurrir para SHA-256 en JRE moderno
-            throw new IllegalStateException("Algoritmo de hash no disponible: " + HASH_ALGO, e);
+            return new SecureRandom();
         }
     }
 
+    // ===== hash =====
+
+    /** Calcula el hash SHA-256 de (password + salt) y devuelve hex. */
+    public static String hashPassword(String password, String saltHex) {
+        return toHex(hashPasswordBytes(password, saltHex));
+    }
+
+    /**
+     * Igual que {@link #hashPassword(String, String)} pero con el password en
+     * un char[], para poder limpiarlo después sin que quede un String en memoria.
+     */
+    public static String hashPassword(char[] password, String saltHex) {
+        return toHex(hashPasswordBytes(password, saltHex));
+    }
+
+    /** Hash SHA-256 de (password + salt) como bytes crudos (32 bytes). */
+    public static byte[] hashPasswordBytes(String password, String saltHex) {
+        return digest(String.valueOf(password), String.valueOf(saltHex));
+    }
+
+    /** Hash SHA-256 de (password + salt) como bytes crudos, con password en char[]. */
+    public static byte[] hashPasswordBytes(char[] password, String saltHex) {
+        return digest(CharBuffer.wrap(password), String.valueOf(saltHex));
+    }
+
+    // ===== validación =====
+
     /** Valida password calculando hash con el salt y comparando con el hash esperado. */
     public static boolean validatePassword(String password, String saltHex, String expectedHashHex) {
-        String calc = hashPassword(password, saltHex);
-        return slowEquals(calc, expectedHashHex);
+        return slowEquals(hashPasswordBytes(password, saltHex), expectedHashHex);
+    }
+
+    /** Igual que {@link #validatePassword(String, String, String)} con el password en char[]. */
+    public static boolean validatePassword(char[] password, String saltHex, String expectedHashHex) {
+        return slowEquals(hashPasswordBytes(password, saltHex), expectedHashHex);
     }
 
     // ===== helpers =====
 
-    private static String toHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) sb.append(String.format("%02x", b));
-        return sb.toString();
+    /**
+     * Calcula SHA-256 de UTF-8(a + b) sin concatenar: voy codificando los
+     * caracteres en un buffer por hilo y se lo paso al digest de a tandas.
+     * Trato a+b como una única secuencia para que un par sustituto partido
+     * entre las dos se codifique igual que en la versión concatenada.
+     */
+    private static byte[] digest(CharSequence a, CharSequence b) {
+        MessageDigest md = DIGEST.get();
+        md.reset();
+        byte[] buf = BUFFER.get();
+        int n = 0;
+
+        int lenA = a.length();
+        int total = lenA + b.length();
+        for (int i = 0; i < total; i++) {
+            // Dejo lugar para el peor caso (4 bytes) antes de escribir
+            if (n > BUFFER_BYTES - 4) {
+                md.update(buf, 0, n);
+                n = 0;
+            }
+            char c = i < lenA ? a.charAt(i) : b.charAt(i - lenA);
+            if (c < 0x80) {
+                buf[n++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[n++] = (byte) (0xC0 | (c >> 6));
+                buf[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                char d = i + 1 < total ? (i + 1 < lenA ? a.charAt(i + 1) : b.charAt(i + 1 - lenA)) : 0;
+                if (Character.isLowSurrogate(d)) {
+                    int cp = Character.toCodePoint(c, d);
+                    buf[n++] = (byte) (0xF0 | (cp >> 18));
+                    buf[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[n++] = (byte) (0x80 | (cp & 0x3F));
+                    i++;
+                } else {
+                    // Sustituto suelto: el encoder de Java lo reemplaza por '?'
+                    buf[n++] = '?';
+                }
+            } else if (Character.isLowSurrogate(c)) {
+                buf[n++] = '?';
+            } else {
+                buf[n++] = (byte) (0xE0 | (c >> 12));
+                buf[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        md.update(buf, 0, n);
+        return md.digest();
     }
 
-    /** Comparación constante para evitar filtrado por tiempo. */
-    private static boolean slowEquals(String a, String b) {
-        if (a == null || b == null) return false;
-        byte[] x = a.getBytes(StandardCharsets.UTF_8);
-        byte[] y = b.getBytes(StandardCharsets.UTF_8);
-        int diff = x.length ^ y.length;
-        for (int i = 0; i < Math.min(x.length, y.length); i++) diff |= x[i] ^ y[i];
+    /** Paso bytes a hex en minúsculas (mismo formato que se guarda en la base). */
+    public static String toHex(byte[] bytes) {
+        return toHex(bytes, 0, bytes.length);
+    }
+
+    /** Paso a hex un tramo de un array (para cortar varios salts de un mismo bloque aleatorio). */
+    public static String toHex(byte[] bytes, int desde, int largo) {
+        char[] out = new char[largo * 2];
+        for (int i = 0; i < largo; i++) {
+            int v = bytes[desde + i] & 0xFF;
+            out[i * 2] = HEX[v >>> 4];
+            out[i * 2 + 1] = HEX[v & 0x0F];
+        }
+        return new String(out);
+    }
+
+    /**
+     * Comparación constante para evitar filtrado por tiempo.
+     * Comparo el hash calculado (bytes) contra el hex esperado decodificándolo
+     * de a un nibble, sin crear arrays. Solo acepto hex en minúsculas, que es
+     * el formato con el que se guarda.
+     */
+    private static boolean slowEquals(byte[] calc, String expectedHex) {
+        if (expectedHex == null || expectedHex.length() != HASH_BYTES * 2) return false;
+        int diff = calc.length ^ HASH_BYTES;
+        for (int i = 0; i < HASH_BYTES; i++) {
+            int hi = nibble(expectedHex.charAt(i * 2));
+            int lo = nibble(expectedHex.charAt(i * 2 + 1));
+            // Si algún caracter no es hex, nibble devuelve -1 y el OR lo marca como distinto
+            diff |= (hi | lo) & 0x100;
+            diff |= (calc[i] & 0xFF) ^ (((hi << 4) | lo) & 0xFF);
+        }
         return diff == 0;
     }
+
+    /**
+     * Paso un hex en minúsculas a bytes. Devuelvo null si no es un hex
+     * válido, así quien lo llama lo trata como "no coincide" sin excepción.
+     */
+    public static byte[] fromHex(String hex) {
+        if (hex == null || (hex.length() & 1) != 0) return null;
+        byte[] out = new byte[hex.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            int hi = nibble(hex.charAt(i * 2));
+            int lo = nibble(hex.charAt(i * 2 + 1));
+            if ((hi | lo) < 0) return null;
+            out[i] = (byte) ((hi << 4) | lo);
+        }
+        return out;
+    }
+
+    /** Valor de un dígito hex en minúsculas, o -1 si no lo es. */
+    private static int nibble(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        return -1;
+    }
 }
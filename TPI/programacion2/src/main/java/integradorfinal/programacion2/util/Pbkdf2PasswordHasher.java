@@ -0,0 +1,122 @@
+package integradorfinal.programacion2.util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * PBKDF2 con HMAC-SHA256, usando solo lo que trae el JDK
+ * (SecretKeyFactory "PBKDF2WithHmacSHA256").
+ *
+ * A diferencia de una sola pasada de SHA-256, acá el costo se regula con la
+ * cantidad de iteraciones, y esa cantidad queda guardada en el hash:
+ * "$pbkdf2-sha256$i=&lt;iteraciones&gt;$&lt;hex&gt;". Al validar uso las iteraciones
+ * del hash guardado, no las de esta instancia; si quedaron claramente por
+ * debajo de las actuales, {@link #necesitaRehash(String)} avisa para
+ * regenerarlo en el próximo login.
+ */
+public final class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    public static final String ID = "pbkdf2-sha256";
+    private static final String PREFIJO = "$" + ID + "$i=";
+    private static final String ALGORITMO_JCE = "PBKDF2WithHmacSHA256";
+    private static final int LARGO_BITS = 256;
+
+    // Un hash con hasta este porcentaje menos de iteraciones que las actuales no se regenera
+    private static final int TOLERANCIA_PCT = 10;
+
+    // Una factory por hilo, igual que el MessageDigest de PasswordUtil
+    private static final ThreadLocal<SecretKeyFactory> FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO_JCE);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Algoritmo de hash no disponible: " + ALGORITMO_JCE, e);
+        }
+    });
+
+    private final int iteraciones;
+
+    public Pbkdf2PasswordHasher(int iteraciones) {
+        if (iteraciones < 1) {
+            throw new IllegalArgumentException("Las iteraciones deben ser al menos 1");
+        }
+        this.iteraciones = iteraciones;
+    }
+
+    public int getIteraciones() {
+        return iteraciones;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String password, String salt) {
+        return PREFIJO + iteraciones + "$" + PasswordUtil.toHex(derivar(password, salt, iteraciones));
+    }
+
+    @Override
+    public boolean soporta(String almacenado) {
+        return almacenado != null && almacenado.startsWith(PREFIJO);
+    }
+
+    @Override
+    public boolean verificar(String password, String salt, String almacenado) {
+        int it = iteracionesDe(almacenado);
+        if (it < 1 || salt == null || salt.isEmpty()) return false;
+
+        byte[] esperado = PasswordUtil.fromHex(almacenado.substring(almacenado.lastIndexOf('$') + 1));
+        if (esperado == null) return false;
+
+        // MessageDigest.isEqual compara en tiempo constante
+        return MessageDigest.isEqual(derivar(password, salt, it), esperado);
+    }
+
+    /**
+     * Solo pido regenerar si el hash guardado tiene menos iteraciones que las
+     * actuales (con una tolerancia de TOLERANCIA_PCT). Nunca bajo el costo: si
+     * dos servidores quedaron con valores distintos, el hash sube al mayor y
+     * ahí se queda, en vez de reescribirse en cada login de uno y del otro.
+     */
+    @Override
+    public boolean necesitaRehash(String almacenado) {
+        int it = iteracionesDe(almacenado);
+        return it < 1 || (long) it * 100 < (long) iteraciones * (100 - TOLERANCIA_PCT);
+    }
+
+    /**
+     * Saco la cantidad de iteraciones de un hash guardado, o -1 si no es un
+     * hash PBKDF2 bien formado.
+     */
+    static int iteracionesDe(String almacenado) {
+        if (almacenado == null || !almacenado.startsWith(PREFIJO)) return -1;
+        int fin = almacenado.indexOf('$', PREFIJO.length());
+        if (fin < 0) return -1;
+        try {
+            return Integer.parseInt(almacenado, PREFIJO.length(), fin, 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Ejecuto PBKDF2 con la cantidad de iteraciones pedida. */
+    static byte[] derivar(String password, String salt, int iteraciones) {
+        if (salt == null || salt.isEmpty()) {
+            throw new IllegalArgumentException("PBKDF2 necesita un salt no vacío");
+        }
+        PBEKeySpec spec = new PBEKeySpec(String.valueOf(password).toCharArray(),
+                salt.getBytes(StandardCharsets.UTF_8), iteraciones, LARGO_BITS);
+        try {
+            return FACTORY.get().generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo calcular el hash PBKDF2", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package integradorfinal.programacion2.util;
+
+import integradorfinal.programacion2.config.Config;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Proveedor de salts que nunca bloquea a quien los pide.
+ *
+ * Antes cada alta o cambio de contraseña llamaba a PasswordUtil.generateSalt,
+ * que usaba un único SecureRandom estático: con muchos hilos (o en un alta
+ * masiva de cientos de miles de usuarios) todos hacían fila en ese generador.
+ *
+ * Acá tengo una cola acotada de salts ya generados (en hex):
+ * - Un hilo de recarga la mantiene llena. Genera de a bloques (un nextBytes
+ *   para LOTE salts) y los corta en hex; cuando la cola está llena, el que
+ *   espera es ese hilo, nunca el que pide.
+ * - {@link #siguiente()} saca uno de la cola con poll(); si justo está vacía,
+ *   lo genero en el momento con el generador del hilo que llama
+ *   (PasswordUtil usa uno por hilo), así tampoco espera.
+ * - {@link #siguientes(int)} es para el alta masiva: vacía lo que haya en la
+ *   cola y el resto lo genera en bloque con el generador del hilo.
+ *
+ * Métricas: profundidad de la cola, salts recargados y la tasa de recarga
+ * (salts por segundo mientras el hilo está generando), y cuántos se sirvieron
+ * de la cola y cuántos se generaron en el hilo que llamó.
+ */
+public final class ProveedorSalt implements AutoCloseable {
+
+    // Salts que genero con cada llamada a nextBytes en la recarga
+    private static final int LOTE = 64;
+
+    private static volatile ProveedorSalt compartido;
+
+    private final int bytesPorSalt;
+    private final ArrayBlockingQueue<String> pool;
+    private final Thread recarga;
+    private volatile boolean cerrado;
+
+    // Métricas
+    private final LongAdder recargados = new LongAdder();
+    private final LongAdder recargaNs = new LongAdder();
+    private final LongAdder servidosDelPool = new LongAdder();
+    private final LongAdder generadosEnHilo = new LongAdder();
+
+    /**
+     * @param bytesPorSalt bytes aleatorios de cada salt
+     * @param capacidad    salts pre-generados como máximo
+     */
+    public ProveedorSalt(int bytesPorSalt, int capacidad) {
+        if (bytesPorSalt < 1 || capacidad < 1) {
+            throw new IllegalArgumentException("bytesPorSalt y capacidad deben ser al menos 1");
+        }
+        this.bytesPorSalt = bytesPorSalt;
+        this.pool = new ArrayBlockingQueue<>(capacidad);
+        this.recarga = new Thread(this::recargar, "salt-recarga");
+        this.recarga.setDaemon(true);
+        this.recarga.start();
+    }
+
+    /** Proveedor compartido por toda la aplicación, configurado desde Config. */
+    public static ProveedorSalt compartido() {
+        ProveedorSalt p = compartido;
+        if (p == null) {
+            synchronized (ProveedorSalt.class) {
+                p = compartido;
+                if (p == null) {
+                    p = new ProveedorSalt(Config.SALT_BYTES, Config.SALT_POOL_CAPACIDAD);
+                    compartido = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    // ======================================================
+    // PEDIDOS
+    // ======================================================
+
+    /** Un salt en hex. No bloquea: si la cola está vacía, lo genero acá. */
+    public String siguiente() {
+        String salt = pool.poll();
+        if (salt != null) {
+            servidosDelPool.increment();
+            return salt;
+        }
+        generadosEnHilo.increment();
+        return PasswordUtil.generateSalt(bytesPorSalt);
+    }
+
+    /**
+     * N salts en hex, para altas masivas. Primero uso los que ya están en la
+     * cola y los que falten los genero en bloque en este hilo.
+     */
+    public List<String> siguientes(int cantidad) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("cantidad no puede ser negativa");
+        }
+        List<String> salts = new ArrayList<>(cantidad);
+        int delPool = pool.drainTo(salts, cantidad);
+        servidosDelPool.add(delPool);
+
+        int faltan = cantidad - delPool;
+        if (faltan > 0) {
+            generar(PasswordUtil.rng(), faltan, salts);
+            generadosEnHilo.add(faltan);
+        }
+        return salts;
+    }
+
+    /** Genero {@code cantidad} salts con un nextBytes por cada LOTE y los agrego a destino. */
+    private void generar(SecureRandom rng, int cantidad, List<String> destino) {
+        byte[] bloque = new byte[Math.min(cantidad, LOTE) * bytesPorSalt];
+        while (cantidad > 0) {
+            int n = Math.min(cantidad, LOTE);
+            rng.nextBytes(bloque);
+            for (int i = 0; i < n; i++) {
+                destino.add(PasswordUtil.toHex(bloque, i * bytesPorSalt, bytesPorSalt));
+            }
+            cantidad -= n;
+        }
+    }
+
+    // ======================================================
+    // RECARGA
+    // ======================================================
+
+    private void recargar() {
+        SecureRandom rng = PasswordUtil.nuevoGenerador();
+        List<String> lote = new ArrayList<>(LOTE);
+        try {
+            while (!cerrado) {
+                long t0 = System.nanoTime();
+                generar(rng, LOTE, lote);
+                recargaNs.add(System.nanoTime() - t0);
+
+                // put() solo bloquea a este hilo, y solo cuando la cola está llena
+                for (String salt : lote) {
+                    pool.put(salt);
+                    recargados.increment();
+                }
+                lote.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // close(): termino
+        }
+    }
+
+    @Override
+    public void close() {
+        cerrado = true;
+        recarga.interrupt();
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    /** Salts listos en la cola en este momento. */
+    public int getProfundidad() { return pool.size(); }
+
+    public int getCapacidad() { return pool.size() + pool.remainingCapacity(); }
+
+    /** Salts que el hilo de recarga puso en la cola desde que arrancó. */
+    public long getRecargados() { return recargados.sum(); }
+
+    /** Salts por segundo que genera el hilo de recarga (sin contar el tiempo esperando lugar). */
+    public double getTasaRecargaPorSeg() {
+        long ns = recargaNs.sum();
+        return ns == 0 ? 0.0 : recargados.sum() * (double) TimeUnit.SECONDS.toNanos(1) / ns;
+    }
+
+    public long getServidosDelPool() { return servidosDelPool.sum(); }
+
+    /** Salts generados en el hilo que los pidió porque la cola no alcanzaba. */
+    public long getGeneradosEnHilo() { return generadosEnHilo.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("ProveedorSalt{profundidad=%d/%d, recargados=%d, tasa=%.0f/s, delPool=%d, enHilo=%d}",
+                getProfundidad(), getCapacidad(), getRecargados(), getTasaRecargaPorSeg(),
+                getServidosDelPool(), getGeneradosEnHilo());
+    }
+}
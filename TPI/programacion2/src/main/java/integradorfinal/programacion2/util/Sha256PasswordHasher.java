@@ -0,0 +1,49 @@
+package integradorfinal.programacion2.util;
+
+/**
+ * El esquema de siempre: una pasada de SHA-256 sobre (password + salt),
+ * calculada con {@link PasswordUtil}.
+ *
+ * Lo guardo como "$sha256$&lt;hex&gt;", pero también reconozco los hashes
+ * viejos que son solo los 64 caracteres hex sin prefijo, para que las
+ * credenciales que ya estaban en la base sigan funcionando.
+ */
+public final class Sha256PasswordHasher implements PasswordHasher {
+
+    public static final String ID = "sha256";
+    private static final String PREFIJO = "$" + ID + "$";
+    private static final int LARGO_HEX = 64;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String password, String salt) {
+        return PREFIJO + PasswordUtil.hashPassword(password, salt);
+    }
+
+    @Override
+    public boolean soporta(String almacenado) {
+        if (almacenado == null) return false;
+        return almacenado.startsWith(PREFIJO) || esLegacy(almacenado);
+    }
+
+    @Override
+    public boolean verificar(String password, String salt, String almacenado) {
+        if (!soporta(almacenado)) return false;
+        String hex = esLegacy(almacenado) ? almacenado : almacenado.substring(PREFIJO.length());
+        return PasswordUtil.validatePassword(password, salt, hex);
+    }
+
+    /** Los hashes sin prefijo los reescribo con el formato nuevo. */
+    @Override
+    public boolean necesitaRehash(String almacenado) {
+        return almacenado == null || !almacenado.startsWith(PREFIJO);
+    }
+
+    private static boolean esLegacy(String almacenado) {
+        return almacenado.length() == LARGO_HEX && almacenado.indexOf('$') < 0;
+    }
+}
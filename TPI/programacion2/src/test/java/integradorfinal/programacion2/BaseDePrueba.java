@@ -0,0 +1,42 @@
+package integradorfinal.programacion2;
+
+import integradorfinal.programacion2.config.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Base embebida de los tests (H2 en memoria, ver src/test/resources/db.properties).
+ * Creo el esquema la primera vez y vacío las tablas entre tests.
+ */
+public final class BaseDePrueba {
+
+    private static boolean creada;
+
+    private BaseDePrueba() {}
+
+    /** Creo el esquema (una sola vez) y dejo las tablas vacías. */
+    public static synchronized void preparar() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            if (!creada) {
+                st.execute("RUNSCRIPT FROM 'classpath:/schema-h2.sql'");
+                creada = true;
+            }
+            st.executeUpdate("DELETE FROM credencial_acceso");
+            st.executeUpdate("DELETE FROM usuario");
+        }
+    }
+
+    /** Resultado de un SELECT COUNT(*) (o cualquier consulta de un solo número). */
+    public static long contar(String sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
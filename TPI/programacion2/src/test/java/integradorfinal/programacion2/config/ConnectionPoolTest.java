@@ -0,0 +1,101 @@
+package integradorfinal.programacion2.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lo que el pool entrega no lleva a la conexión física, y una sentencia de
+ * la cache vuelve limpia al próximo préstamo.
+ */
+class ConnectionPoolTest {
+
+    private final ConnectionPool pool = new ConnectionPool(
+            "jdbc:h2:mem:pool_test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+            "sa", "", 0, 1, 60_000, 600_000, 2_000, 2, 60_000, 8);
+
+    @AfterEach
+    void cerrar() {
+        pool.close();
+    }
+
+    @Test
+    void lasSentenciasDevuelvenElHandleYNoLaConexionFisica() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            assertSame(conn, conn.unwrap(Connection.class));
+            assertTrue(conn.isWrapperFor(Connection.class));
+            assertThrows(SQLException.class, () -> conn.unwrap(org.h2.jdbc.JdbcConnection.class));
+
+            try (PreparedStatement cacheada = conn.prepareStatement("SELECT 1");
+                 PreparedStatement anidada = conn.prepareStatement("SELECT 1");
+                 Statement directa = conn.createStatement();
+                 CallableStatement llamada = conn.prepareCall("SELECT 1")) {
+                for (Statement st : new Statement[]{cacheada, anidada, directa, llamada}) {
+                    assertSame(conn, st.getConnection());
+                    assertSame(st, st.unwrap(Statement.class));
+                    assertFalse(st.isWrapperFor(org.h2.jdbc.JdbcStatement.class));
+                    assertThrows(SQLException.class, () -> st.unwrap(org.h2.jdbc.JdbcStatement.class));
+                }
+            }
+        }
+    }
+
+    @Test
+    void laSentenciaCacheadaVuelveConLosAjustesDeFabrica() throws SQLException {
+        int fetchSize;
+        int maxRows;
+        int queryTimeout;
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1")) {
+            fetchSize = ps.getFetchSize();
+            maxRows = ps.getMaxRows();
+            queryTimeout = ps.getQueryTimeout();
+            ps.setMaxRows(maxRows + 10);
+            ps.setFetchSize(5);
+            ps.setQueryTimeout(queryTimeout + 3);
+        }
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1")) {
+            assertEquals(1, pool.getCacheSentenciasAciertos());
+            assertEquals(fetchSize, ps.getFetchSize());
+            assertEquals(maxRows, ps.getMaxRows());
+            assertEquals(queryTimeout, ps.getQueryTimeout());
+            assertSame(conn, ps.getConnection());
+        }
+    }
+
+    @Test
+    void elCloseCierraElResultSetOlvidadoYRetiraLoQueNoSePuedeDeshacer() throws SQLException {
+        ResultSet olvidado;
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1")) {
+            olvidado = ps.executeQuery(); // el llamador no lo cierra
+        }
+        assertTrue(olvidado.isClosed());
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1")) {
+            assertEquals(1, pool.getCacheSentenciasAciertos());
+            ps.closeOnCompletion(); // no tiene vuelta atrás
+        }
+        // La sentencia se retiró: el próximo préstamo la prepara de nuevo y no hereda el ajuste
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1")) {
+            assertEquals(1, pool.getCacheSentenciasAciertos());
+            assertEquals(2, pool.getCacheSentenciasFallos());
+            assertFalse(ps.isCloseOnCompletion());
+        }
+    }
+}
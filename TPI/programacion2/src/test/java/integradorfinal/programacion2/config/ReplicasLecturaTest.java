@@ -0,0 +1,184 @@
+package integradorfinal.programacion2.config;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
+import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.cache.CredencialCache;
+import integradorfinal.programacion2.service.cache.UsuarioCache;
+import integradorfinal.programacion2.service.impl.UsuarioServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Enrutamiento de lecturas contra réplicas, con bases H2 en memoria como
+ * stand-in del primario y de cada réplica.
+ */
+class ReplicasLecturaTest {
+
+    private static final String OPCIONES = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private final List<AutoCloseable> abiertos = new ArrayList<>();
+
+    @AfterEach
+    void cerrar() throws Exception {
+        DatabaseConnection.usarReplicas(null);
+        for (AutoCloseable c : abiertos) c.close();
+    }
+
+    @Test
+    void repartoEntreReplicasSalteandoLaCaidaHastaQueVuelve() throws Exception {
+        String sana = "jdbc:h2:mem:replica_sana" + OPCIONES;
+        String caida = "jdbc:h2:mem:replica_caida" + OPCIONES;
+        abiertos.add(DriverManager.getConnection(sana, "sa", ""));
+
+        // IFEXISTS: mientras nadie cree la base, conectarse falla como con un servidor caído
+        EnrutadorLecturas enrutador = enrutador(sana, caida + ";IFEXISTS=TRUE");
+
+        Set<String> vistas = catalogos(enrutador, 4);
+        assertEquals(Set.of("replica_sana"), vistas);
+        assertEquals(1, enrutador.getReplicasSanas());
+        assertEquals(1, enrutador.getCaidas());
+
+        // La réplica vuelve: el chequeo la marca sana y entra de nuevo en el reparto
+        abiertos.add(0, DriverManager.getConnection(caida, "sa", ""));
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (enrutador.getReplicasSanas() < 2 && System.nanoTime() < limite) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, enrutador.getReplicasSanas());
+        assertEquals(Set.of("replica_sana", "replica_caida"), catalogos(enrutador, 4));
+    }
+
+    @Test
+    void sinReplicasSanasLaLecturaNoTieneReplica() throws Exception {
+        EnrutadorLecturas enrutador = enrutador("jdbc:h2:mem:nunca_creada" + OPCIONES + ";IFEXISTS=TRUE");
+        assertNull(enrutador.getConnection());
+        assertEquals(1, enrutador.getSinReplicaSana());
+    }
+
+    @Test
+    void unaReplicaOcupadaNoSeMarcaCaida() throws Exception {
+        String url = "jdbc:h2:mem:replica_ocupada" + OPCIONES;
+        ConnectionPool pool = new ConnectionPool(url, "sa", "", 0, 1, 60_000, 600_000, 5_000, 2, 60_000, 8);
+        EnrutadorLecturas enrutador = new EnrutadorLecturas(List.of(pool), 50);
+        abiertos.add(enrutador);
+
+        try (Connection unica = enrutador.getConnection()) {
+            assertNotNull(unica);
+            // Pool agotado: la lectura va al primario enseguida, sin esperar el borrowTimeout
+            long inicio = System.nanoTime();
+            assertNull(enrutador.getConnection());
+            assertTrue(System.nanoTime() - inicio < TimeUnit.SECONDS.toNanos(2));
+            assertEquals(1, enrutador.getOcupadas());
+            assertEquals(1, enrutador.getReplicasSanas());
+            assertEquals(0, enrutador.getCaidas());
+        }
+        // Liberada la conexión, la réplica sigue en el reparto
+        try (Connection c = enrutador.getConnection()) {
+            assertNotNull(c);
+        }
+    }
+
+    @Test
+    void credencialesYCachesLeenDelPrimarioAunqueLaReplicaEsteAtrasada() throws Exception {
+        BaseDePrueba.preparar();
+        String replica = "jdbc:h2:mem:replica_atrasada" + OPCIONES;
+        Connection base = DriverManager.getConnection(replica, "sa", "");
+        abiertos.add(base);
+        try (Statement st = base.createStatement()) {
+            st.execute("RUNSCRIPT FROM 'classpath:/schema-h2.sql'");
+            st.executeUpdate("DELETE FROM credencial_acceso");
+            st.executeUpdate("DELETE FROM usuario");
+        }
+        // Mismo usuario en las dos bases; la réplica todavía no vio el cambio de contraseña
+        cargar(DatabaseConnection.getConnection(), "Primario", "$sha256$nuevo");
+        cargar(DriverManager.getConnection(replica, "sa", ""), "Replica", "$sha256$viejo");
+        DatabaseConnection.usarReplicas(enrutador(replica));
+
+        UsuarioDaoImpl usuarioDao = new UsuarioDaoImpl();
+        CredencialAccesoDaoImpl credDao = new CredencialAccesoDaoImpl();
+        UsuarioServiceImpl servicio = new UsuarioServiceImpl(usuarioDao, credDao,
+                new UsuarioCache(100, 60_000), new CredencialCache(100, 60_000));
+
+        // Otro hilo, que no escribió nada: lo que manda es el tipo de lectura
+        enOtroHilo(() -> {
+            assertEquals("Replica", usuarioDao.findByUsername("ana").orElseThrow().getNombre());
+            assertEquals("$sha256$nuevo", credDao.findByUsuarioId(1L).orElseThrow().getHashPassword());
+            assertEquals("$sha256$nuevo", credDao.findAuthByUsuarioId(1L).orElseThrow().hashPassword());
+            Usuario conCred = usuarioDao.findByUsernameWithCredencial("ana").orElseThrow();
+            assertEquals("$sha256$nuevo", conCred.getCredencial().getHashPassword());
+            // Lo que llena la cache viene del primario
+            assertEquals("Primario", servicio.findByUsername("ana").orElseThrow().getNombre());
+            assertEquals("Primario", servicio.findByUsername("ana").orElseThrow().getNombre());
+            return null;
+        });
+
+        // Lectura propia: después de escribir, el mismo hilo lee del primario
+        enOtroHilo(() -> {
+            assertEquals("Replica", usuarioDao.findById(1L).orElseThrow().getNombre());
+            try (Connection c = DatabaseConnection.getConnection()) {
+                assertNotNull(c);
+            }
+            assertEquals("Primario", usuarioDao.findById(1L).orElseThrow().getNombre());
+            return null;
+        });
+    }
+
+    private EnrutadorLecturas enrutador(String... urls) {
+        List<ConnectionPool> pools = new ArrayList<>();
+        for (String url : urls) {
+            pools.add(new ConnectionPool(url, "sa", "", 0, 2, 60_000, 600_000, 2_000, 2, 60_000, 8));
+        }
+        EnrutadorLecturas e = new EnrutadorLecturas(pools, 50);
+        abiertos.add(e);
+        return e;
+    }
+
+    private static Set<String> catalogos(EnrutadorLecturas enrutador, int lecturas) throws SQLException {
+        Set<String> vistos = new HashSet<>();
+        for (int i = 0; i < lecturas; i++) {
+            try (Connection c = enrutador.getConnection()) {
+                assertNotNull(c);
+                vistos.add(c.getCatalog().toLowerCase());
+            }
+        }
+        return vistos;
+    }
+
+    private static void cargar(Connection conn, String nombre, String hash) throws SQLException {
+        try (conn; Statement st = conn.createStatement()) {
+            st.executeUpdate("INSERT INTO usuario (id_usuario, username, nombre, apellido, email) "
+                    + "VALUES (1, 'ana', '" + nombre + "', 'Test', 'ana@test.com')");
+            st.executeUpdate("INSERT INTO credencial_acceso (usuario_id, estado, hash_password, salt) "
+                    + "VALUES (1, 'ACTIVO', '" + hash + "', 'salt')");
+        }
+    }
+
+    private static void enOtroHilo(Callable<Void> trabajo) throws Exception {
+        ExecutorService hilo = Executors.newSingleThreadExecutor();
+        try {
+            hilo.submit(trabajo).get(30, TimeUnit.SECONDS);
+        } finally {
+            hilo.shutdown();
+        }
+    }
+}
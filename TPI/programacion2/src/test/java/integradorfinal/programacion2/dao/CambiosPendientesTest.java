@@ -0,0 +1,69 @@
+package integradorfinal.programacion2.dao;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.config.TransactionManager;
+import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Los cambios que el DAO dio por escritos vuelven a quedar pendientes si la
+ * transacción termina en rollback.
+ */
+class CambiosPendientesTest {
+
+    private final UsuarioDaoImpl dao = new UsuarioDaoImpl();
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        BaseDePrueba.preparar();
+    }
+
+    @Test
+    void unUpdateRevertidoQuedaPendienteYSeEscribeDespues() throws SQLException {
+        Long id = dao.create(usuario("ana"));
+        Usuario u = dao.findById(id).orElseThrow();
+        u.setNombre("Otro");
+
+        assertThrows(SQLException.class, () -> TransactionManager.inTransaction(conn -> {
+            dao.update(u, conn);
+            assertFalse(u.hayCambios());
+            throw new SQLException("forzado");
+        }));
+        assertEquals(EnumSet.of(Usuario.Campo.NOMBRE, Usuario.Campo.APELLIDO), u.getCambios());
+
+        dao.update(u);
+        assertFalse(u.hayCambios());
+        assertEquals("Otro", dao.findById(id).orElseThrow().getNombre());
+    }
+
+    @Test
+    void unAltaRevertidaVuelveASerNueva() {
+        Usuario a = usuario("beto");
+        Usuario b = usuario("carla");
+        assertThrows(SQLException.class, () -> TransactionManager.inTransaction(conn -> {
+            dao.createAll(List.of(a, b), conn);
+            TransactionManager.marcarRollback();
+            return null;
+        }));
+        assertEquals(EnumSet.allOf(Usuario.Campo.class), a.getCambios());
+        assertTrue(b.hayCambios());
+    }
+
+    private static Usuario usuario(String username) {
+        return new Usuario(null, false, username, "Nombre", "Apellido", username + "@test.com",
+                LocalDateTime.now(), true, Estado.ACTIVO);
+    }
+}
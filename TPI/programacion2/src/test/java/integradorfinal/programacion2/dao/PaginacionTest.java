@@ -0,0 +1,106 @@
+package integradorfinal.programacion2.dao;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
+import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Paginación por clave: recorrer todas las páginas devuelve cada fila una
+ * sola vez, el cursor es el último ID de la página y los límites fuera de
+ * rango no llegan a la base.
+ */
+class PaginacionTest {
+
+    private final UsuarioDaoImpl usuarioDao = new UsuarioDaoImpl();
+    private final CredencialAccesoDaoImpl credDao = new CredencialAccesoDaoImpl();
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        BaseDePrueba.preparar();
+        for (int i = 0; i < 7; i++) {
+            Long id = usuarioDao.create(usuario("user" + i));
+            ids.add(id);
+            credDao.create(credencial(id));
+        }
+    }
+
+    @Test
+    void recorroLasPaginasHastaElFinal() throws SQLException {
+        List<Long> vistos = new ArrayList<>();
+        Long cursor = null;
+        int paginas = 0;
+        Pagina<Usuario> p;
+        do {
+            p = usuarioDao.findPage(cursor, 3);
+            paginas++;
+            assertTrue(p.getItems().size() <= 3);
+            p.getItems().forEach(u -> vistos.add(u.getIdUsuario()));
+            if (p.haySiguiente()) {
+                assertEquals(p.getItems().get(p.getItems().size() - 1).getIdUsuario(), p.getSiguienteCursor());
+            }
+            cursor = p.getSiguienteCursor();
+        } while (p.haySiguiente());
+
+        assertEquals(ids, vistos);
+        assertEquals(3, paginas); // 3 + 3 + 1
+        assertEquals(1, p.getItems().size());
+    }
+
+    @Test
+    void unaPaginaExactaNoAnunciaOtra() throws SQLException {
+        Pagina<UsuarioResumen> p = usuarioDao.findResumenPage(null, 7);
+        assertEquals(7, p.getItems().size());
+        assertFalse(p.haySiguiente());
+        assertNull(p.getSiguienteCursor());
+
+        Pagina<CredencialResumen> c = credDao.findResumenPage(null, 6);
+        assertEquals(6, c.getItems().size());
+        assertTrue(c.haySiguiente());
+        Pagina<CredencialResumen> resto = credDao.findResumenPage(c.getSiguienteCursor(), 6);
+        assertEquals(1, resto.getItems().size());
+        assertFalse(resto.haySiguiente());
+    }
+
+    @Test
+    void losLimitesFueraDeRangoSeRechazanOSeRecortan() throws SQLException {
+        assertThrows(IllegalArgumentException.class, () -> usuarioDao.findPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> usuarioDao.findResumenPage(null, -1));
+        assertThrows(IllegalArgumentException.class, () -> credDao.findPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> credDao.findResumenPage(null, Integer.MIN_VALUE));
+
+        // Sin desbordar limit + 1: se recorta al tope y trae todo
+        Pagina<Usuario> todo = usuarioDao.findPage(null, Integer.MAX_VALUE);
+        assertEquals(7, todo.getItems().size());
+        assertFalse(todo.haySiguiente());
+        assertEquals(7, credDao.findPage(null, Integer.MAX_VALUE).getItems().size());
+        assertEquals(Pagina.MAX_TAMANIO, Pagina.limiteValido(Integer.MAX_VALUE));
+        assertEquals(1, Pagina.limiteValido(1));
+    }
+
+    private static Usuario usuario(String username) {
+        return new Usuario(null, false, username, "Nombre", "Apellido", username + "@test.com",
+                LocalDateTime.now(), true, Estado.ACTIVO);
+    }
+
+    private static CredencialAcceso credencial(Long usuarioId) {
+        return new CredencialAcceso(null, false, usuarioId, Estado.ACTIVO, null,
+                "$sha256$hash", "salt", LocalDateTime.now(), false);
+    }
+}
@@ -0,0 +1,109 @@
+package integradorfinal.programacion2.dao.impl;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * findByIds / findByUsuarioIds con el relleno a potencias de 2: bloques de
+ * 4 IDs para que el caso "bloque + 1" sea chico. Cada búsqueda tiene que
+ * traer exactamente los IDs pedidos, sin perder ni inventar filas por el
+ * relleno o por los repetidos.
+ */
+class BusquedaPorIdsTest {
+
+    private static final int BLOQUE = 4;
+
+    private final UsuarioDaoImpl usuarioDao = new UsuarioDaoImpl(100, BLOQUE);
+    private final CredencialAccesoDaoImpl credDao = new CredencialAccesoDaoImpl(100, BLOQUE);
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        BaseDePrueba.preparar();
+        ids.clear();
+        for (int i = 0; i < 10; i++) {
+            Usuario u = new Usuario(null, false, "ids" + i, "Nombre", "Apellido", "ids" + i + "@test.com",
+                    LocalDateTime.now(), true, Estado.ACTIVO);
+            usuarioDao.create(u);
+            credDao.create(new CredencialAcceso(null, false, u.getIdUsuario(), Estado.ACTIVO, null,
+                    "hash" + i, "salt" + i, null, false));
+            ids.add(u.getIdUsuario());
+        }
+    }
+
+    @Test
+    void ningunId() throws SQLException {
+        assertTrue(usuarioDao.findByIds(Collections.emptyList()).isEmpty());
+        assertTrue(credDao.findByUsuarioIds(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    void unSoloId() throws SQLException {
+        verificar(ids.subList(0, 1));
+    }
+
+    @Test
+    void unaPotenciaDeDosSinRelleno() throws SQLException {
+        verificar(ids.subList(0, 2));
+        verificar(ids.subList(0, BLOQUE));
+    }
+
+    @Test
+    void conRelleno() throws SQLException {
+        // 3 IDs van en 4 parámetros: el último se repite
+        verificar(ids.subList(0, 3));
+    }
+
+    @Test
+    void unBloqueMasUno() throws SQLException {
+        // 4 en el primer bloque y 1 solo en el segundo
+        verificar(ids.subList(0, BLOQUE + 1));
+        verificar(ids);
+    }
+
+    @Test
+    void idsRepetidosYNulos() throws SQLException {
+        List<Long> pedidos = new ArrayList<>(Arrays.asList(
+                ids.get(0), ids.get(1), ids.get(0), null, ids.get(2), ids.get(1), ids.get(3), ids.get(4)));
+        // Sin repetidos son 5: si se contaran los repetidos entrarían 7 en dos bloques distintos
+        verificar(pedidos);
+    }
+
+    @Test
+    void idsQueNoExisten() throws SQLException {
+        long inexistente = ids.get(ids.size() - 1) + 1_000;
+        List<Long> pedidos = List.of(ids.get(0), inexistente, ids.get(1));
+        Map<Long, Usuario> usuarios = usuarioDao.findByIds(pedidos);
+        assertEquals(new HashSet<>(ids.subList(0, 2)), usuarios.keySet());
+        assertEquals(new HashSet<>(ids.subList(0, 2)), credDao.findByUsuarioIds(pedidos).keySet());
+    }
+
+    private void verificar(List<Long> pedidos) throws SQLException {
+        HashSet<Long> esperados = new HashSet<>(pedidos);
+        esperados.remove(null);
+
+        Map<Long, Usuario> usuarios = usuarioDao.findByIds(pedidos);
+        assertEquals(esperados, usuarios.keySet());
+        usuarios.forEach((id, u) -> assertEquals(id, u.getIdUsuario()));
+
+        Map<Long, CredencialAcceso> credenciales = credDao.findByUsuarioIds(pedidos);
+        assertEquals(esperados, credenciales.keySet());
+        credenciales.forEach((id, c) -> assertEquals(id, c.getUsuarioId()));
+    }
+}
@@ -0,0 +1,126 @@
+package integradorfinal.programacion2.dao.impl;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Microbenchmark del mapeo de filas: el mapRow actual (por posición, fechas
+ * como LocalDateTime) contra el mapeo por nombre de columna que había antes,
+ * sobre las mismas filas de H2. Informa el tiempo por fila de cada uno; no
+ * exige una ganancia mínima (depende de la máquina), solo que los dos
+ * mapeos den lo mismo.
+ */
+class MapeoFilasBenchmarkTest {
+
+    private static final int FILAS = 5_000;
+    private static final int CALENTAMIENTO = 5;
+    private static final int RONDAS = 10;
+
+    private static final String SQL = "SELECT " + UsuarioDaoImpl.COLUMNAS + " FROM usuario ORDER BY id_usuario";
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        BaseDePrueba.preparar();
+        List<Usuario> usuarios = new ArrayList<>(FILAS);
+        for (int i = 0; i < FILAS; i++) {
+            usuarios.add(new Usuario(null, false, "user" + i, "Nombre" + i, "Apellido" + i,
+                    "user" + i + "@test.com", LocalDateTime.now(), true,
+                    i % 2 == 0 ? Estado.ACTIVO : Estado.INACTIVO));
+        }
+        new UsuarioDaoImpl().createAll(usuarios);
+    }
+
+    @Test
+    void porPosicionContraPorNombre() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL)) {
+            List<Usuario> porPosicion = mapear(ps, UsuarioDaoImpl::mapRow);
+            List<Usuario> porNombre = mapear(ps, MapeoFilasBenchmarkTest::mapRowPorNombre);
+            assertEquals(FILAS, porPosicion.size());
+            for (int i = 0; i < FILAS; i++) {
+                Usuario a = porPosicion.get(i);
+                Usuario b = porNombre.get(i);
+                assertEquals(b.getIdUsuario(), a.getIdUsuario());
+                assertEquals(b.getUsername(), a.getUsername());
+                assertEquals(b.getEmail(), a.getEmail());
+                assertEquals(b.getFechaRegistro(), a.getFechaRegistro());
+                assertEquals(b.getEstado(), a.getEstado());
+            }
+
+            for (int i = 0; i < CALENTAMIENTO; i++) {
+                medir(ps, UsuarioDaoImpl::mapRow);
+                medir(ps, MapeoFilasBenchmarkTest::mapRowPorNombre);
+            }
+            // Alterno las rondas para que el ruido de la máquina caiga parejo en los dos
+            long nsPosicion = 0;
+            long nsNombre = 0;
+            for (int i = 0; i < RONDAS; i++) {
+                nsPosicion += medir(ps, UsuarioDaoImpl::mapRow);
+                nsNombre += medir(ps, MapeoFilasBenchmarkTest::mapRowPorNombre);
+            }
+            double filas = (double) FILAS * RONDAS;
+            System.out.printf("Mapeo de usuario: por posición %.1f ns/fila, por nombre %.1f ns/fila (%d filas x %d rondas)%n",
+                    nsPosicion / filas, nsNombre / filas, FILAS, RONDAS);
+        }
+    }
+
+    // Solo el recorrido del ResultSet: la consulta se ejecuta antes de tomar el tiempo
+    private static long medir(PreparedStatement ps, Mapeo mapeo) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            long inicio = System.nanoTime();
+            int n = 0;
+            while (rs.next()) {
+                if (mapeo.mapear(rs) != null) n++;
+            }
+            long ns = System.nanoTime() - inicio;
+            assertEquals(FILAS, n);
+            return ns;
+        }
+    }
+
+    private static List<Usuario> mapear(PreparedStatement ps, Mapeo mapeo) throws SQLException {
+        List<Usuario> lista = new ArrayList<>(FILAS);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) lista.add(mapeo.mapear(rs));
+        }
+        return lista;
+    }
+
+    /** El mapRow de antes: cada getter busca la columna por nombre. */
+    private static Usuario mapRowPorNombre(ResultSet rs) throws SQLException {
+        Usuario u = new Usuario();
+        u.setIdUsuario(rs.getLong("id_usuario"));
+        u.setEliminado(rs.getBoolean("eliminado"));
+        u.setUsername(rs.getString("username"));
+        u.setNombre(rs.getString("nombre"));
+        u.setApellido(rs.getString("apellido"));
+        u.setEmail(rs.getString("email"));
+
+        Timestamp ts = rs.getTimestamp("fecha_registro");
+        if (ts != null) u.setFechaRegistro(ts.toLocalDateTime());
+
+        u.setActivo(rs.getBoolean("activo"));
+        u.setEstado(Estado.from(rs.getString("estado")));
+        return u;
+    }
+
+    @FunctionalInterface
+    private interface Mapeo {
+        Usuario mapear(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,130 @@
+package integradorfinal.programacion2.dao.impl;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.exceptions.DataAccessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El Stream de ResultSetStream devuelve la sentencia y la conexión al pool
+ * cuando se corta antes de terminar y cuando el mapper falla. Corre contra
+ * H2, así que de paso cubre la lectura por bloques con drivers que no son MySQL.
+ */
+class ResultSetStreamTest {
+
+    private static final String SQL = "SELECT " + UsuarioDaoImpl.COLUMNAS + " FROM usuario ORDER BY id_usuario";
+
+    private final UsuarioDaoImpl dao = new UsuarioDaoImpl();
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        BaseDePrueba.preparar();
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            usuarios.add(new Usuario(null, false, "stream" + i, "Nombre", "Apellido",
+                    "stream" + i + "@test.com", LocalDateTime.now(), true, Estado.ACTIVO));
+        }
+        dao.createAll(usuarios);
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+    }
+
+    @Test
+    void recorridoCompleto() throws SQLException {
+        try (Stream<Usuario> usuarios = dao.stream()) {
+            assertEquals(20, usuarios.count());
+        }
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+    }
+
+    @Test
+    void cortarAntesDeTerminarCierraTodo() throws SQLException {
+        AtomicReference<Statement> sentencia = new AtomicReference<>();
+        try (Stream<Usuario> usuarios = ResultSetStream.abrir(DatabaseConnection.getReadConnection(), true, SQL,
+                rs -> {
+                    sentencia.set(rs.getStatement());
+                    return UsuarioDaoImpl.mapRow(rs);
+                })) {
+            assertEquals("stream0", usuarios.findFirst().orElseThrow().getUsername());
+            assertEquals(1, DatabaseConnection.getDataSource().getConexionesEnUso());
+        }
+        assertTrue(sentencia.get().isClosed());
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+
+        try (Stream<Usuario> usuarios = dao.stream()) {
+            assertEquals(3, usuarios.limit(3).count());
+        }
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+    }
+
+    @Test
+    void siElMapperFallaCierraTodo() throws SQLException {
+        AtomicReference<Statement> sentencia = new AtomicReference<>();
+        RowMapper<Usuario> fallaEnLaTercera = rs -> {
+            sentencia.set(rs.getStatement());
+            if (rs.getRow() == 3) throw new SQLException("fila rota");
+            return UsuarioDaoImpl.mapRow(rs);
+        };
+
+        try (Stream<Usuario> usuarios = ResultSetStream.abrir(
+                DatabaseConnection.getReadConnection(), true, SQL, fallaEnLaTercera)) {
+            assertThrows(DataAccessException.class, () -> usuarios.forEach(u -> { }));
+        }
+        assertTrue(sentencia.get().isClosed());
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+
+        // Una excepción propia del mapper (no SQLException) tampoco deja nada abierto
+        try (Stream<Usuario> usuarios = ResultSetStream.abrir(DatabaseConnection.getReadConnection(), true, SQL,
+                rs -> { throw new IllegalStateException("mapper roto"); })) {
+            assertThrows(IllegalStateException.class, () -> usuarios.findAny());
+        }
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+    }
+
+    @Test
+    void sinCloseIgualLiberaAlAgotarseOAlFallar() throws SQLException {
+        // Sin try-with-resources: agotar las filas o que falle el mapper ya devuelve la conexión
+        assertEquals(20, dao.stream().count());
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+
+        Stream<Usuario> roto = ResultSetStream.abrir(DatabaseConnection.getReadConnection(), true, SQL,
+                rs -> { throw new SQLException("fila rota"); });
+        assertThrows(DataAccessException.class, () -> roto.forEach(u -> { }));
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+        // Cerrarlo después no vuelve a cerrar la conexión ya devuelta
+        roto.close();
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+    }
+
+    @Test
+    void conConexionAjenaCierraLaSentenciaPeroNoLaConexion() throws SQLException {
+        AtomicReference<Statement> sentencia = new AtomicReference<>();
+        try (var conn = DatabaseConnection.getConnection()) {
+            try (Stream<Usuario> usuarios = ResultSetStream.abrir(conn, false, SQL, rs -> {
+                sentencia.set(rs.getStatement());
+                return UsuarioDaoImpl.mapRow(rs);
+            })) {
+                usuarios.findFirst();
+            }
+            assertTrue(sentencia.get().isClosed());
+            assertFalse(conn.isClosed());
+            assertEquals(1, DatabaseConnection.getDataSource().getConexionesEnUso());
+        }
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+    }
+}
@@ -0,0 +1,32 @@
+package integradorfinal.programacion2.entities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EstadoTest {
+
+    @Test
+    void primeroExactoDespuesSinMayusculas() {
+        assertSame(Estado.ACTIVO, Estado.from("ACTIVO"));
+        assertSame(Estado.INACTIVO, Estado.from("INACTIVO"));
+        assertSame(Estado.INACTIVO, Estado.from("inactivo"));
+        assertSame(Estado.ACTIVO, Estado.from("Activo"));
+        assertEquals("INACTIVO", Estado.from("iNaCtIvO").dbValue());
+    }
+
+    @Test
+    void nuloEsActivo() {
+        assertSame(Estado.ACTIVO, Estado.from(null));
+    }
+
+    @Test
+    void unValorDesconocidoFalla() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Estado.from("BORRADO"));
+        assertEquals("Estado desconocido: BORRADO", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Estado.from(""));
+        assertThrows(IllegalArgumentException.class, () -> Estado.from(" ACTIVO "));
+    }
+}
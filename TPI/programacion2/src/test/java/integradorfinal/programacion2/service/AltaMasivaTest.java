@@ -0,0 +1,104 @@
+package integradorfinal.programacion2.service;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
+import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.cache.CredencialCache;
+import integradorfinal.programacion2.service.cache.UsuarioCache;
+import integradorfinal.programacion2.service.impl.UsuarioServiceImpl;
+import integradorfinal.programacion2.util.HashingExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Alta masiva: un username repetido revierte su bloque, el reintento de a
+ * uno lo aísla y el resto se crea; el fallido conserva su contraseña y se
+ * puede reenviar el mismo objeto.
+ */
+class AltaMasivaTest {
+
+    private final CredencialAccesoDaoImpl credDao = new CredencialAccesoDaoImpl();
+    private final UsuarioService servicio = new UsuarioServiceImpl(new UsuarioDaoImpl(), credDao,
+            new UsuarioCache(100, 60_000), new CredencialCache(100, 60_000));
+    private final HashingExecutor hashing = HashingExecutor.compartido();
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        BaseDePrueba.preparar();
+    }
+
+    @Test
+    void elRepetidoSeAislaYElRestoDelBloqueSeCrea() throws SQLException {
+        Usuario repetido = usuario("ana", "otra@test.com", "Clave-rep");
+        List<Usuario> lote = List.of(
+                usuario("ana", "ana@test.com", "Clave-ana"),
+                usuario("beto", "beto@test.com", "Clave-beto"),
+                repetido,
+                usuario("carla", "carla@test.com", "Clave-carla"),
+                // Segundo bloque: se confirma entero
+                usuario("dario", "dario@test.com", "Clave-dario"),
+                usuario("eva", "eva@test.com", "Clave-eva"));
+
+        ResultadoAltaMasiva r = servicio.createUsuariosConCredencial(lote, 4);
+
+        assertEquals(5, r.getExitosos());
+        assertEquals(1, r.getFallidos());
+        assertEquals(2, r.getFallos().get(0).indice());
+        assertEquals(5, BaseDePrueba.contar("SELECT COUNT(*) FROM usuario"));
+        assertEquals(5, BaseDePrueba.contar("SELECT COUNT(*) FROM credencial_acceso"));
+        for (int i : new int[]{0, 1, 3, 4, 5}) {
+            Usuario u = lote.get(i);
+            CredencialAcceso guardada = credDao.findByUsuarioId(u.getIdUsuario()).orElseThrow();
+            assertTrue(hashing.verificar("Clave-" + u.getUsername(), guardada.getSalt(), guardada.getHashPassword()));
+        }
+
+        // El fallido quedó como vino: sin ID, con la contraseña sin hashear
+        assertNull(repetido.getIdUsuario());
+        assertEquals("Clave-rep", repetido.getCredencial().getHashPassword());
+        assertNull(repetido.getCredencial().getSalt());
+
+        // Corregido el username, el mismo objeto se reenvía y puede entrar
+        repetido.setUsername("ana2");
+        ResultadoAltaMasiva reintento = servicio.createUsuariosConCredencial(List.of(repetido), 4);
+        assertEquals(1, reintento.getExitosos());
+        CredencialAcceso guardada = credDao.findByUsuarioId(repetido.getIdUsuario()).orElseThrow();
+        assertTrue(hashing.verificar("Clave-rep", guardada.getSalt(), guardada.getHashPassword()));
+        assertFalse(hashing.verificar(guardada.getHashPassword(), guardada.getSalt(), guardada.getHashPassword()));
+    }
+
+    @Test
+    void unAltaIndividualQueFallaConservaLaContrasena() throws SQLException {
+        servicio.createUsuarioConCredencial(usuario("ana", "ana@test.com", "Clave-ana"));
+        Usuario repetido = usuario("ana", "otra@test.com", "Clave-rep");
+
+        assertThrows(SQLException.class, () -> servicio.createUsuarioConCredencial(repetido));
+        assertEquals("Clave-rep", repetido.getCredencial().getHashPassword());
+        assertNull(repetido.getCredencial().getSalt());
+
+        repetido.setUsername("ana2");
+        Long id = servicio.createUsuarioConCredencial(repetido);
+        CredencialAcceso guardada = credDao.findByUsuarioId(id).orElseThrow();
+        assertTrue(hashing.verificar("Clave-rep", guardada.getSalt(), guardada.getHashPassword()));
+    }
+
+    private static Usuario usuario(String username, String email, String password) {
+        Usuario u = new Usuario(null, false, username, "Nombre", "Apellido", email,
+                LocalDateTime.now(), true, Estado.ACTIVO);
+        u.setCredencial(new CredencialAcceso(null, false, null, Estado.ACTIVO, null,
+                password, null, null, false));
+        return u;
+    }
+}
@@ -0,0 +1,78 @@
+package integradorfinal.programacion2.service;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
+import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.cache.CredencialCache;
+import integradorfinal.programacion2.service.cache.UsuarioCache;
+import integradorfinal.programacion2.service.impl.AuthServiceImpl;
+import integradorfinal.programacion2.service.impl.CredencialAccesoServiceImpl;
+import integradorfinal.programacion2.service.impl.UsuarioServiceImpl;
+import integradorfinal.programacion2.service.sesion.AlmacenSesiones;
+import integradorfinal.programacion2.service.sesion.LimitadorLogin;
+import integradorfinal.programacion2.service.sesion.RegistroUltimaSesion;
+import integradorfinal.programacion2.util.HashingExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lo que devuelve el login al front: el usuario autenticado, sin hash ni salt.
+ */
+class AuthServiceTest {
+
+    private final UsuarioCache usuarios = new UsuarioCache(100, 60_000);
+    private final CredencialCache credenciales = new CredencialCache(100, 60_000);
+    private final AlmacenSesiones almacen = new AlmacenSesiones(60_000, 100, 64);
+    private final UsuarioServiceImpl usuarioService = new UsuarioServiceImpl(new UsuarioDaoImpl(),
+            new CredencialAccesoDaoImpl(), usuarios, credenciales, HashingExecutor.compartido(), almacen);
+    private final AuthService auth = new AuthServiceImpl(usuarioService,
+            new CredencialAccesoServiceImpl(new CredencialAccesoDaoImpl(), credenciales,
+                    HashingExecutor.compartido(), almacen),
+            HashingExecutor.compartido(),
+            new RegistroUltimaSesion(new CredencialAccesoDaoImpl(), credenciales, 60_000, 100, 3),
+            new LimitadorLogin(new LimitadorLogin.Limite(5, 10), null, 100, 60_000),
+            almacen);
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        BaseDePrueba.preparar();
+    }
+
+    @AfterEach
+    void cerrar() {
+        auth.close();
+        almacen.close();
+    }
+
+    @Test
+    void elUsuarioDelLoginNoTraeLaCredencial() throws SQLException {
+        Usuario nuevo = new Usuario(null, false, "login_ana", "Ana", "Test", "login_ana@test.com",
+                LocalDateTime.now(), true, Estado.ACTIVO);
+        nuevo.setCredencial(new CredencialAcceso(null, false, null, Estado.ACTIVO, null,
+                "Secreta123!", null, null, false));
+        Long id = usuarioService.createUsuarioConCredencial(nuevo);
+
+        ResultadoLogin r = auth.login("login_ana", "Secreta123!");
+        assertTrue(r.isOk());
+        Usuario u = r.getUsuario().orElseThrow();
+        assertEquals(id, u.getIdUsuario());
+        assertEquals("login_ana", u.getUsername());
+        assertNull(u.getCredencial());
+
+        // La credencial sigue en la cache para el próximo login
+        assertNotNull(usuarioService.findByUsernameWithCredencial("login_ana").orElseThrow().getCredencial());
+        assertTrue(auth.login("login_ana", "Secreta123!").isOk());
+    }
+}
@@ -0,0 +1,166 @@
+package integradorfinal.programacion2.service;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.config.TransactionManager;
+import integradorfinal.programacion2.dao.UsuarioDao;
+import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
+import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.cache.CredencialCache;
+import integradorfinal.programacion2.service.cache.UsuarioCache;
+import integradorfinal.programacion2.service.impl.UsuarioServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Muchos hilos usando DAO y servicios a la vez sobre un pool más chico que la
+ * cantidad de hilos: cada unidad de trabajo tiene que quedar aislada en su
+ * propia conexión (lo que se commitea está completo, lo que se revierte no
+ * deja rastro y nadie ve ni deshace lo de otro).
+ */
+class ConcurrenciaStressTest {
+
+    private static final int HILOS = 16;
+    private static final int POR_HILO = 24;
+
+    private final UsuarioDao usuarioDao = new UsuarioDaoImpl();
+    private final UsuarioService servicio = new UsuarioServiceImpl(usuarioDao, new CredencialAccesoDaoImpl(),
+            new UsuarioCache(1000, 60_000), new CredencialCache(1000, 60_000));
+
+    @BeforeEach
+    void limpiar() throws SQLException {
+        BaseDePrueba.preparar();
+    }
+
+    @Test
+    void altasYRollbacksConcurrentesNoSeMezclan() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger creados = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+
+        for (int h = 0; h < HILOS; h++) {
+            final int hilo = h;
+            tareas.add(pool.submit(() -> {
+                largada.await();
+                for (int i = 0; i < POR_HILO; i++) {
+                    String clave = hilo + "_" + i;
+                    switch (i % 4) {
+                        case 0, 1 -> {
+                            // Alta transaccional normal + lectura de lo recién escrito
+                            Long id = servicio.createUsuarioConCredencial(usuario("ok_" + clave));
+                            Optional<Usuario> leido = servicio.findByUsernameWithCredencial("ok_" + clave);
+                            assertTrue(leido.isPresent());
+                            assertEquals(id, leido.get().getIdUsuario());
+                            assertEquals(id, leido.get().getCredencial().getUsuarioId());
+                            creados.incrementAndGet();
+                        }
+                        case 2 -> {
+                            // Error en el medio de la transacción: no queda nada
+                            assertThrows(SQLException.class, () -> TransactionManager.inTransaction(conn -> {
+                                usuarioDao.create(usuario("rb_" + clave), conn);
+                                throw new SQLException("forzado");
+                            }));
+                        }
+                        default -> {
+                            // Alta anidada en una transacción que se marca para rollback:
+                            // el servicio se suma a la transacción de afuera y se revierte con ella
+                            assertThrows(SQLException.class, () -> TransactionManager.inTransaction(conn -> {
+                                servicio.createUsuarioConCredencial(usuario("rn_" + clave));
+                                TransactionManager.marcarRollback();
+                                return null;
+                            }));
+                        }
+                    }
+                    assertFalse(TransactionManager.hayTransaccion());
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> f : tareas) f.get(2, TimeUnit.MINUTES);
+        pool.shutdown();
+
+        assertEquals(HILOS * POR_HILO / 2, creados.get());
+        assertEquals(creados.get(), BaseDePrueba.contar("SELECT COUNT(*) FROM usuario WHERE username LIKE 'ok\\_%'"));
+        assertEquals(0, BaseDePrueba.contar("SELECT COUNT(*) FROM usuario WHERE username NOT LIKE 'ok\\_%'"));
+        assertEquals(creados.get(), BaseDePrueba.contar(
+                "SELECT COUNT(*) FROM credencial_acceso c JOIN usuario u ON u.id_usuario = c.usuario_id"));
+        assertEquals(creados.get(), BaseDePrueba.contar("SELECT COUNT(*) FROM credencial_acceso"));
+
+        // Todas las conexiones volvieron al pool
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+    }
+
+    @Test
+    void transaccionAbiertaNoSeVeNiSeMezclaConOtroHilo() throws Exception {
+        CountDownLatch insertado = new CountDownLatch(1);
+        CountDownLatch otroTermino = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        Future<?> otro = pool.submit(() -> {
+            insertado.await();
+            // El alta pendiente del otro hilo no se ve desde acá
+            assertTrue(servicio.findByUsername("pendiente").isEmpty());
+            // Y lo que escribo yo (autocommit) no depende de su transacción
+            servicio.createUsuarioConCredencial(usuario("independiente"));
+            otroTermino.countDown();
+            return null;
+        });
+
+        assertThrows(SQLException.class, () -> TransactionManager.inTransaction(conn -> {
+            usuarioDao.create(usuario("pendiente"), conn);
+            insertado.countDown();
+            esperar(otroTermino);
+            throw new SQLException("forzado");
+        }));
+        otro.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(0, BaseDePrueba.contar("SELECT COUNT(*) FROM usuario WHERE username = 'pendiente'"));
+        assertEquals(1, BaseDePrueba.contar("SELECT COUNT(*) FROM usuario WHERE username = 'independiente'"));
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Usuario usuario(String username) {
+        Usuario u = new Usuario();
+        u.setUsername(username);
+        u.setNombre("Nombre");
+        u.setApellido("Apellido");
+        u.setEmail(username + "@test.com");
+        u.setActivo(true);
+        u.setEstado(Estado.ACTIVO);
+        CredencialAcceso c = new CredencialAcceso();
+        c.setHashPassword("clave-" + username);
+        c.setEstado(Estado.ACTIVO);
+        u.setCredencial(c);
+        return u;
+    }
+}
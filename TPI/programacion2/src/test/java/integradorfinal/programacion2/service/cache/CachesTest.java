@@ -0,0 +1,96 @@
+package integradorfinal.programacion2.service.cache;
+
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Generaciones por clave y desalojo de las caches de usuarios y credenciales.
+ */
+class CachesTest {
+
+    @Test
+    void invalidarUnUsuarioSoloDescartaSusCargasEnCurso() {
+        UsuarioCache cache = new UsuarioCache(100, 60_000);
+        long generacion = cache.generacion();
+        // Mientras dos lecturas van a la base, se actualiza el usuario 1
+        cache.invalidar(1L);
+        cache.guardar(usuario(1L, "ana"), generacion);
+        cache.guardar(usuario(2L, "beto"), generacion);
+
+        assertTrue(cache.porId(1L).isEmpty());
+        assertEquals("beto", cache.porUsername("beto").orElseThrow().getUsername());
+
+        // Una lectura que empezó después de la invalidación sí se guarda
+        cache.guardar(usuario(1L, "ana"), cache.generacion());
+        assertEquals(1L, cache.porEmail("ana@test.com").orElseThrow().getIdUsuario());
+    }
+
+    @Test
+    void limpiarDescartaTodasLasCargasEnCurso() {
+        UsuarioCache cache = new UsuarioCache(100, 60_000);
+        long generacion = cache.generacion();
+        cache.limpiar();
+        cache.guardar(usuario(2L, "beto"), generacion);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void lasMarcasPodadasSiguenDescartandoCargasViejas() {
+        UsuarioCache cache = new UsuarioCache(10, 60_000);
+        long generacion = cache.generacion();
+        cache.invalidar(1L);
+        for (long id = 100; id < 3_000; id++) cache.invalidar(id);
+        cache.guardar(usuario(1L, "ana"), generacion);
+        assertTrue(cache.porId(1L).isEmpty());
+    }
+
+    @Test
+    void elTopeSacaLasEntradasMasViejas() {
+        UsuarioCache cache = new UsuarioCache(3, 60_000);
+        for (long id = 1; id <= 5; id++) cache.guardar(usuario(id, "u" + id), cache.generacion());
+        assertEquals(3, cache.size());
+        assertTrue(cache.porId(1L).isEmpty());
+        assertTrue(cache.porUsername("u2").isEmpty());
+        assertTrue(cache.porId(5L).isPresent());
+        assertEquals(2, cache.getDesalojos());
+    }
+
+    @Test
+    void credencialPorIdDeCredencialYUltimaSesion() {
+        CredencialCache cache = new CredencialCache(100, 60_000);
+        cache.guardar(credencial(7L, 1L), cache.generacion());
+        LocalDateTime ahora = LocalDateTime.now().withNano(0);
+        cache.actualizarUltimaSesion(1L, ahora);
+
+        CredencialAcceso leida = cache.porUsuarioId(1L).orElseThrow();
+        assertEquals(ahora, leida.getUltimaSesion());
+        assertFalse(leida.hayCambios());
+
+        long generacion = cache.generacion();
+        cache.invalidarCredencial(7L);
+        assertTrue(cache.porUsuarioId(1L).isEmpty());
+        cache.guardar(credencial(7L, 1L), generacion);
+        assertTrue(cache.porUsuarioId(1L).isEmpty());
+        // Otro usuario no se ve afectado
+        cache.guardar(credencial(8L, 2L), generacion);
+        assertTrue(cache.porUsuarioId(2L).isPresent());
+    }
+
+    private static Usuario usuario(Long id, String username) {
+        return new Usuario(id, false, username, "Nombre", "Apellido", username + "@test.com",
+                LocalDateTime.now(), true, Estado.ACTIVO);
+    }
+
+    private static CredencialAcceso credencial(Long id, Long usuarioId) {
+        return new CredencialAcceso(id, false, usuarioId, Estado.ACTIVO, null,
+                "$sha256$hash", "salt", null, false);
+    }
+}
@@ -0,0 +1,58 @@
+package integradorfinal.programacion2.service.sesion;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimitadorLoginTest {
+
+    @Test
+    void conElMapaLlenoRechazaClavesNuevasSinCrecer() {
+        try (LimitadorLogin limitador = new LimitadorLogin(new LimitadorLogin.Limite(5, 10), null, 100, 60_000)) {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(limitador.intentar("usuario" + i, null));
+            }
+            for (int i = 100; i < 10_000; i++) {
+                assertFalse(limitador.intentar("inventado" + i, null));
+            }
+            assertEquals(100, limitador.getClavesActivas());
+            assertEquals(9_900, limitador.getRechazadosPorTope());
+            // Las claves que ya tenían bucket siguen funcionando
+            assertTrue(limitador.intentar("usuario0", null));
+        }
+    }
+
+    @Test
+    void losLoginsCorrectosNoGastanIntentos() {
+        try (LimitadorLogin limitador = new LimitadorLogin(new LimitadorLogin.Limite(3, 1), null, 100, 60_000)) {
+            for (int i = 0; i < 50; i++) {
+                assertTrue(limitador.intentar("ana", null));
+                limitador.devolver("ana", null);
+            }
+            // Los fallidos sí cuentan: la ráfaga sigue entera y después se corta
+            assertTrue(limitador.intentar("ana", null));
+            assertTrue(limitador.intentar("ana", null));
+            assertTrue(limitador.intentar("ana", null));
+            assertFalse(limitador.intentar("ana", null));
+        }
+    }
+
+    @Test
+    void lasVariantesDeAcentosYMayusculasCompartenBucket() {
+        assertEquals("ana", LimitadorLogin.normalizar(" Anà "));
+        assertEquals("ana", LimitadorLogin.normalizar("ÁÑA"));
+        assertEquals("strasse", LimitadorLogin.normalizar("Straße"));
+        assertEquals("ana", LimitadorLogin.normalizar("\uFF21na")); // A de ancho completo
+
+        try (LimitadorLogin limitador = new LimitadorLogin(new LimitadorLogin.Limite(3, 1), null, 100, 60_000)) {
+            assertTrue(limitador.intentar("ana", null));
+            assertTrue(limitador.intentar("Anà", null));
+            assertTrue(limitador.intentar("áña", null));
+            // Cuarta variante: mismo bucket, ráfaga agotada
+            assertFalse(limitador.intentar("ÁNA", null));
+            assertEquals(1, limitador.getClavesActivas());
+        }
+    }
+}
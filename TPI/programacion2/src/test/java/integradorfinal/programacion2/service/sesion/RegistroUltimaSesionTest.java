@@ -0,0 +1,79 @@
+package integradorfinal.programacion2.service.sesion;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Flush de las últimas sesiones cuando una fila falla siempre (como con un
+ * trigger que hace SIGNAL): las demás se escriben y esa se abandona.
+ */
+class RegistroUltimaSesionTest {
+
+    static final long RECHAZADO = 3;
+
+    /** Rechaza cualquier UPDATE de la credencial del usuario RECHAZADO. */
+    public static class RechazarUsuario implements Trigger {
+        @Override
+        public void fire(Connection conn, Object[] anterior, Object[] nueva) throws SQLException {
+            if (((Number) nueva[2]).longValue() == RECHAZADO) {
+                throw new SQLException("Fila rechazada por el trigger", "45000");
+            }
+        }
+    }
+
+    private RegistroUltimaSesion registro;
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        BaseDePrueba.preparar();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            for (int id = 1; id <= 5; id++) {
+                st.executeUpdate("INSERT INTO usuario (id_usuario, username, nombre, apellido, email) "
+                        + "VALUES (" + id + ", 'u" + id + "', 'N', 'A', 'u" + id + "@test.com')");
+                st.executeUpdate("INSERT INTO credencial_acceso (usuario_id, estado, hash_password, salt) "
+                        + "VALUES (" + id + ", 'ACTIVO', 'x', 'salt')");
+            }
+            st.execute("CREATE TRIGGER IF NOT EXISTS rechazar_usuario BEFORE UPDATE ON credencial_acceso "
+                    + "FOR EACH ROW CALL '" + RechazarUsuario.class.getName() + "'");
+        }
+        registro = new RegistroUltimaSesion(new CredencialAccesoDaoImpl(), null, 600_000, 100, 2);
+    }
+
+    @AfterEach
+    void cerrar() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("DROP TRIGGER IF EXISTS rechazar_usuario");
+        }
+        registro.close();
+    }
+
+    @Test
+    void unaFilaQueFallaNoFrenaAlRestoYSeAbandona() throws SQLException {
+        LocalDateTime ahora = LocalDateTime.now().withNano(0);
+        for (long id = 1; id <= 5; id++) registro.registrar(id, ahora);
+
+        assertEquals(4, registro.flush());
+        assertEquals(4, BaseDePrueba.contar("SELECT COUNT(*) FROM credencial_acceso WHERE ultima_sesion IS NOT NULL"));
+        // La rechazada vuelve al buffer para el próximo flush
+        assertEquals(1, registro.getPendientes());
+
+        // Segundo intento fallido: con maxIntentos = 2 se abandona
+        assertEquals(0, registro.flush());
+        assertEquals(0, registro.getPendientes());
+        assertEquals(1, registro.getAbandonados());
+    }
+}
@@ -0,0 +1,127 @@
+package integradorfinal.programacion2.util;
+
+import integradorfinal.programacion2.BaseDePrueba;
+import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.config.TransactionManager;
+import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Timeout de las llamadas asíncronas: la consulta en curso se cancela con
+ * Statement.cancel y una escritura cancelada no llega a confirmarse.
+ */
+class EjecutorSqlTest {
+
+    private final EjecutorSql ejecutor = new EjecutorSql(4, 16, 5_000);
+    private final CountDownLatch termino = new CountDownLatch(1);
+    private final AtomicReference<Exception> error = new AtomicReference<>();
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        BaseDePrueba.preparar();
+    }
+
+    @AfterEach
+    void cerrar() {
+        ejecutor.close();
+    }
+
+    @Test
+    void elTimeoutCancelaLaConsultaEnCurso() throws Exception {
+        long inicio = System.nanoTime();
+        CompletableFuture<Long> f = ejecutor.ejecutar(() -> registrando(() -> {
+            // Tarda muchísimo más que el timeout si nadie la corta
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement("SELECT COUNT(RAND()) FROM SYSTEM_RANGE(1, 50000000000)");
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }), Duration.ofMillis(200));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> f.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, ex.getCause());
+
+        assertTrue(termino.await(10, TimeUnit.SECONDS), "la consulta no se canceló");
+        assertInstanceOf(SQLException.class, error.get());
+        assertTrue(System.nanoTime() - inicio < TimeUnit.SECONDS.toNanos(10));
+        assertEquals(1, ejecutor.getTimeouts());
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+    }
+
+    @Test
+    void unaEscrituraVencidaNoSeConfirma() throws Exception {
+        UsuarioDaoImpl dao = new UsuarioDaoImpl();
+        CompletableFuture<Long> f = ejecutor.ejecutar(() -> registrando(() ->
+                TransactionManager.inTransaction(conn -> {
+                    Long id = dao.create(usuario("tarde"), conn);
+                    // Termino el trabajo recién cuando el timeout ya canceló la operación
+                    esperarCancelacion(conn);
+                    return id;
+                })), Duration.ofMillis(200));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> f.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, ex.getCause());
+
+        assertTrue(termino.await(10, TimeUnit.SECONDS));
+        SQLException sql = assertInstanceOf(SQLException.class, error.get());
+        assertEquals("57014", sql.getSQLState());
+        assertEquals(0, BaseDePrueba.contar("SELECT COUNT(*) FROM usuario WHERE username = 'tarde'"));
+        assertEquals(0, DatabaseConnection.getDataSource().getConexionesEnUso());
+    }
+
+    private <T> T registrando(EjecutorSql.Llamada<T> llamada) throws Exception {
+        try {
+            return llamada.ejecutar();
+        } catch (Exception e) {
+            error.set(e);
+            throw e;
+        } finally {
+            termino.countDown();
+        }
+    }
+
+    /** Una vez cancelada la operación, la conexión ya no entrega sentencias. */
+    private static void esperarCancelacion(Connection conn) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < limite) {
+            try (PreparedStatement ps = conn.prepareStatement("SELECT 1")) {
+                Thread.sleep(20);
+            } catch (SQLException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        fail("La operación no se canceló");
+    }
+
+    private static Usuario usuario(String username) {
+        return new Usuario(null, false, username, "Nombre", "Apellido", username + "@test.com",
+                LocalDateTime.now(), true, Estado.ACTIVO);
+    }
+}
@@ -0,0 +1,29 @@
+package integradorfinal.programacion2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashingExecutorTest {
+
+    @Test
+    void unHashQueFallaNoTiraElLote() {
+        try (HashingExecutor hashing = new HashingExecutor(2, 4, HashingExecutor.Politica.ESPERAR, 30_000)) {
+            // El salt vacío hace fallar solo al segundo
+            List<HashingExecutor.Hasheado> r = hashing.hashTodos(
+                    List.of("uno", "dos", "tres"), List.of("salt1", "", "salt3"));
+
+            assertEquals(3, r.size());
+            assertTrue(r.get(0).ok());
+            assertFalse(r.get(1).ok());
+            assertInstanceOf(IllegalArgumentException.class, r.get(1).error());
+            assertTrue(r.get(2).ok());
+            assertTrue(PasswordHashing.verificar("tres", "salt3", r.get(2).hash()));
+        }
+    }
+}
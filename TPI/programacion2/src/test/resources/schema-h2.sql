@@ -0,0 +1,34 @@
+-- Esquema de Base_de_datos_Grupo_18.sql adaptado a H2 (modo MySQL), sin triggers.
+
+CREATE TABLE IF NOT EXISTS usuario (
+    id_usuario INT NOT NULL AUTO_INCREMENT,
+    eliminado BOOLEAN NOT NULL DEFAULT FALSE,
+    username VARCHAR(60) NOT NULL,
+    nombre VARCHAR(100) NOT NULL,
+    apellido VARCHAR(100) NOT NULL,
+    email VARCHAR(120) NOT NULL,
+    fecha_registro DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    activo BOOLEAN NOT NULL DEFAULT TRUE,
+    estado VARCHAR(15) NOT NULL DEFAULT 'ACTIVO',
+    CONSTRAINT pk_usuario PRIMARY KEY (id_usuario),
+    CONSTRAINT uq_usuario_username UNIQUE (username),
+    CONSTRAINT uq_usuario_email UNIQUE (email),
+    CONSTRAINT ck_usuario_estado CHECK (estado IN ('ACTIVO','INACTIVO'))
+);
+
+CREATE TABLE IF NOT EXISTS credencial_acceso (
+    id_credencial INT NOT NULL AUTO_INCREMENT,
+    eliminado BOOLEAN NOT NULL DEFAULT FALSE,
+    usuario_id INT NOT NULL,
+    estado VARCHAR(15) NOT NULL,
+    ultima_sesion TIMESTAMP NULL,
+    hash_password VARCHAR(255) NOT NULL,
+    salt VARCHAR(64) NULL,
+    ultimo_cambio DATETIME NULL,
+    requiere_reset BOOLEAN NOT NULL DEFAULT FALSE,
+    CONSTRAINT pk_credencial PRIMARY KEY (id_credencial),
+    CONSTRAINT uq_credencial_usuario UNIQUE (usuario_id),
+    CONSTRAINT fk_credencial_usuario FOREIGN KEY (usuario_id)
+        REFERENCES usuario(id_usuario) ON DELETE CASCADE ON UPDATE CASCADE,
+    CONSTRAINT ck_cred_estado CHECK (estado IN ('ACTIVO','INACTIVO'))
+);